@@ -3,6 +3,7 @@ plugins {
     id("io.freefair.lombok") version "8.11"
     id("com.gradleup.shadow") version "9.3.0"
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.3"
     //id("io.papermc.paperweight.userdev") version "2.0.0-beta.19"
 }
 
@@ -39,6 +40,11 @@ dependencies {
     testImplementation("org.mockbukkit.mockbukkit:mockbukkit-v1.21:4.101.0")
 }
 
+// Microbenchmarks under src/jmh, run with ./gradlew :core:jmh
+jmh {
+    jmhVersion.set("1.37")
+}
+
 java {
     toolchain.languageVersion.set(JavaLanguageVersion.of(21))
 }
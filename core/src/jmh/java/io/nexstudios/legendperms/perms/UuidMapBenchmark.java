@@ -0,0 +1,87 @@
+package io.nexstudios.legendperms.perms;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link UuidMap} with the {@link ConcurrentHashMap} it replaces for the per-player maps:
+ * lookups of present keys, lookups of absent keys and a put/remove pair (join and quit).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UuidMapBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int entries;
+
+    private UuidMap<Object> uuidMap;
+    private Map<UUID, Object> concurrentHashMap;
+
+    private UUID[] present;
+    private UUID[] absent;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        uuidMap = new UuidMap<>();
+        concurrentHashMap = new ConcurrentHashMap<>();
+        present = new UUID[entries];
+        absent = new UUID[entries];
+
+        for (int i = 0; i < entries; i++) {
+            present[i] = UUID.randomUUID();
+            absent[i] = UUID.randomUUID();
+            Object value = new Object();
+            uuidMap.put(present[i], value);
+            concurrentHashMap.put(present[i], value);
+        }
+    }
+
+    @Benchmark
+    public Object getPresentUuidMap() {
+        return uuidMap.get(present[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object getPresentConcurrentHashMap() {
+        return concurrentHashMap.get(present[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object getAbsentUuidMap() {
+        return uuidMap.get(absent[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object getAbsentConcurrentHashMap() {
+        return concurrentHashMap.get(absent[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object putRemoveUuidMap() {
+        UUID uuid = absent[nextIndex()];
+        uuidMap.put(uuid, uuid);
+        return uuidMap.remove(uuid);
+    }
+
+    @Benchmark
+    public Object putRemoveConcurrentHashMap() {
+        UUID uuid = absent[nextIndex()];
+        concurrentHashMap.put(uuid, uuid);
+        return concurrentHashMap.remove(uuid);
+    }
+
+    private int nextIndex() {
+        int index = next++;
+        if (next == entries) next = 0;
+        return index;
+    }
+}
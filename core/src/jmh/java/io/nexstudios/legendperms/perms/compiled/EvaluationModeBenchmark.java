@@ -0,0 +1,118 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EvaluationMode#MERGED} with {@link EvaluationMode#LAYERED}: the cost of a permission
+ * check against one group set, and the cost of a single node edit of a group that is part of
+ * {@code distinctSets} cached group sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationModeBenchmark {
+
+    @Param({"3", "8"})
+    private int groupsPerSet;
+
+    @Param({"50", "500"})
+    private int nodesPerGroup;
+
+    @Param({"10", "100"})
+    private int distinctSets;
+
+    private PermissionNodeRegistry registry;
+    private List<Map<String, PermissionDecision>> groups;
+    private List<GroupPermissionTable> tables;
+
+    private EffectivePermissions[] mergedSets;
+    private LayeredPermissions layered;
+    private String[] checkedNodes;
+    private int editedId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new PermissionNodeRegistry();
+        groups = new ArrayList<>();
+        tables = new ArrayList<>();
+
+        // lowest priority first, every group shares the wildcard of the plugin it configures
+        for (int g = 0; g < groupsPerSet; g++) {
+            Map<String, PermissionDecision> permissions = new HashMap<>();
+            permissions.put("plugin" + g + ".*", PermissionDecision.ALLOW);
+            for (int n = 0; n < nodesPerGroup; n++) {
+                permissions.put("plugin" + g + ".node" + n, n % 7 == 0 ? PermissionDecision.DENY : PermissionDecision.ALLOW);
+            }
+            groups.add(permissions);
+            tables.add(new GroupPermissionTable(EffectivePermissions.compile(permissions, registry)));
+        }
+
+        Map<String, PermissionDecision> merged = new HashMap<>();
+        groups.forEach(merged::putAll);
+        // every distinct set holds its own merged copy, e.g. the same groups plus one rank group each
+        mergedSets = new EffectivePermissions[distinctSets];
+        for (int s = 0; s < distinctSets; s++) {
+            Map<String, PermissionDecision> withRank = new HashMap<>(merged);
+            withRank.put("rank" + s + ".kit", PermissionDecision.ALLOW);
+            mergedSets[s] = EffectivePermissions.compile(withRank, registry);
+        }
+
+        List<GroupPermissionTable> highestFirst = new ArrayList<>(tables);
+        Collections.reverse(highestFirst);
+        layered = new LayeredPermissions(highestFirst);
+
+        // exact hits in the lowest group, wildcard hits and misses
+        checkedNodes = new String[]{
+                "plugin0.node1",
+                "plugin0.node" + (nodesPerGroup - 1),
+                "plugin" + (groupsPerSet - 1) + ".node3",
+                "plugin0.unknown",
+                "other.plugin.node"
+        };
+        editedId = registry.intern("plugin0.node1");
+    }
+
+    @Benchmark
+    public PermissionDecision lookupMerged() {
+        return registry.decide(nextNode(), mergedSets[0]);
+    }
+
+    @Benchmark
+    public PermissionDecision lookupLayered() {
+        return registry.decide(nextNode(), layered);
+    }
+
+    @Benchmark
+    public void groupEditMerged(Blackhole blackhole) {
+        PermissionDecision decision = (next++ & 1) == 0 ? PermissionDecision.DENY : PermissionDecision.ALLOW;
+        for (int s = 0; s < mergedSets.length; s++) {
+            mergedSets[s] = mergedSets[s].with(editedId, decision, registry);
+        }
+        blackhole.consume(mergedSets);
+    }
+
+    @Benchmark
+    public void groupEditLayered(Blackhole blackhole) {
+        PermissionDecision decision = (next++ & 1) == 0 ? PermissionDecision.DENY : PermissionDecision.ALLOW;
+        GroupPermissionTable table = tables.get(0);
+        table.patch(editedId, decision, registry);
+        blackhole.consume(table);
+    }
+
+    private String nextNode() {
+        return checkedNodes[(next++ & Integer.MAX_VALUE) % checkedNodes.length];
+    }
+}
@@ -17,8 +17,12 @@ import io.nexstudios.legendperms.file.LegendFile;
 import io.nexstudios.legendperms.file.LegendFileReader;
 import io.nexstudios.legendperms.perms.LegendPermissionService;
 import io.nexstudios.legendperms.perms.PermissibleInjector;
+import io.nexstudios.legendperms.perms.compiled.EvaluationMode;
+import io.nexstudios.legendperms.perms.expiry.TemporaryGroupExpiryScheduler;
+import io.nexstudios.legendperms.perms.rebuild.UserRebuildScheduler;
 import io.nexstudios.legendperms.perms.listener.PlayerInjectorListener;
 import io.nexstudios.legendperms.perms.listener.LoadPlayerDataListener;
+import io.nexstudios.legendperms.perms.listener.WorldContextListener;
 import io.nexstudios.legendperms.perms.storage.PermissionDAO;
 import io.nexstudios.legendperms.utils.LegendLanguage;
 import io.nexstudios.legendperms.utils.LegendLogger;
@@ -48,6 +52,8 @@ public class LegendPerms extends JavaPlugin {
     private LegendPermissionService permissionService;
     private TablistPrefixListener tablistPrefixListener;
     private PermissibleInjector permissibleInjector;
+    private TemporaryGroupExpiryScheduler expiryScheduler;
+    private UserRebuildScheduler rebuildScheduler;
     private PermissionDAO permsRepository;
 
     private BrigadierRootCommand brigadierRootCommand;
@@ -82,10 +88,12 @@ public class LegendPerms extends JavaPlugin {
         registerDatabaseService();
 
         // Scheduler for checking expirations (temp ranks)
-        Bukkit.getScheduler().runTaskTimer(this, () -> {
-            if (permissionService == null) return;
-            Bukkit.getOnlinePlayers().forEach(p -> permissionService.tickExpirations(p.getUniqueId()));
-        }, 20L, 20L);
+        this.expiryScheduler = new TemporaryGroupExpiryScheduler(permissionService);
+        this.expiryScheduler.start(this);
+
+        // Scheduler for flushing coalesced user rebuilds
+        this.rebuildScheduler = new UserRebuildScheduler(permissionService);
+        this.rebuildScheduler.start(this);
 
         legendLogger.info("LegendPerms successfully enabled");
     }
@@ -94,6 +102,18 @@ public class LegendPerms extends JavaPlugin {
     public void onDisable() {
         legendLogger.info("Disabling LegendPerms...");
 
+        if (expiryScheduler != null) {
+            expiryScheduler.stop();
+        }
+
+        if (rebuildScheduler != null) {
+            rebuildScheduler.stop();
+        }
+
+        if (permissionService != null) {
+            permissionService.shutdown();
+        }
+
         if (permissibleInjector != null) {
             permissibleInjector.uninjectAll(Bukkit.getOnlinePlayers());
         }
@@ -119,6 +139,13 @@ public class LegendPerms extends JavaPlugin {
 
     public void onReload() {
         loadLegendFiles();
+        applyEvaluationMode();
+    }
+
+    private void applyEvaluationMode() {
+        if (permissionService == null) return;
+        permissionService.setEvaluationMode(EvaluationMode.fromConfig(
+                settingsFile.getString("permissions.evaluation-mode", "merged")));
     }
 
     private void registerBrigadierCommands() {
@@ -135,6 +162,7 @@ public class LegendPerms extends JavaPlugin {
     private void registerEvents() {
         Bukkit.getPluginManager().registerEvents(new PlayerInjectorListener(permissibleInjector), this);
         Bukkit.getPluginManager().registerEvents(new LoadPlayerDataListener(permissionService), this);
+        Bukkit.getPluginManager().registerEvents(new WorldContextListener(permissionService), this);
         Bukkit.getPluginManager().registerEvents(new PrefixChatListener(this), this);
         this.tablistPrefixListener = new TablistPrefixListener(this);
         Bukkit.getPluginManager().registerEvents(this.tablistPrefixListener, this);
@@ -146,6 +174,7 @@ public class LegendPerms extends JavaPlugin {
         this.permsRepository = new PermissionDAO(this.abstractDatabase);
 
         this.permissionService = new LegendPermissionService(legendLogger, permsRepository);
+        applyEvaluationMode();
         this.permissionService.ensureDefaultGroup();
 
         this.permissibleInjector = new PermissibleInjector(permissionService, legendLogger);
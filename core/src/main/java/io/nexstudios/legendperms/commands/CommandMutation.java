@@ -0,0 +1,53 @@
+package io.nexstudios.legendperms.commands;
+
+import io.nexstudios.legendperms.LegendPerms;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.command.CommandSender;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hands the mutation of a command to the writer of the permission service, so the main thread never
+ * waits for it. The reply is sent on the main thread once the mutation has been applied, a group that
+ * does not exist is reported to the sender.
+ */
+final class CommandMutation {
+
+    private CommandMutation() {
+    }
+
+    /**
+     * @param mutation calls the mutators of the permission service, runs on the writer
+     * @param reply sends the reply for the result of the mutation, runs on the main thread
+     */
+    static <T> void apply(LegendPerms plugin, CommandSender sender, Supplier<T> mutation, Consumer<T> reply) {
+        apply(plugin, sender, null, mutation, reply);
+    }
+
+    /**
+     * @param groupName the group the mutation targets, reported if the mutation throws an {@link IllegalArgumentException}
+     * @param mutation calls the mutators of the permission service, runs on the writer
+     * @param reply sends the reply for the result of the mutation, runs on the main thread
+     */
+    static <T> void apply(LegendPerms plugin, CommandSender sender, String groupName, Supplier<T> mutation, Consumer<T> reply) {
+        plugin.getPermissionService().submit(mutation).whenComplete((result, ex) -> {
+            if (ex == null) {
+                reply.accept(result);
+                return;
+            }
+
+            if (groupName != null && ex instanceof IllegalArgumentException) {
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        "permission.group-not-exists",
+                        true,
+                        TagResolver.resolver(Placeholder.parsed("group", groupName))
+                );
+                return;
+            }
+            plugin.getLegendLogger().warning("Command of " + sender.getName() + " failed: " + ex);
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package io.nexstudios.legendperms.commands;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Parsing and suggestions of duration arguments like {@code 5s}, {@code 10m}, {@code 2h} or {@code 7d},
+ * shared by the commands for temporary groups and temporary permissions.
+ */
+final class DurationArgument {
+
+    private static final String[] SAMPLES = {"5s", "30s", "5m", "10m", "1h", "12h", "1d", "7d"};
+
+    private DurationArgument() {
+    }
+
+    static CompletableFuture<Suggestions> suggest(
+            CommandContext<CommandSourceStack> ctx,
+            SuggestionsBuilder builder
+    ) {
+        String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
+        for (String s : SAMPLES) {
+            if (remaining.isEmpty() || s.startsWith(remaining)) {
+                builder.suggest(s);
+            }
+        }
+        return builder.buildFuture();
+    }
+
+    /**
+     * @return the parsed duration, or null if the input is malformed or not positive
+     */
+    static Duration parse(String raw) {
+        if (raw == null) return null;
+        String s = raw.trim().toLowerCase(Locale.ROOT);
+        if (s.length() < 2) return null;
+
+        char unit = s.charAt(s.length() - 1);
+        String numPart = s.substring(0, s.length() - 1).trim();
+        long n;
+        try {
+            n = Long.parseLong(numPart);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (n <= 0) return null;
+
+        return switch (unit) {
+            case 's' -> Duration.ofSeconds(n);
+            case 'm' -> Duration.ofMinutes(n);
+            case 'h' -> Duration.ofHours(n);
+            case 'd' -> Duration.ofDays(n);
+            default -> null;
+        };
+    }
+
+    /**
+     * @param expiration a formatted deadline, "never" for permanent entries
+     * @return the suffix listing the deadline in an info line, empty for permanent entries
+     */
+    static String expirationSuffix(String expiration) {
+        return "never".equals(expiration) ? "" : ", expires: <blue>" + expiration + "<gray>";
+    }
+}
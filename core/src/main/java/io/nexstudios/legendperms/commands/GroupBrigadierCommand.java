@@ -15,12 +15,17 @@ import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.command.CommandSender;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubCommand {
 
@@ -56,27 +61,29 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                                     return builder.buildFuture();
                                 })
                                 .executes(ctx -> {
+                                    CommandSender sender = ctx.getSource().getSender();
                                     String groupName = StringArgumentType.getString(ctx, "groupName");
 
-                                    boolean created = plugin.getPermissionService().createGroup(groupName);
-                                    if (!created) {
+                                    CommandMutation.apply(plugin, sender, groupName, () -> plugin.getPermissionService().createGroup(groupName), created -> {
+                                        if (!created) {
+                                            plugin.getMessageSender().sendChatMessage(
+                                                    sender,
+                                                    "permission.group-already-exists",
+                                                    true,
+                                                    null
+                                            );
+                                            return;
+                                        }
+
                                         plugin.getMessageSender().sendChatMessage(
-                                                ctx.getSource().getSender(),
-                                                "permission.group-already-exists",
+                                                sender,
+                                                "permission.group-created",
                                                 true,
-                                                null
+                                                TagResolver.resolver(
+                                                        Placeholder.parsed("group", groupName)
+                                                )
                                         );
-                                        return 0;
-                                    }
-
-                                    plugin.getMessageSender().sendChatMessage(
-                                            ctx.getSource().getSender(),
-                                            "permission.group-created",
-                                            true,
-                                            TagResolver.resolver(
-                                                    Placeholder.parsed("group", groupName)
-                                            )
-                                    );
+                                    });
                                     return 1;
                                 })
                         )
@@ -89,39 +96,41 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                         .then(Commands.argument("groupName", StringArgumentType.word())
                                 .suggests(this::suggestGroups)
                                 .executes(ctx -> {
+                                    CommandSender sender = ctx.getSource().getSender();
                                     String groupName = StringArgumentType.getString(ctx, "groupName");
 
-                                    boolean ok = plugin.getPermissionService().deleteGroup(groupName);
-                                    if (!ok) {
-                                        if (LegendPermissionService.DEFAULT_GROUP_NAME.equalsIgnoreCase(groupName)) {
+                                    if (LegendPermissionService.DEFAULT_GROUP_NAME.equalsIgnoreCase(groupName)) {
+                                        plugin.getMessageSender().sendChatMessage(
+                                                sender,
+                                                "permission.group-delete-default",
+                                                true,
+                                                null
+                                        );
+                                        return 0;
+                                    }
+
+                                    CommandMutation.apply(plugin, sender, groupName, () -> plugin.getPermissionService().deleteGroup(groupName), ok -> {
+                                        if (!ok) {
                                             plugin.getMessageSender().sendChatMessage(
-                                                    ctx.getSource().getSender(),
-                                                    "permission.group-delete-default",
+                                                    sender,
+                                                    "permission.group-not-exists",
                                                     true,
-                                                    null
+                                                    TagResolver.resolver(
+                                                            Placeholder.parsed("group", groupName)
+                                                    )
                                             );
-                                            return 0;
+                                            return;
                                         }
 
                                         plugin.getMessageSender().sendChatMessage(
-                                                ctx.getSource().getSender(),
-                                                "permission.group-not-exists",
+                                                sender,
+                                                "permission.group-deleted",
                                                 true,
                                                 TagResolver.resolver(
                                                         Placeholder.parsed("group", groupName)
                                                 )
                                         );
-                                        return 0;
-                                    }
-
-                                    plugin.getMessageSender().sendChatMessage(
-                                            ctx.getSource().getSender(),
-                                            "permission.group-deleted",
-                                            true,
-                                            TagResolver.resolver(
-                                                    Placeholder.parsed("group", groupName)
-                                            )
-                                    );
+                                    });
                                     return 1;
                                 })
                         )
@@ -171,6 +180,30 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                                                         )
                                                 )
                                         )
+                                        .then(Commands.literal("settemp")
+                                                .then(Commands.literal("allow")
+                                                        .then(Commands.argument("time", StringArgumentType.word())
+                                                                .suggests(DurationArgument::suggest)
+                                                                // greedyString for .* permission nodes
+                                                                .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                        .suggests(this::suggestPermissionNodePlaceholder)
+                                                                        .executes(ctx ->
+                                                                                setTemporaryGroupPermission(ctx, PermissionDecision.ALLOW))
+                                                                )
+                                                        )
+                                                )
+                                                .then(Commands.literal("deny")
+                                                        .then(Commands.argument("time", StringArgumentType.word())
+                                                                .suggests(DurationArgument::suggest)
+                                                                // greedyString for .* permission nodes
+                                                                .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                        .suggests(this::suggestPermissionNodePlaceholder)
+                                                                        .executes(ctx ->
+                                                                                setTemporaryGroupPermission(ctx, PermissionDecision.DENY))
+                                                                )
+                                                        )
+                                                )
+                                        )
                                         .then(Commands.literal("remove")
                                                 .then(Commands.argument("node", StringArgumentType.greedyString())
                                                         .suggests(this::suggestExistingGroupPermissionNodes)
@@ -179,6 +212,51 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                                         )
                                 )
 
+                                .then(Commands.literal("world")
+                                        .then(Commands.argument("world", StringArgumentType.word())
+                                                .suggests(this::suggestWorlds)
+                                                .then(Commands.literal("set")
+                                                        .then(Commands.literal("allow")
+                                                                // greedyString for .* permission nodes
+                                                                .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                        .suggests(this::suggestPermissionNodePlaceholder)
+                                                                        .executes(ctx ->
+                                                                                setGroupWorldPermission(ctx, PermissionDecision.ALLOW))
+                                                                )
+                                                        )
+                                                        .then(Commands.literal("deny")
+                                                                // greedyString for .* permission nodes
+                                                                .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                        .suggests(this::suggestPermissionNodePlaceholder)
+                                                                        .executes(ctx ->
+                                                                                setGroupWorldPermission(ctx, PermissionDecision.DENY))
+                                                                )
+                                                        )
+                                                )
+                                                .then(Commands.literal("remove")
+                                                        .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                .suggests(this::suggestExistingGroupWorldPermissionNodes)
+                                                                .executes(this::removeGroupWorldPermission)
+                                                        )
+                                                )
+                                        )
+                                )
+
+                                .then(Commands.literal("parent")
+                                        .then(Commands.literal("add")
+                                                .then(Commands.argument("parent", StringArgumentType.word())
+                                                        .suggests(this::suggestGroups)
+                                                        .executes(this::addGroupParent)
+                                                )
+                                        )
+                                        .then(Commands.literal("remove")
+                                                .then(Commands.argument("parent", StringArgumentType.word())
+                                                        .suggests(this::suggestGroupParents)
+                                                        .executes(this::removeGroupParent)
+                                                )
+                                        )
+                                )
+
                                 .then(Commands.literal("prefix")
                                         .then(Commands.literal("set")
                                                 // greedyString for special symbols such as color codes (<blue>PREFIX)
@@ -199,19 +277,10 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
         String groupName = StringArgumentType.getString(ctx, "groupName");
         int value = IntegerArgumentType.getInteger(ctx, "value");
 
-        try {
+        CommandMutation.apply(plugin, sender, groupName, () -> {
             plugin.getPermissionService().setGroupPriority(groupName, value);
-        } catch (IllegalArgumentException ex) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-not-exists",
-                    true,
-                    TagResolver.resolver(Placeholder.parsed("group", groupName))
-            );
-            return 0;
-        }
-
-        plugin.getMessageSender().sendChatMessage(
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
                 sender,
                 "permission.group-priority-set",
                 true,
@@ -219,7 +288,7 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                         Placeholder.parsed("group", groupName),
                         Placeholder.parsed("priority", String.valueOf(value))
                 )
-        );
+        ));
         return 1;
     }
 
@@ -251,6 +320,40 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
         return builder.buildFuture();
     }
 
+    private CompletableFuture<Suggestions> suggestWorlds(
+            CommandContext<CommandSourceStack> ctx,
+            SuggestionsBuilder builder
+    ) {
+        String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
+        for (World world : Bukkit.getWorlds()) {
+            if (remaining.isEmpty() || world.getName().toLowerCase(Locale.ROOT).startsWith(remaining)) {
+                builder.suggest(world.getName());
+            }
+        }
+        return builder.buildFuture();
+    }
+
+    private CompletableFuture<Suggestions> suggestExistingGroupWorldPermissionNodes(
+            CommandContext<CommandSourceStack> ctx,
+            SuggestionsBuilder builder
+    ) {
+        LegendGroup group = plugin.getPermissionService().getGroup(StringArgumentType.getString(ctx, "groupName"));
+        if (group == null) return builder.buildFuture();
+
+        String world = StringArgumentType.getString(ctx, "world").toLowerCase(Locale.ROOT);
+        Map<String, PermissionDecision> worldNodes = group.getWorldPermissions().getOrDefault(world, Map.of());
+
+        String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
+        worldNodes.keySet().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .forEach(node -> {
+                    if (remaining.isEmpty() || node.toLowerCase(Locale.ROOT).startsWith(remaining)) {
+                        builder.suggest(node);
+                    }
+                });
+        return builder.buildFuture();
+    }
+
     private CompletableFuture<Suggestions> suggestExistingGroupPermissionNodes(
             CommandContext<CommandSourceStack> ctx,
             SuggestionsBuilder builder
@@ -280,6 +383,26 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
         return builder.buildFuture();
     }
 
+    private CompletableFuture<Suggestions> suggestGroupParents(
+            CommandContext<CommandSourceStack> ctx,
+            SuggestionsBuilder builder
+    ) {
+        String groupName;
+        try {
+            groupName = StringArgumentType.getString(ctx, "groupName");
+        } catch (IllegalArgumentException ex) {
+            return builder.buildFuture();
+        }
+
+        String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
+        for (String parent : plugin.getPermissionService().getGroupParentNames(groupName)) {
+            if (remaining.isEmpty() || parent.toLowerCase(Locale.ROOT).startsWith(remaining)) {
+                builder.suggest(parent);
+            }
+        }
+        return builder.buildFuture();
+    }
+
     private int showGroupInfo(CommandContext<CommandSourceStack> ctx) {
         CommandSender sender = ctx.getSource().getSender();
         String groupName = StringArgumentType.getString(ctx, "groupName");
@@ -306,18 +429,31 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                     String node = e.getKey();
                     PermissionDecision decision = e.getValue();
                     String dec = (decision != null) ? decision.name().toLowerCase(Locale.ROOT) : "unknown";
-                    return "<dark_gray>" + node + " <gray>(" + dec + ")";
+                    String expiration = plugin.getPermissionService().getGroupPermissionExpiration(group.getName(), node);
+                    return "<dark_gray>" + node + " <gray>(" + dec + DurationArgument.expirationSuffix(expiration) + ")";
                 })
-                .toList();
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        // world-scoped nodes, grouped by world
+        group.getWorldPermissions().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(world -> world.getValue().entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey(String.CASE_INSENSITIVE_ORDER))
+                        .forEach(e -> permissionLines.add("<dark_gray>" + e.getKey() + " <gray>("
+                                + e.getValue().name().toLowerCase(Locale.ROOT) + ", world: <blue>" + world.getKey() + "<gray>)")));
 
         if (permissionLines.isEmpty()) {
-            permissionLines = List.of("<gray>None");
+            permissionLines.add("<gray>None");
         }
 
+        List<String> parentNames = plugin.getPermissionService().getGroupParentNames(group.getName());
+        String parents = parentNames.isEmpty() ? "<gray>None" : String.join("<gray>, <blue>", parentNames);
+
         TagResolver resolver = TagResolver.resolver(
                 Placeholder.parsed("name", group.getName()),
                 Placeholder.parsed("prefix", prefix),
-                Placeholder.parsed("priority", String.valueOf(group.getPriority()))
+                Placeholder.parsed("priority", String.valueOf(group.getPriority())),
+                Placeholder.parsed("parents", parents)
         );
 
         plugin.getMessageSender().sendChatMessage(
@@ -330,32 +466,64 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
         return 1;
     }
 
-    private int setGroupPrefix(CommandContext<CommandSourceStack> ctx) {
+    private int addGroupParent(CommandContext<CommandSourceStack> ctx) {
         CommandSender sender = ctx.getSource().getSender();
         String groupName = StringArgumentType.getString(ctx, "groupName");
-        String prefix = StringArgumentType.getString(ctx, "prefix");
-
-        try {
-            plugin.getPermissionService().setGroupPrefix(groupName, prefix);
-        } catch (IllegalArgumentException ex) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-not-exists",
-                    true,
-                    TagResolver.resolver(Placeholder.parsed("group", groupName))
-            );
-            return 0;
+        String parentName = StringArgumentType.getString(ctx, "parent");
+
+        for (String name : List.of(groupName, parentName)) {
+            if (plugin.getPermissionService().getGroup(name) == null) {
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        "permission.group-not-exists",
+                        true,
+                        TagResolver.resolver(Placeholder.parsed("group", name))
+                );
+                return 0;
+            }
         }
 
-        plugin.getMessageSender().sendChatMessage(
-                sender,
-                "permission.group-prefix-set",
-                true,
-                TagResolver.resolver(
-                        Placeholder.parsed("group", groupName),
-                        Placeholder.parsed("prefix", prefix)
-                )
+        TagResolver resolver = TagResolver.resolver(
+                Placeholder.parsed("group", groupName),
+                Placeholder.parsed("parent", parentName)
+        );
+
+        CommandMutation.apply(plugin, sender, groupName, () -> plugin.getPermissionService().addGroupParent(groupName, parentName), added ->
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        added ? "permission.group-parent-added" : "permission.group-parent-invalid",
+                        true,
+                        resolver
+                ));
+        return 1;
+    }
+
+    private int removeGroupParent(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        String groupName = StringArgumentType.getString(ctx, "groupName");
+        String parentName = StringArgumentType.getString(ctx, "parent");
+
+        TagResolver resolver = TagResolver.resolver(
+                Placeholder.parsed("group", groupName),
+                Placeholder.parsed("parent", parentName)
         );
+
+        CommandMutation.apply(plugin, sender, groupName, () -> plugin.getPermissionService().removeGroupParent(groupName, parentName), removed ->
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        removed ? "permission.group-parent-removed" : "permission.group-parent-not-found",
+                        true,
+                        resolver
+                ));
+        return 1;
+    }
+
+    private int setGroupPrefix(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        String groupName = StringArgumentType.getString(ctx, "groupName");
+        String prefix = StringArgumentType.getString(ctx, "prefix");
+
+        applyGroupPrefix(sender, groupName, prefix);
         return 1;
     }
 
@@ -363,48 +531,35 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
         CommandSender sender = ctx.getSource().getSender();
         String groupName = StringArgumentType.getString(ctx, "groupName");
 
-        try {
-            plugin.getPermissionService().setGroupPrefix(groupName, "");
-        } catch (IllegalArgumentException ex) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-not-exists",
-                    true,
-                    TagResolver.resolver(Placeholder.parsed("group", groupName))
-            );
-            return 0;
-        }
+        applyGroupPrefix(sender, groupName, "");
+        return 1;
+    }
 
-        plugin.getMessageSender().sendChatMessage(
+    private void applyGroupPrefix(CommandSender sender, String groupName, String prefix) {
+        CommandMutation.apply(plugin, sender, groupName, () -> {
+            plugin.getPermissionService().setGroupPrefix(groupName, prefix);
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
                 sender,
                 "permission.group-prefix-set",
                 true,
                 TagResolver.resolver(
                         Placeholder.parsed("group", groupName),
-                        Placeholder.parsed("prefix", "")
+                        Placeholder.parsed("prefix", prefix)
                 )
-        );
-        return 1;
+        ));
     }
 
     private int setGroupPermission(CommandContext<CommandSourceStack> ctx, PermissionDecision decision) {
         CommandSender sender = ctx.getSource().getSender();
         String groupName = StringArgumentType.getString(ctx, "groupName");
         String node = StringArgumentType.getString(ctx, "node");
+        if (!NodeArgument.accepts(plugin, sender, node, decision)) return 0;
 
-        try {
+        CommandMutation.apply(plugin, sender, groupName, () -> {
             plugin.getPermissionService().addGroupPermission(groupName, node, decision);
-        } catch (IllegalArgumentException ex) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-not-exists",
-                    true,
-                    TagResolver.resolver(Placeholder.parsed("group", groupName))
-            );
-            return 0;
-        }
-
-        plugin.getMessageSender().sendChatMessage(
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
                 sender,
                 "permission.group-permission-added",
                 true,
@@ -413,50 +568,107 @@ public record GroupBrigadierCommand(LegendPerms plugin) implements LegendSubComm
                         Placeholder.parsed("decision", decision.name().toLowerCase(Locale.ROOT)),
                         Placeholder.parsed("group", groupName)
                 )
-        );
+        ));
         return 1;
     }
 
-    private int removeGroupPermission(CommandContext<CommandSourceStack> ctx) {
+    private int setTemporaryGroupPermission(CommandContext<CommandSourceStack> ctx, PermissionDecision decision) {
         CommandSender sender = ctx.getSource().getSender();
         String groupName = StringArgumentType.getString(ctx, "groupName");
         String node = StringArgumentType.getString(ctx, "node");
+        if (!NodeArgument.accepts(plugin, sender, node, decision)) return 0;
 
-        boolean removed;
-        try {
-            removed = plugin.getPermissionService().removeGroupPermission(groupName, node);
-        } catch (IllegalArgumentException ex) {
+        Duration duration = DurationArgument.parse(StringArgumentType.getString(ctx, "time"));
+        if (duration == null) {
             plugin.getMessageSender().sendChatMessage(
                     sender,
-                    "permission.group-not-exists",
+                    "general.wrong-time-format",
                     true,
-                    TagResolver.resolver(Placeholder.parsed("group", groupName))
+                    null
             );
             return 0;
         }
 
-        if (!removed) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-permission-not-found",
-                    true,
-                    TagResolver.resolver(
-                            Placeholder.parsed("group", groupName),
-                            Placeholder.parsed("node", node)
-                    )
-            );
-            return 0;
-        }
+        CommandMutation.apply(plugin, sender, groupName, () -> {
+            plugin.getPermissionService().addTemporaryGroupPermission(groupName, node, decision, duration);
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
+                sender,
+                "permission.group-permission-added-temporary",
+                true,
+                TagResolver.resolver(
+                        Placeholder.parsed("node", node),
+                        Placeholder.parsed("decision", decision.name().toLowerCase(Locale.ROOT)),
+                        Placeholder.parsed("group", groupName),
+                        Placeholder.parsed("expiration", plugin.getPermissionService().getGroupPermissionExpiration(groupName, node))
+                )
+        ));
+        return 1;
+    }
 
-        plugin.getMessageSender().sendChatMessage(
+    private int setGroupWorldPermission(CommandContext<CommandSourceStack> ctx, PermissionDecision decision) {
+        CommandSender sender = ctx.getSource().getSender();
+        String groupName = StringArgumentType.getString(ctx, "groupName");
+        String world = StringArgumentType.getString(ctx, "world");
+        String node = StringArgumentType.getString(ctx, "node");
+        if (!NodeArgument.accepts(plugin, sender, node, decision)) return 0;
+
+        CommandMutation.apply(plugin, sender, groupName, () -> {
+            plugin.getPermissionService().addGroupWorldPermission(groupName, world, node, decision);
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
                 sender,
-                "permission.group-permission-removed",
+                "permission.group-world-permission-added",
                 true,
                 TagResolver.resolver(
+                        Placeholder.parsed("node", node),
+                        Placeholder.parsed("decision", decision.name().toLowerCase(Locale.ROOT)),
                         Placeholder.parsed("group", groupName),
-                        Placeholder.parsed("node", node)
+                        Placeholder.parsed("world", world)
                 )
+        ));
+        return 1;
+    }
+
+    private int removeGroupWorldPermission(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        String groupName = StringArgumentType.getString(ctx, "groupName");
+        String world = StringArgumentType.getString(ctx, "world");
+        String node = StringArgumentType.getString(ctx, "node");
+
+        TagResolver resolver = TagResolver.resolver(
+                Placeholder.parsed("group", groupName),
+                Placeholder.parsed("node", node),
+                Placeholder.parsed("world", world)
         );
+
+        CommandMutation.apply(plugin, sender, groupName, () -> plugin.getPermissionService().removeGroupWorldPermission(groupName, world, node), removed ->
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        removed ? "permission.group-world-permission-removed" : "permission.group-world-permission-not-found",
+                        true,
+                        resolver
+                ));
+        return 1;
+    }
+
+    private int removeGroupPermission(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        String groupName = StringArgumentType.getString(ctx, "groupName");
+        String node = StringArgumentType.getString(ctx, "node");
+
+        TagResolver resolver = TagResolver.resolver(
+                Placeholder.parsed("group", groupName),
+                Placeholder.parsed("node", node)
+        );
+
+        CommandMutation.apply(plugin, sender, groupName, () -> plugin.getPermissionService().removeGroupPermission(groupName, node), removed ->
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        removed ? "permission.group-permission-removed" : "permission.group-permission-not-found",
+                        true,
+                        resolver
+                ));
         return 1;
     }
 }
\ No newline at end of file
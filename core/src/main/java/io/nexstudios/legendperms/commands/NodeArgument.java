@@ -0,0 +1,38 @@
+package io.nexstudios.legendperms.commands;
+
+import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import io.nexstudios.legendperms.perms.compiled.NegatedNodes;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Validation of permission node arguments, shared by the commands for group, world and user permissions.
+ */
+final class NodeArgument {
+
+    private NodeArgument() {
+    }
+
+    /**
+     * A negated node ({@code -node}) always denies, see {@link NegatedNodes}, so it can only be set with
+     * {@code deny}. Anything else is reported to the sender.
+     *
+     * @return true if the node can be set with the decision
+     */
+    static boolean accepts(LegendPerms plugin, CommandSender sender, String node, PermissionDecision decision) {
+        if (!NegatedNodes.isNegated(node) || decision == PermissionDecision.DENY) return true;
+
+        plugin.getMessageSender().sendChatMessage(
+                sender,
+                "permission.negated-node-deny-only",
+                true,
+                TagResolver.resolver(
+                        Placeholder.parsed("node", node),
+                        Placeholder.parsed("target", NegatedNodes.target(node))
+                )
+        );
+        return false;
+    }
+}
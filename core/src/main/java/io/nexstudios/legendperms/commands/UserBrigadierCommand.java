@@ -6,6 +6,7 @@ import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.PermissionDecision;
 import io.nexstudios.legendperms.utils.LegendMessageSender;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
@@ -20,6 +21,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -63,7 +65,7 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
                                                         .executes(this::addPermanent)
                                                 )
                                                 .then(Commands.argument("time", StringArgumentType.word())
-                                                        .suggests(this::suggestDurations)
+                                                        .suggests(DurationArgument::suggest)
                                                         .executes(this::addTemporary)
                                                 )
                                         )
@@ -78,20 +80,93 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
                                         )
                                 )
                         )
+                )
+                .then(Commands.literal("permission")
+                        .then(Commands.literal("set")
+                                .then(Commands.argument("username", StringArgumentType.word())
+                                        .suggests(this::suggestOnlinePlayers)
+                                        .then(Commands.literal("allow")
+                                                // greedyString for .* permission nodes
+                                                .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                        .executes(ctx -> setPermission(ctx, PermissionDecision.ALLOW))
+                                                )
+                                        )
+                                        .then(Commands.literal("deny")
+                                                // greedyString for .* permission nodes
+                                                .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                        .executes(ctx -> setPermission(ctx, PermissionDecision.DENY))
+                                                )
+                                        )
+                                )
+                        )
+                        .then(Commands.literal("settemp")
+                                .then(Commands.argument("username", StringArgumentType.word())
+                                        .suggests(this::suggestOnlinePlayers)
+                                        .then(Commands.literal("allow")
+                                                .then(Commands.argument("time", StringArgumentType.word())
+                                                        .suggests(DurationArgument::suggest)
+                                                        // greedyString for .* permission nodes
+                                                        .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                .executes(ctx -> setTemporaryPermission(ctx, PermissionDecision.ALLOW))
+                                                        )
+                                                )
+                                        )
+                                        .then(Commands.literal("deny")
+                                                .then(Commands.argument("time", StringArgumentType.word())
+                                                        .suggests(DurationArgument::suggest)
+                                                        // greedyString for .* permission nodes
+                                                        .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                                .executes(ctx -> setTemporaryPermission(ctx, PermissionDecision.DENY))
+                                                        )
+                                                )
+                                        )
+                                )
+                        )
+                        .then(Commands.literal("remove")
+                                .then(Commands.argument("username", StringArgumentType.word())
+                                        .suggests(this::suggestOnlinePlayers)
+                                        .then(Commands.argument("node", StringArgumentType.greedyString())
+                                                .suggests(this::suggestUserPermissionNodes)
+                                                .executes(this::removePermission)
+                                        )
+                                )
+                        )
                 );
     }
 
-    private int addPermanent(CommandContext<CommandSourceStack> ctx) {
+    private int setPermission(CommandContext<CommandSourceStack> ctx, PermissionDecision decision) {
         CommandSender sender = ctx.getSource().getSender();
         Player target = resolveOnlineTarget(ctx, sender);
         if (target == null) return 0;
 
-        String groupName = StringArgumentType.getString(ctx, "groupName");
+        String node = StringArgumentType.getString(ctx, "node");
+        if (!NodeArgument.accepts(plugin, sender, node, decision)) return 0;
+        CommandMutation.apply(plugin, sender, () -> {
+            plugin.getPermissionService().userSetPermission(target.getUniqueId(), node, decision);
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
+                sender,
+                "permission.user-permission-added",
+                true,
+                TagResolver.resolver(
+                        Placeholder.parsed("player", target.getName()),
+                        Placeholder.parsed("node", node),
+                        Placeholder.parsed("decision", decision.name().toLowerCase(Locale.ROOT))
+                )
+        ));
+        return 1;
+    }
 
-        if(groupName.equalsIgnoreCase("Default")) {
+    private int setTemporaryPermission(CommandContext<CommandSourceStack> ctx, PermissionDecision decision) {
+        CommandSender sender = ctx.getSource().getSender();
+        Player target = resolveOnlineTarget(ctx, sender);
+        if (target == null) return 0;
+
+        Duration duration = DurationArgument.parse(StringArgumentType.getString(ctx, "time"));
+        if (duration == null) {
             plugin.getMessageSender().sendChatMessage(
                     sender,
-                    "permission.user-group-add-default",
+                    "general.wrong-time-format",
                     true,
                     null
             );
@@ -99,40 +174,82 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
         }
 
         UUID uuid = target.getUniqueId();
+        String node = StringArgumentType.getString(ctx, "node");
+        if (!NodeArgument.accepts(plugin, sender, node, decision)) return 0;
+        CommandMutation.apply(plugin, sender, () -> {
+            plugin.getPermissionService().userSetTemporaryPermission(uuid, node, decision, duration);
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
+                sender,
+                "permission.user-permission-added-temporary",
+                true,
+                TagResolver.resolver(
+                        Placeholder.parsed("player", target.getName()),
+                        Placeholder.parsed("node", node),
+                        Placeholder.parsed("decision", decision.name().toLowerCase(Locale.ROOT)),
+                        Placeholder.parsed("expiration", plugin.getPermissionService().getUserPermissionExpiration(uuid, node))
+                )
+        ));
+        return 1;
+    }
 
-        try {
-            boolean changed = plugin.getPermissionService().userAddGroup(uuid, groupName);
+    private int removePermission(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        Player target = resolveOnlineTarget(ctx, sender);
+        if (target == null) return 0;
 
-            if (changed) {
-                // If a user had a temporary group, remove it and make it permanent
-                boolean hadTemp = plugin.getPermissionService().userHasTemporaryGroup(uuid, groupName);
-                if (hadTemp) {
-                    plugin.getPermissionService().userRemoveTemporaryGroup(uuid, groupName);
-                }
-            }
+        String node = StringArgumentType.getString(ctx, "node");
+        CommandMutation.apply(plugin, sender, () -> plugin.getPermissionService().userRemovePermission(target.getUniqueId(), node), removed ->
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        removed ? "permission.user-permission-removed" : "permission.user-permission-not-found",
+                        true,
+                        TagResolver.resolver(
+                                Placeholder.parsed("player", target.getName()),
+                                Placeholder.parsed("node", node)
+                        )
+                ));
+        return 1;
+    }
 
+    private int addPermanent(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        Player target = resolveOnlineTarget(ctx, sender);
+        if (target == null) return 0;
+
+        String groupName = StringArgumentType.getString(ctx, "groupName");
+
+        if(groupName.equalsIgnoreCase("Default")) {
             plugin.getMessageSender().sendChatMessage(
                     sender,
-                    "permission.user-group-added",
-                    true,
-                    TagResolver.resolver(
-                            Placeholder.parsed("player", target.getName()),
-                            Placeholder.parsed("group", groupName),
-                            Placeholder.parsed("temporary", "permanent"),
-                            Placeholder.parsed("expiration", "never"))
-            );
-            return changed ? 1 : 0;
-        } catch (IllegalArgumentException ex) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-not-exists",
+                    "permission.user-group-add-default",
                     true,
-                    TagResolver.resolver(
-                            Placeholder.parsed("group", groupName)
-                    )
+                    null
             );
             return 0;
         }
+
+        UUID uuid = target.getUniqueId();
+
+        CommandMutation.apply(plugin, sender, groupName, () -> {
+            boolean changed = plugin.getPermissionService().userAddGroup(uuid, groupName);
+
+            // If a user had a temporary group, remove it and make it permanent
+            if (changed && plugin.getPermissionService().userHasTemporaryGroup(uuid, groupName)) {
+                plugin.getPermissionService().userRemoveTemporaryGroup(uuid, groupName);
+            }
+            return changed;
+        }, changed -> plugin.getMessageSender().sendChatMessage(
+                sender,
+                "permission.user-group-added",
+                true,
+                TagResolver.resolver(
+                        Placeholder.parsed("player", target.getName()),
+                        Placeholder.parsed("group", groupName),
+                        Placeholder.parsed("temporary", "permanent"),
+                        Placeholder.parsed("expiration", "never"))
+        ));
+        return 1;
     }
 
     private int showUserInfo(CommandContext<CommandSourceStack> ctx) {
@@ -220,6 +337,16 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
             subgroups = List.of("<gray>None");
         }
 
+        List<String> permissionLines = plugin.getPermissionService().getUserPermissions(uuid).entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(String.CASE_INSENSITIVE_ORDER))
+                .map(e -> "<dark_gray>" + e.getKey() + " <gray>(" + e.getValue().name().toLowerCase(Locale.ROOT)
+                        + DurationArgument.expirationSuffix(plugin.getPermissionService().getUserPermissionExpiration(uuid, e.getKey())) + ")")
+                .toList();
+
+        if (permissionLines.isEmpty()) {
+            permissionLines = List.of("<gray>None");
+        }
+
         String displayName = (target.getName() != null ? target.getName() : username);
 
         TagResolver resolver = TagResolver.resolver(
@@ -237,6 +364,7 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
                 false,
                 resolver,
                 LegendMessageSender.expandTokenInLine("#subgroups#", subgroups)
+                        .andThen(LegendMessageSender.expandTokenInLine("#permissions#", permissionLines))
         );
     }
 
@@ -259,7 +387,7 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
 
         String raw = StringArgumentType.getString(ctx, "time");
 
-        Duration d = parseDuration(raw);
+        Duration d = DurationArgument.parse(raw);
         if (d == null) {
             sender.sendMessage("Ungültige Zeit: " + raw + " (Beispiele: 5s, 10m, 2h, 7d)");
             plugin.getMessageSender().sendChatMessage(
@@ -289,35 +417,20 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
         }
 
         // if the player has this group temporary -> reset the timer to the new duration
-        boolean hadTemp = plugin.getPermissionService().userHasTemporaryGroup(uuid, groupName);
-
-        try {
+        CommandMutation.apply(plugin, sender, groupName, () -> {
             plugin.getPermissionService().userAddTemporaryGroup(uuid, groupName, d);
-
-            String expiration = plugin.getPermissionService().getTemporaryGroupExpiration(uuid, groupName);
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.user-group-added",
-                    true,
-                    TagResolver.resolver(
-                            Placeholder.parsed("player", target.getName()),
-                            Placeholder.parsed("group", groupName),
-                            Placeholder.parsed("temporary", "temporary"),
-                            Placeholder.parsed("expiration", expiration))
-            );
-
-            return 1;
-        } catch (IllegalArgumentException ex) {
-            plugin.getMessageSender().sendChatMessage(
-                    sender,
-                    "permission.group-not-exists",
-                    true,
-                    TagResolver.resolver(
-                            Placeholder.parsed("group", groupName)
-                    )
-            );
-            return 0;
-        }
+            return null;
+        }, ignored -> plugin.getMessageSender().sendChatMessage(
+                sender,
+                "permission.user-group-added",
+                true,
+                TagResolver.resolver(
+                        Placeholder.parsed("player", target.getName()),
+                        Placeholder.parsed("group", groupName),
+                        Placeholder.parsed("temporary", "temporary"),
+                        Placeholder.parsed("expiration", plugin.getPermissionService().getTemporaryGroupExpiration(uuid, groupName)))
+        ));
+        return 1;
     }
 
     private int removeGroup(CommandContext<CommandSourceStack> ctx) {
@@ -337,18 +450,17 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
             return 0;
         }
 
-        boolean changed = plugin.getPermissionService().userRemoveGroup(target.getUniqueId(), groupName);
-
-        plugin.getMessageSender().sendChatMessage(
-                sender,
-                changed ? "permission.user-group-removed" : "permission.user-not-in-group",
-                true,
-                TagResolver.resolver(
-                        Placeholder.parsed("player", target.getName()),
-                        Placeholder.parsed("group", groupName)
-                )
-        );
-        return changed ? 1 : 0;
+        CommandMutation.apply(plugin, sender, () -> plugin.getPermissionService().userRemoveGroup(target.getUniqueId(), groupName), changed ->
+                plugin.getMessageSender().sendChatMessage(
+                        sender,
+                        changed ? "permission.user-group-removed" : "permission.user-not-in-group",
+                        true,
+                        TagResolver.resolver(
+                                Placeholder.parsed("player", target.getName()),
+                                Placeholder.parsed("group", groupName)
+                        )
+                ));
+        return 1;
     }
 
     private Player resolveOnlineTarget(CommandContext<CommandSourceStack> ctx, CommandSender sender) {
@@ -396,41 +508,21 @@ public record UserBrigadierCommand(LegendPerms plugin) implements LegendSubComma
         return builder.buildFuture();
     }
 
-    private CompletableFuture<com.mojang.brigadier.suggestion.Suggestions> suggestDurations(
+    private CompletableFuture<Suggestions> suggestUserPermissionNodes(
             CommandContext<CommandSourceStack> ctx,
             SuggestionsBuilder builder
     ) {
+        Player target = Bukkit.getPlayerExact(StringArgumentType.getString(ctx, "username"));
+        if (target == null) return builder.buildFuture();
+
         String remaining = builder.getRemaining().toLowerCase(Locale.ROOT);
-        String[] samples = {"5s", "30s", "5m", "10m", "1h", "12h", "1d", "7d"};
-        for (String s : samples) {
-            if (remaining.isEmpty() || s.startsWith(remaining)) {
-                builder.suggest(s);
-            }
-        }
+        plugin.getPermissionService().getUserPermissions(target.getUniqueId()).keySet().stream()
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .forEach(node -> {
+                    if (remaining.isEmpty() || node.toLowerCase(Locale.ROOT).startsWith(remaining)) {
+                        builder.suggest(node);
+                    }
+                });
         return builder.buildFuture();
     }
-
-    private static Duration parseDuration(String raw) {
-        if (raw == null) return null;
-        String s = raw.trim().toLowerCase(Locale.ROOT);
-        if (s.length() < 2) return null;
-
-        char unit = s.charAt(s.length() - 1);
-        String numPart = s.substring(0, s.length() - 1).trim();
-        long n;
-        try {
-            n = Long.parseLong(numPart);
-        } catch (NumberFormatException e) {
-            return null;
-        }
-        if (n <= 0) return null;
-
-        return switch (unit) {
-            case 's' -> Duration.ofSeconds(n);
-            case 'm' -> Duration.ofMinutes(n);
-            case 'h' -> Duration.ofHours(n);
-            case 'd' -> Duration.ofDays(n);
-            default -> null;
-        };
-    }
 }
@@ -59,8 +59,7 @@ public record JoinLeaveListener(LegendPerms plugin) implements Listener {
 
 
     private LegendGroup getGroup(UUID uuid) {
-        String currentGroupName = plugin.getPermissionService().getUserPrimaryGroupName(uuid);
-        return plugin.getPermissionService().getGroup(currentGroupName);
+        return plugin.getPermissionService().getUserPrimaryGroup(uuid);
     }
 
 }
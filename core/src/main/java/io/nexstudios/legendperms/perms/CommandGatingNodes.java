@@ -0,0 +1,76 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.perms.compiled.GlobPattern;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of permission nodes that gate a registered command, i.e. nodes whose change can alter the
+ * command tree a client is allowed to see.
+ * <p>
+ * Collected from the permissions of all commands in the server's {@link CommandMap} plus the node
+ * required by the LegendPerms Brigadier commands. The set is rebuilt lazily whenever the number of
+ * known commands changes, e.g. after another plugin registered its commands.
+ * <p>
+ * Brigadier requirements of other plugins that are not backed by a command permission cannot be
+ * seen here; such commands are refreshed the next time a gating node or the group set changes.
+ */
+public final class CommandGatingNodes {
+
+    private static final String ADMIN_NODE = "legendperms.admin";
+
+    private Set<String> nodes = Set.of(ADMIN_NODE);
+    private int knownCommandCount = -1;
+
+    /**
+     * Returns whether a change of the given node can change which commands are available.
+     * Wildcards ({@code prefix.*} and {@code *}) gate a command if any gating node is below them,
+     * glob patterns are assumed to gate one.
+     *
+     * @param node the changed permission node
+     * @return true if the node (or a node covered by it) gates a command
+     */
+    public synchronized boolean gates(String node) {
+        refreshIfNeeded();
+
+        if ("*".equals(node) || GlobPattern.isGlob(node)) return !nodes.isEmpty();
+        if (node.endsWith(".*")) {
+            String prefix = node.substring(0, node.length() - 1);
+            for (String gating : nodes) {
+                if (gating.startsWith(prefix)) return true;
+            }
+            return false;
+        }
+        return nodes.contains(node);
+    }
+
+    private void refreshIfNeeded() {
+        Map<String, Command> knownCommands;
+        try {
+            knownCommands = Bukkit.getCommandMap().getKnownCommands();
+        } catch (Throwable ignored) {
+            return;
+        }
+        if (knownCommands == null || knownCommands.size() == knownCommandCount) return;
+
+        Set<String> collected = new HashSet<>();
+        collected.add(ADMIN_NODE);
+        for (Command command : knownCommands.values()) {
+            String permission = command.getPermission();
+            if (permission == null || permission.isBlank()) continue;
+
+            // multiple permissions are separated by ';'
+            for (String part : permission.split(";")) {
+                if (!part.isBlank()) collected.add(part.trim());
+            }
+        }
+
+        this.nodes = collected;
+        this.knownCommandCount = knownCommands.size();
+    }
+}
@@ -0,0 +1,291 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.perms.compiled.NegatedNodes;
+import io.nexstudios.legendperms.perms.model.LegendGroup;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parent groups of every group and the flattened permissions that follow from them.
+ * <p>
+ * A group inherits the permissions of its parents, its own nodes override inherited ones. Parents are
+ * merged by priority like the groups of a user: the parent with the higher priority wins, ties are
+ * broken by name. Parents inherit from their own parents, so a group sees the permissions of its whole
+ * ancestry. A parent that would close a cycle is rejected. Negated nodes are resolved while merging,
+ * the flattened permissions only hold plain nodes (see {@link NegatedNodes}).
+ * <p>
+ * The flattened permissions of every group with parents are precomputed, so compiling a group set reads
+ * a single map per group no matter how deep the hierarchy is. Groups without parents use their own
+ * permissions directly. A change only updates the changed group and its descendants, parents before
+ * children: a single node edit re-resolves just that node, a change of the parents or of a priority
+ * reflattens the affected groups.
+ * <p>
+ * Groups are referenced by their id in the {@link GroupRegistry}. Must only be modified by the single
+ * writer of the service, reads are lock-free.
+ */
+public final class GroupInheritance {
+
+    // ascending, so later parents override earlier ones when merged
+    private static final Comparator<LegendGroup> BY_PRIORITY = Comparator
+            .comparingInt(LegendGroup::getPriority)
+            .thenComparing(LegendGroup::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private final GroupRegistry groups;
+
+    // direct parents and direct children of each group, the sets are immutable
+    private final Map<Integer, Set<Integer>> parents = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> children = new ConcurrentHashMap<>();
+    // inherited and own permissions of every group with parents
+    private final Map<Integer, Map<String, PermissionDecision>> flattened = new ConcurrentHashMap<>();
+
+    public GroupInheritance(GroupRegistry groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * @return the ids of the direct parents of the group
+     */
+    public Set<Integer> parents(int groupId) {
+        return parents.getOrDefault(groupId, Set.of());
+    }
+
+    /**
+     * @return the ids of the groups that directly inherit from the group
+     */
+    public Set<Integer> children(int groupId) {
+        return children.getOrDefault(groupId, Set.of());
+    }
+
+    /**
+     * @param legendGroup a group
+     * @return the own and inherited permissions of the group, never modified by the caller. May contain
+     *         negated nodes if the group has no parents, use {@link NegatedNodes} to read or merge them.
+     */
+    public Map<String, PermissionDecision> permissions(LegendGroup legendGroup) {
+        Map<String, PermissionDecision> inherited = flattened.get(legendGroup.getId());
+        return inherited != null ? inherited : legendGroup.getPermissions();
+    }
+
+    /**
+     * Adds a direct parent to the group. The flattened permissions are not updated, see {@link #reflatten(Collection)}.
+     *
+     * @return false if the parent is the group itself, already a parent, or inherits from the group
+     */
+    public boolean addParent(int groupId, int parentId) {
+        if (groupId == parentId || parents(groupId).contains(parentId)) return false;
+        // the parent must not inherit from the group already, the new edge would close a cycle
+        if (isAncestor(groupId, parentId)) return false;
+
+        parents.put(groupId, with(parents(groupId), parentId));
+        children.put(parentId, with(children(parentId), groupId));
+        return true;
+    }
+
+    /**
+     * Removes a direct parent from the group. The flattened permissions are not updated, see {@link #reflatten(Collection)}.
+     *
+     * @return false if the group did not inherit from the parent
+     */
+    public boolean removeParent(int groupId, int parentId) {
+        if (!parents(groupId).contains(parentId)) return false;
+
+        replace(parents, groupId, without(parents(groupId), parentId));
+        replace(children, parentId, without(children(parentId), groupId));
+        return true;
+    }
+
+    /**
+     * Removes the group from the hierarchy, its children lose it as a parent.
+     *
+     * @return the ids of the former children, which have to be reflattened
+     */
+    public Set<Integer> removeGroup(int groupId) {
+        for (int parentId : parents(groupId)) {
+            replace(children, parentId, without(children(parentId), groupId));
+        }
+        Set<Integer> formerChildren = children(groupId);
+        for (int childId : formerChildren) {
+            replace(parents, childId, without(parents(childId), groupId));
+        }
+
+        parents.remove(groupId);
+        children.remove(groupId);
+        flattened.remove(groupId);
+        return formerChildren;
+    }
+
+    /**
+     * @return true if the group inherits from the ancestor, directly or through other parents
+     */
+    public boolean isAncestor(int ancestorId, int groupId) {
+        Deque<Integer> pending = new ArrayDeque<>(parents(groupId));
+        Set<Integer> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            int current = pending.pop();
+            if (current == ancestorId) return true;
+            if (visited.add(current)) pending.addAll(parents(current));
+        }
+        return false;
+    }
+
+    /**
+     * @return the group and all its ancestors, parents before children and lower priority parents first,
+     *         so later groups override earlier ones when merged
+     */
+    public List<Integer> lineage(int groupId) {
+        List<Integer> out = new ArrayList<>();
+        collectLineage(groupId, new HashSet<>(), out);
+        return out;
+    }
+
+    /**
+     * @return the group and all groups inheriting from it, parents before children
+     */
+    public List<Integer> descendants(int groupId) {
+        return withDescendants(List.of(groupId));
+    }
+
+    /**
+     * Recomputes the flattened permissions of the given groups and of every group inheriting from them.
+     *
+     * @return the recomputed groups, parents before children
+     */
+    public List<Integer> reflatten(Collection<Integer> groupIds) {
+        List<Integer> ordered = withDescendants(groupIds);
+        for (int groupId : ordered) {
+            flatten(groupId);
+        }
+        return ordered;
+    }
+
+    /**
+     * Recomputes the flattened permissions of every group, e.g. after loading all groups.
+     */
+    public void reflattenAll() {
+        flattened.keySet().retainAll(parents.keySet());
+
+        List<Integer> groupIds = new ArrayList<>();
+        for (LegendGroup legendGroup : groups.all()) {
+            groupIds.add(legendGroup.getId());
+        }
+        reflatten(groupIds);
+    }
+
+    /**
+     * Re-resolves a single node after it changed in the own permissions of the group. Descendants are only
+     * visited as long as the effective decision of the node actually changes.
+     *
+     * @param groupId the id of the changed group
+     * @param node the changed node, without negation
+     * @return the groups whose effective decision for the node may have changed, parents before children
+     */
+    public List<Integer> patch(int groupId, String node) {
+        List<Integer> changed = new ArrayList<>();
+        Set<Integer> changedIds = new HashSet<>();
+
+        for (int id : withDescendants(List.of(groupId))) {
+            if (id != groupId && Collections.disjoint(parents(id), changedIds)) continue;
+
+            Map<String, PermissionDecision> inherited = flattened.get(id);
+            if (inherited != null) {
+                PermissionDecision decision = resolve(id, node);
+                PermissionDecision previous = decision == null ? inherited.remove(node) : inherited.put(node, decision);
+                if (previous == decision) continue;
+            }
+            // without parents the own permissions already hold the change
+            changed.add(id);
+            changedIds.add(id);
+        }
+        return changed;
+    }
+
+    private void flatten(int groupId) {
+        LegendGroup legendGroup = groups.get(groupId);
+        if (legendGroup == null || parents(groupId).isEmpty()) {
+            flattened.remove(groupId);
+            return;
+        }
+
+        // parents come first in the topological order, their flattened permissions are up to date
+        Map<String, PermissionDecision> merged = new ConcurrentHashMap<>();
+        for (LegendGroup parent : parentsByPriority(groupId)) {
+            NegatedNodes.mergeInto(merged, permissions(parent));
+        }
+        NegatedNodes.mergeInto(merged, legendGroup.getPermissions());
+        flattened.put(groupId, merged);
+    }
+
+    // the decision the node has in the flattened permissions of the group, null if it is not set
+    private PermissionDecision resolve(int groupId, String node) {
+        LegendGroup legendGroup = groups.get(groupId);
+        if (legendGroup == null) return null;
+
+        PermissionDecision own = NegatedNodes.lookup(legendGroup.getPermissions(), node);
+        if (own != null) return own;
+
+        List<LegendGroup> byPriority = parentsByPriority(groupId);
+        for (int i = byPriority.size() - 1; i >= 0; i--) {
+            PermissionDecision inherited = NegatedNodes.lookup(permissions(byPriority.get(i)), node);
+            if (inherited != null) return inherited;
+        }
+        return null;
+    }
+
+    private List<LegendGroup> parentsByPriority(int groupId) {
+        List<LegendGroup> resolved = new ArrayList<>();
+        for (int parentId : parents(groupId)) {
+            LegendGroup parent = groups.get(parentId);
+            if (parent != null) resolved.add(parent);
+        }
+        resolved.sort(BY_PRIORITY);
+        return resolved;
+    }
+
+    private void collectLineage(int groupId, Set<Integer> visited, List<Integer> out) {
+        if (!visited.add(groupId)) return;
+        for (LegendGroup parent : parentsByPriority(groupId)) {
+            collectLineage(parent.getId(), visited, out);
+        }
+        out.add(groupId);
+    }
+
+    // the groups and all their descendants in topological order (reverse post-order of a depth-first walk)
+    private List<Integer> withDescendants(Collection<Integer> groupIds) {
+        List<Integer> postOrder = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        for (int groupId : groupIds) {
+            visit(groupId, visited, postOrder);
+        }
+        Collections.reverse(postOrder);
+        return postOrder;
+    }
+
+    private void visit(int groupId, Set<Integer> visited, List<Integer> postOrder) {
+        if (!visited.add(groupId)) return;
+        for (int childId : children(groupId)) {
+            visit(childId, visited, postOrder);
+        }
+        postOrder.add(groupId);
+    }
+
+    private static Set<Integer> with(Set<Integer> ids, int id) {
+        Set<Integer> next = new HashSet<>(ids);
+        next.add(id);
+        return Set.copyOf(next);
+    }
+
+    private static Set<Integer> without(Set<Integer> ids, int id) {
+        Set<Integer> next = new HashSet<>(ids);
+        next.remove(id);
+        return Set.copyOf(next);
+    }
+
+    private static void replace(Map<Integer, Set<Integer>> edges, int groupId, Set<Integer> ids) {
+        if (ids.isEmpty()) {
+            edges.remove(groupId);
+        } else {
+            edges.put(groupId, ids);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.nexstudios.legendperms.perms;
+
+import java.util.*;
+
+/**
+ * Reverse index from a group to the users that are a member of it, either permanently or temporarily.
+ * <p>
+ * Groups are indexed by their id in the {@link GroupRegistry}. The service updates the index whenever
+ * the active groups of a user change, so a group edit only has to look at the actual members of the
+ * group instead of every cached user.
+ * <p>
+ * All methods are synchronized.
+ */
+public final class GroupMemberIndex {
+
+    private final Map<Integer, Set<UUID>> membersByGroup = new HashMap<>();
+    private final Map<UUID, Set<Integer>> groupsByMember = new HashMap<>();
+
+    /**
+     * Replaces the indexed groups of the user with the given active group ids.
+     *
+     * @param uuid the unique identifier of the user
+     * @param activeGroupIds the ids of all permanent and temporary groups of the user
+     */
+    public synchronized void update(UUID uuid, Collection<Integer> activeGroupIds) {
+        Set<Integer> next = Set.copyOf(activeGroupIds);
+
+        Set<Integer> previous = groupsByMember.getOrDefault(uuid, Set.of());
+        for (Integer groupId : previous) {
+            if (!next.contains(groupId)) unlink(groupId, uuid);
+        }
+        for (Integer groupId : next) {
+            if (!previous.contains(groupId)) {
+                membersByGroup.computeIfAbsent(groupId, k -> new HashSet<>()).add(uuid);
+            }
+        }
+
+        if (next.isEmpty()) {
+            groupsByMember.remove(uuid);
+        } else {
+            groupsByMember.put(uuid, next);
+        }
+    }
+
+    /**
+     * @param groupId the id of the group
+     * @return a snapshot of the members of the group, empty if it has none
+     */
+    public synchronized List<UUID> members(int groupId) {
+        Set<UUID> members = membersByGroup.get(groupId);
+        return members == null ? List.of() : List.copyOf(members);
+    }
+
+    private void unlink(Integer groupId, UUID uuid) {
+        Set<UUID> members = membersByGroup.get(groupId);
+        if (members == null) return;
+        members.remove(uuid);
+        if (members.isEmpty()) membersByGroup.remove(groupId);
+    }
+}
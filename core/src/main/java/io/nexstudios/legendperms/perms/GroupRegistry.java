@@ -0,0 +1,104 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.perms.model.LegendGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical registry of all groups.
+ * <p>
+ * Group names are matched case-insensitively: "VIP", "vip" and "Vip" all resolve to the same
+ * {@link LegendGroup}, which keeps the spelling it was registered with. Every group gets a stable
+ * int id when it is registered. Users and compiled group sets reference groups by that id only,
+ * so membership checks are plain hash or array lookups.
+ * <p>
+ * Ids are never reused. A group that is deleted and created again gets a new id, so stale
+ * references to the deleted group can never resolve to the new one.
+ * <p>
+ * Registering and removing is synchronized, lookups are lock-free.
+ */
+public final class GroupRegistry {
+
+    private final Map<String, LegendGroup> byName = new ConcurrentHashMap<>();
+    private volatile LegendGroup[] byId = new LegendGroup[16];
+    private int nextId;
+
+    /**
+     * @param name the name of the group, matched case-insensitively
+     * @return the group, or null if no group with that name is registered
+     */
+    public LegendGroup get(String name) {
+        return name == null ? null : byName.get(key(name));
+    }
+
+    /**
+     * @param id the id of the group
+     * @return the group, or null if the id is unknown or the group was removed
+     */
+    public LegendGroup get(int id) {
+        LegendGroup[] current = byId;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Returns the group with the given name, registering a new group if there is none yet.
+     *
+     * @param name the name of the group, must not be null or blank
+     * @return the registered group
+     */
+    public synchronized LegendGroup register(String name) {
+        LegendGroup existing = get(name);
+        if (existing != null) return existing;
+
+        int id = nextId++;
+        LegendGroup[] current = byId;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+
+        LegendGroup legendGroup = new LegendGroup(id, name);
+        current[id] = legendGroup;
+        this.byId = current;
+        byName.put(key(name), legendGroup);
+        return legendGroup;
+    }
+
+    /**
+     * @param name the name of the group, matched case-insensitively
+     * @return the removed group, or null if no group with that name is registered
+     */
+    public synchronized LegendGroup remove(String name) {
+        LegendGroup removed = name == null ? null : byName.remove(key(name));
+        if (removed != null) byId[removed.getId()] = null;
+        return removed;
+    }
+
+    /**
+     * @return a snapshot of all registered groups
+     */
+    public Collection<LegendGroup> all() {
+        return List.copyOf(byName.values());
+    }
+
+    /**
+     * @return the names of all registered groups, sorted case-insensitively
+     */
+    public List<String> names() {
+        List<String> out = new ArrayList<>(byName.size());
+        for (LegendGroup legendGroup : byName.values()) {
+            out.add(legendGroup.getName());
+        }
+        out.sort(String.CASE_INSENSITIVE_ORDER);
+        return out;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
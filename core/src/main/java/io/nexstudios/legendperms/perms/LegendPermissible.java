@@ -20,6 +20,10 @@ public final class LegendPermissible extends PermissibleBase {
         this.resolver = resolver;
     }
 
+    /**
+     * Resolves the permission through the {@link PermissionResolver} first and only falls back to
+     * the Bukkit implementation if the node is not set. For a cached user this path does not allocate.
+     */
     @Override
     public boolean hasPermission(@NotNull String inName) {
         if (inName.isBlank()) return true;
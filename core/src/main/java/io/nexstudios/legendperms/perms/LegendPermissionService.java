@@ -1,8 +1,23 @@
 package io.nexstudios.legendperms.perms;
 
 import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.compiled.AppliedPermissions;
+import io.nexstudios.legendperms.perms.compiled.CompiledGroupSet;
+import io.nexstudios.legendperms.perms.compiled.CompiledGroupSetCache;
+import io.nexstudios.legendperms.perms.compiled.CompiledPermissions;
+import io.nexstudios.legendperms.perms.compiled.EffectivePermissions;
+import io.nexstudios.legendperms.perms.compiled.EvaluationMode;
+import io.nexstudios.legendperms.perms.compiled.GroupPermissionTable;
+import io.nexstudios.legendperms.perms.compiled.LayeredPermissions;
+import io.nexstudios.legendperms.perms.compiled.NegatedNodes;
+import io.nexstudios.legendperms.perms.compiled.GroupSetSignature;
+import io.nexstudios.legendperms.perms.compiled.PermissionNodeRegistry;
+import io.nexstudios.legendperms.perms.expiry.ExpiryWheel;
+import io.nexstudios.legendperms.perms.expiry.TemporaryGroupExpiry;
+import io.nexstudios.legendperms.perms.expiry.TemporaryPermissionExpiry;
 import io.nexstudios.legendperms.perms.model.LegendGroup;
 import io.nexstudios.legendperms.perms.model.LegendUser;
+import io.nexstudios.legendperms.perms.model.UserSnapshot;
 import io.nexstudios.legendperms.perms.storage.PermissionDAO;
 import io.nexstudios.legendperms.utils.LegendLogger;
 import net.kyori.adventure.text.Component;
@@ -17,9 +32,15 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Service class responsible for managing and applying permissions, groups, and related functionalities
@@ -27,25 +48,85 @@ import java.util.concurrent.ConcurrentHashMap;
  * permission resolutions, and persistence mechanisms.
  * <p>
  * The service provides methods to create, delete, and modify groups, manage user memberships in groups,
- * resolve effective permissions, handle temporary group expirations, and rebuild user states.
+ * resolve effective permissions, handle temporary group and node expirations, and rebuild user states.
  * Additionally, it integrates with an underlying storage mechanism for persisting data.
  * <p>
+ * Nodes can be scoped to a world. A user's group set is compiled once per world that one of the groups
+ * has nodes for, and the user's table is switched when they change worlds (see {@link #setActiveWorld(UUID, String)}),
+ * so checks never filter nodes by context.
+ * <p>
+ * All mutations are applied one after another by a single writer thread (see {@link MutationExecutor}),
+ * while reads such as {@link #decide(UUID, String)} stay lock-free on the published user snapshots.
+ * The mutators wait for the writer and are meant for callers off the server main thread. The main
+ * thread hands mutations to {@link #submit(Supplier)} instead and never waits for the writer.
+ * <p>
  * This class implements {@link PermissionResolver}
  * to provide permission resolution functionality.
  */
 public final class LegendPermissionService implements PermissionResolver {
 
     public static final String DEFAULT_GROUP_NAME = "Default";
+    // one server tick
+    private static final long EXPIRY_TICK_MILLIS = 50L;
+    private static final int COMPILE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
     private static final DateTimeFormatter EXPIRATION_FORMATTER =
             DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
 
     private final LegendLogger logger;
 
-    private final Map<String, LegendGroup> groups = new ConcurrentHashMap<>();
-    private final Map<UUID, LegendUser> users = new ConcurrentHashMap<>();
-
-    // Effective permissions cache (already merged from groups by priority)
-    private final Map<UUID, Map<String, PermissionDecision>> effective = new ConcurrentHashMap<>();
+    // All mutations of groups and users are applied one after another on this writer, reads stay lock-free
+    private final MutationExecutor writer = new MutationExecutor();
+
+    // Case-insensitive group names -> stable group ids, users and compiled sets only store the ids
+    private final GroupRegistry groups = new GroupRegistry();
+    private final UuidMap<LegendUser> users = new UuidMap<>();
+    // Group -> members, so group edits only touch the users that are actually in the group
+    private final GroupMemberIndex memberIndex = new GroupMemberIndex();
+    // Parent groups and the precomputed flattened permissions of every group that has parents
+    private final GroupInheritance inheritance = new GroupInheritance(groups);
+
+    // Interned node ids, shared by the compiled permissions of all users
+    private final PermissionNodeRegistry nodeRegistry = new PermissionNodeRegistry();
+
+    // Effective permissions (merged from groups by priority and compiled into allow/deny bitsets),
+    // shared by all users with the same set of groups and referenced from each user's snapshot
+    private final CompiledGroupSetCache compiledGroupSets = new CompiledGroupSetCache();
+    // Lower case name of the world each online player is in, selects the context of their group set
+    private final UuidMap<String> activeWorlds = new UuidMap<>();
+    // How group sets are compiled, see EvaluationMode
+    private volatile EvaluationMode evaluationMode = EvaluationMode.MERGED;
+    // Own compiled table of each group, referenced by the layered sets (layered mode only)
+    private final Map<Integer, GroupPermissionTable> groupTables = new ConcurrentHashMap<>();
+
+    // Worker pool for resolving, ordering and merging group permissions, so large groups never stall a tick
+    private final ExecutorService compileExecutor = Executors.newFixedThreadPool(COMPILE_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "legendperms-compile");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<GroupSetSignature, PendingCompilation> compilations = new ConcurrentHashMap<>();
+    // Group set each user is waiting for, so outdated compilation results are never published
+    private final Map<UUID, GroupSetSignature> pendingSignatures = new ConcurrentHashMap<>();
+    // Incremented on every edit of a group, compilations of a set whose groups were edited meanwhile are discarded
+    private final Map<Integer, Long> groupGenerations = new ConcurrentHashMap<>();
+    // Incremented when every set is affected (evaluation mode, bulk load)
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    // Deadlines of all temporary group memberships, so expiry only touches the memberships that are due
+    private final ExpiryWheel<TemporaryGroupExpiry> temporaryGroupExpiries =
+            new ExpiryWheel<>(EXPIRY_TICK_MILLIS, System.currentTimeMillis());
+    // Deadlines of all temporary group and user nodes, a lapsed node is patched out of exactly the tables holding it
+    private final ExpiryWheel<TemporaryPermissionExpiry> temporaryPermissionExpiries =
+            new ExpiryWheel<>(EXPIRY_TICK_MILLIS, System.currentTimeMillis());
+
+    // Users with a pending rebuild, flushed once per tick so several mutations cost a single rebuild
+    private final Set<UUID> dirtyUsers = ConcurrentHashMap.newKeySet();
+    // Users that only need a permission and command refresh (single node group edits)
+    private final Set<UUID> dirtyPermissions = ConcurrentHashMap.newKeySet();
+
+    // Tables of the effective permissions last applied to each online player, to skip refreshes that change nothing
+    private final UuidMap<AppliedPermissions> appliedPermissions = new UuidMap<>();
+    private final CommandGatingNodes commandGatingNodes = new CommandGatingNodes();
 
     private final PermissionDAO repository;
     private volatile boolean bulkLoading = false;
@@ -67,29 +148,96 @@ public final class LegendPermissionService implements PermissionResolver {
      * Any exceptions encountered during the database operation are logged as warnings.
      */
     public void ensureDefaultGroup() {
-        groups.computeIfAbsent(DEFAULT_GROUP_NAME, LegendGroup::new);
-        if (repository != null) {
-            LegendGroup legendGroup = groups.get(DEFAULT_GROUP_NAME);
-
-            // do not overwrite the existing default group in the database
-            repository.insertGroupIfAbsent(
-                    legendGroup.getName(),
-                    legendGroup.getPriority(),
-                    legendGroup.getPrefix()
-            ).exceptionally(ex -> {
-                logger.warning("DB insert default group failed: " + ex);
-                return null;
-            });
-        }
+        writer.submit(() -> {
+            LegendGroup legendGroup = groups.register(DEFAULT_GROUP_NAME);
+            if (repository != null) {
+
+                // do not overwrite the existing default group in the database
+                repository.insertGroupIfAbsent(
+                        legendGroup.getName(),
+                        legendGroup.getPriority(),
+                        legendGroup.getPrefix()
+                ).exceptionally(ex -> {
+                    logger.warning("DB insert default group failed: " + ex);
+                    return null;
+                });
+            }
+        });
+    }
+
+    /**
+     * Applies mutations on the writer without waiting for them, for the server main thread. The mutators
+     * called by the mutation run inline on the writer, so several of them are applied back to back.
+     *
+     * @param mutation calls the mutators of this service
+     * @return a future completed on the server main thread with the result of the mutation, or with the
+     *         exception it threw
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> mutation) {
+        CompletableFuture<T> done = new CompletableFuture<>();
+        writer.submit(mutation).whenComplete((result, ex) -> runOnMainThread(() -> {
+            if (ex == null) {
+                done.complete(result);
+            } else {
+                done.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+        }));
+        return done;
+    }
+
+    /**
+     * Same as {@link #submit(Supplier)} for mutations without a result.
+     */
+    public CompletableFuture<Void> submit(Runnable mutation) {
+        return submit(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Switches how the permissions of a user's groups are combined. Every cached group set is
+     * recompiled in the new mode and its holders are refreshed once the result is swapped in.
+     *
+     * @param mode the new evaluation mode, null keeps the current one
+     */
+    public void setEvaluationMode(EvaluationMode mode) {
+        writer.submit(() -> {
+            if (mode == null || mode == evaluationMode) return;
+
+            this.evaluationMode = mode;
+            groupTables.clear();
+            globalGeneration.incrementAndGet();
+            compiledGroupSets.all().forEach(this::recompileAsync);
+        });
     }
 
     public void beginBulkLoad() {
         this.bulkLoading = true;
     }
 
+    /**
+     * Ends the bulk load and queues the recompile of every cached group set and the rebuild of every
+     * online player on the writer, without waiting for it.
+     */
     public void endBulkLoadAndRebuildOnline() {
-        this.bulkLoading = false;
-        Bukkit.getOnlinePlayers().forEach(p -> rebuildUser(p.getUniqueId()));
+        // players that were online before the plugin was enabled never fired a join, read their worlds here
+        List<UUID> online = new ArrayList<>();
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            activeWorlds.put(p.getUniqueId(), p.getWorld().getName().toLowerCase(Locale.ROOT));
+            online.add(p.getUniqueId());
+        }
+
+        writer.submit(() -> {
+            this.bulkLoading = false;
+            globalGeneration.incrementAndGet();
+            groupTables.clear();
+            compiledGroupSets.all().forEach(this::recompileAsync);
+            online.forEach(this::rebuildUser);
+        }).exceptionally(ex -> {
+            logger.warning("Rebuilding the online players after the bulk load failed: " + ex);
+            return null;
+        });
     }
 
     /**
@@ -103,9 +251,14 @@ public final class LegendPermissionService implements PermissionResolver {
      * <p>2. Retrieves all groups and their metadata (e.g., name, priority, prefix) from the storage system.
      * <p>3. Updates or creates in-memory `LegendGroup` objects based on the retrieved group metadata.
      * <p>4. Retrieves all permissions for each group from the storage system.
-     * <p>5. Populates the permissions of respective in-memory `LegendGroup` objects.
-     * <p>6. Ensures that the default group is defined in the system.
-     * <p>7. Finalizes the bulk load and rebuilds the online state to reflect changes.
+     * <p>5. Populates the permissions (global and world-scoped) of respective in-memory `LegendGroup` objects and schedules the expiry of the temporary ones.
+     * <p>6. Links the parent groups and precomputes the flattened permissions of every group.
+     * <p>7. Ensures that the default group is defined in the system.
+     * <p>8. Finalizes the bulk load and rebuilds the online state to reflect changes.
+     * <p>
+     * Group names are matched case-insensitively ({@link GroupRegistry}). If the storage holds groups whose
+     * names only differ by case, the spelling that sorts first is loaded and the rows of the others are
+     * skipped and logged instead of being merged into it. The skipped rows stay in the storage untouched.
      * <p>
      * If the repository is not configured or available, the method returns without performing any operations.
      * <p>
@@ -123,27 +276,87 @@ public final class LegendPermissionService implements PermissionResolver {
 
         try {
             var groupRows = repository.loadAllGroups().join();
-            for (var row : groupRows) {
-                String name = String.valueOf(row.get("name"));
-                int priority = ((Number) row.get("priority")).intValue();
-                String prefix = String.valueOf(row.get("prefix"));
+            var permRows = repository.loadAllGroupPermissions().join();
+            var parentRows = repository.loadAllGroupParents().join();
+            var deadlineRows = repository.loadAllGroupPermissionDeadlines().join();
+            var worldRows = repository.loadAllGroupWorldPermissions().join();
+
+            writer.run(() -> {
+                // the registry matches names case-insensitively, rows of a second spelling are skipped instead of merged
+                Map<String, String> spellings = new HashMap<>();
+                Map<String, Integer> skipped = new TreeMap<>();
+                List<Map<String, Object>> sortedGroupRows = new ArrayList<>(groupRows);
+                sortedGroupRows.sort(Comparator.comparing(row -> String.valueOf(row.get("name"))));
+
+                for (var row : sortedGroupRows) {
+                    String name = String.valueOf(row.get("name"));
+                    int priority = ((Number) row.get("priority")).intValue();
+                    String prefix = String.valueOf(row.get("prefix"));
+                    if (!isLoadedSpelling(spellings, name, skipped)) continue;
+
+                    LegendGroup g = groups.register(name);
+                    g.setPriority(priority);
+                    g.setPrefix(prefix);
+                }
 
-                LegendGroup g = groups.computeIfAbsent(name, LegendGroup::new);
-                g.setPriority(priority);
-                g.setPrefix(prefix);
-            }
+                for (var row : permRows) {
+                    String groupName = String.valueOf(row.get("group_name"));
+                    String node = String.valueOf(row.get("node"));
+                    PermissionDecision decision = PermissionDAO.decodeDecision(row.get("decision"));
+                    if (!isLoadedSpelling(spellings, groupName, skipped)) continue;
 
-            var permRows = repository.loadAllGroupPermissions().join();
-            for (var row : permRows) {
-                String groupName = String.valueOf(row.get("group_name"));
-                String node = String.valueOf(row.get("node"));
-                PermissionDecision decision = PermissionDAO.decodeDecision(row.get("decision"));
-
-                LegendGroup legendGroup = groups.computeIfAbsent(groupName, LegendGroup::new);
-                if (node != null && !node.isBlank()) {
-                    legendGroup.getPermissions().put(node, decision);
+                    LegendGroup legendGroup = groups.register(groupName);
+                    if (node != null && !node.isBlank()) {
+                        legendGroup.getPermissions().put(node, decision);
+                    }
                 }
-            }
+
+                for (var row : worldRows) {
+                    String world = String.valueOf(row.get("world")).toLowerCase(Locale.ROOT);
+                    String node = String.valueOf(row.get("node"));
+                    PermissionDecision decision = PermissionDAO.decodeDecision(row.get("decision"));
+                    String groupName = String.valueOf(row.get("group_name"));
+                    if (node.isBlank() || decision == PermissionDecision.NOT_SET) continue;
+                    if (!isLoadedSpelling(spellings, groupName, skipped)) continue;
+
+                    groups.register(groupName).getWorldPermissions()
+                            .computeIfAbsent(world, key -> new ConcurrentHashMap<>())
+                            .put(node, decision);
+                }
+
+                // nodes that lapsed while the server was offline expire on the next tick
+                for (var row : deadlineRows) {
+                    String groupName = String.valueOf(row.get("group_name"));
+                    LegendGroup legendGroup = isLoadedSpelling(spellings, groupName, skipped) ? groups.get(groupName) : null;
+                    String node = String.valueOf(row.get("node"));
+                    Object expiresRaw = row.get("expires_at");
+                    if (legendGroup == null || expiresRaw == null || !legendGroup.getPermissions().containsKey(node)) continue;
+
+                    Instant expiresAt = Instant.ofEpochMilli(toEpochMillis(expiresRaw));
+                    legendGroup.getTemporaryPermissions().put(node, expiresAt);
+                    scheduleExpiry(TemporaryPermissionExpiry.ofGroup(legendGroup.getId(), node, expiresAt));
+                }
+
+                for (var row : parentRows) {
+                    String groupName = String.valueOf(row.get("group_name"));
+                    String parentName = String.valueOf(row.get("parent_name"));
+                    if (!isLoadedSpelling(spellings, groupName, skipped) || !isLoadedSpelling(spellings, parentName, skipped)) continue;
+
+                    LegendGroup legendGroup = groups.get(groupName);
+                    LegendGroup parent = groups.get(parentName);
+                    if (legendGroup == null || parent == null) continue;
+
+                    if (!inheritance.addParent(legendGroup.getId(), parent.getId())
+                            && !inheritance.parents(legendGroup.getId()).contains(parent.getId())) {
+                        logger.warning("Ignoring parent " + parent.getName() + " of group " + legendGroup.getName() + ", it would create a cycle");
+                    }
+                }
+                inheritance.reflattenAll();
+
+                skipped.forEach((name, rows) -> logger.warning("Skipped " + rows + " rows of group " + name
+                        + ", its name only differs by case from group " + spellings.get(name.toLowerCase(Locale.ROOT))
+                        + ". Rename or merge it in the database."));
+            });
 
             ensureDefaultGroup();
         } finally {
@@ -151,10 +364,26 @@ public final class LegendPermissionService implements PermissionResolver {
         }
     }
 
+    /**
+     * Records the first spelling of a group name seen during a load and checks a row against it.
+     *
+     * @param spellings the loaded spelling per lower case name
+     * @param name the group name of the row
+     * @param skipped the number of skipped rows per differently spelled name
+     * @return false if the row belongs to a name that only differs by case from the loaded spelling
+     */
+    private static boolean isLoadedSpelling(Map<String, String> spellings, String name, Map<String, Integer> skipped) {
+        String loaded = spellings.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+        if (loaded == null || loaded.equals(name)) return true;
+
+        skipped.merge(name, 1, Integer::sum);
+        return false;
+    }
+
     /**
      * Asynchronously loads user data from a storage repository and updates internal state.
-     * This method ensures that the user's groups (both permanent and temporary) are loaded from
-     * the storage and the user's offline cache is rebuilt.
+     * This method ensures that the user's groups (both permanent and temporary) and personal permission
+     * nodes (both permanent and temporary) are loaded from the storage and the user's offline cache is rebuilt.
      * If the repository is not available, the method assigns the default group and rebuilds the cache directly.
      *
      * @param uuid The unique identifier of the user whose data is to be loaded. Must not be null.
@@ -166,60 +395,106 @@ public final class LegendPermissionService implements PermissionResolver {
         if (uuid == null) return CompletableFuture.completedFuture(null);
 
         if (repository == null) {
-            ensureUserHasDefaultGroup(uuid);
-            rebuildUser(uuid);
-            return CompletableFuture.completedFuture(null);
+            return writer.submit(() -> {
+                ensureUserHasDefaultGroup(uuid);
+                rebuildUser(uuid);
+            });
         }
 
+        Set<String> loadedGroups = new HashSet<>();
+        Map<String, Instant> loadedTemporaryGroups = new HashMap<>();
+        Map<String, PermissionDecision> loadedPermissions = new HashMap<>();
+        Map<String, Instant> loadedDeadlines = new HashMap<>();
+
         return repository.ensureUserRow(uuid)
                 .thenCompose(v -> repository.loadUserPermanentGroups(uuid))
                 .thenCompose(permanentRows -> {
-                    LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
-
-                    legendUser.getGroups().clear();
-                    legendUser.getTemporaryGroups().clear();
-
                     for (var row : permanentRows) {
                         String groupName = String.valueOf(row.get("group_name"));
                         if (groupName != null && !groupName.isBlank()) {
-                            legendUser.getGroups().add(groupName);
+                            loadedGroups.add(groupName);
                         }
                     }
 
                     return repository.loadUserActiveTempGroups(uuid, Instant.now());
                 })
                 .thenCompose(tempRows -> {
-                    LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
-
                     for (var row : tempRows) {
                         String groupName = String.valueOf(row.get("group_name"));
                         Object expiresRaw = row.get("expires_at");
                         if (groupName == null || groupName.isBlank() || expiresRaw == null) continue;
 
-                        long ms = (expiresRaw instanceof Number n) ? n.longValue() : Long.parseLong(expiresRaw.toString());
-                        legendUser.getTemporaryGroups().put(groupName, Instant.ofEpochMilli(ms));
+                        loadedTemporaryGroups.put(groupName, Instant.ofEpochMilli(toEpochMillis(expiresRaw)));
                     }
 
-                    CompletableFuture<Void> done = new CompletableFuture<>();
-                    Bukkit.getScheduler().runTask(LegendPerms.getInstance(), () -> {
-                        try {
-                            ensureUserHasDefaultGroup(uuid);
-                            rebuildUser(uuid); // offline cache
-                            done.complete(null);
-                        } catch (Throwable t) {
-                            done.completeExceptionally(t);
+                    return repository.loadUserPermissions(uuid);
+                })
+                .thenCompose(permissionRows -> {
+                    for (var row : permissionRows) {
+                        String node = String.valueOf(row.get("node"));
+                        PermissionDecision decision = PermissionDAO.decodeDecision(row.get("decision"));
+                        if (node != null && !node.isBlank() && decision != PermissionDecision.NOT_SET) {
+                            loadedPermissions.put(node, decision);
+                        }
+                    }
+
+                    return repository.loadUserPermissionDeadlines(uuid);
+                })
+                .thenCompose(deadlineRows -> {
+                    for (var row : deadlineRows) {
+                        String node = String.valueOf(row.get("node"));
+                        Object expiresRaw = row.get("expires_at");
+                        if (expiresRaw != null && loadedPermissions.containsKey(node)) {
+                            loadedDeadlines.put(node, Instant.ofEpochMilli(toEpochMillis(expiresRaw)));
+                        }
+                    }
+
+                    // publish the loaded memberships at once, without blocking the database thread
+                    return writer.submit(() -> {
+                        // memberships of groups that no longer exist are dropped
+                        Set<Integer> groupIds = new HashSet<>();
+                        for (String groupName : loadedGroups) {
+                            LegendGroup legendGroup = groups.get(groupName);
+                            if (legendGroup != null) groupIds.add(legendGroup.getId());
                         }
+                        Map<Integer, Instant> temporaryGroupIds = new HashMap<>();
+                        loadedTemporaryGroups.forEach((groupName, expiresAt) -> {
+                            LegendGroup legendGroup = groups.get(groupName);
+                            if (legendGroup != null) temporaryGroupIds.put(legendGroup.getId(), expiresAt);
+                        });
+
+                        EffectivePermissions own = EffectivePermissions.compile(loadedPermissions, nodeRegistry);
+
+                        LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
+                        // the memberships are published with the compiled group set by the rebuild below
+                        UserSnapshot previousMemberships = legendUser.updateMemberships(snapshot -> snapshot.withMemberships(groupIds, temporaryGroupIds));
+                        UserSnapshot previous = legendUser.update(snapshot -> snapshot.withPermissions(loadedPermissions, loadedDeadlines, own));
+                        // deadlines the replaced snapshot already had are on the wheels, only new or moved ones are scheduled;
+                        // nodes that lapsed while the user was offline expire on the next tick
+                        temporaryGroupIds.forEach((groupId, expiresAt) -> {
+                            if (!expiresAt.equals(previousMemberships.temporaryGroups().get(groupId))) scheduleExpiry(uuid, groupId, expiresAt);
+                        });
+                        loadedDeadlines.forEach((node, expiresAt) -> {
+                            if (!expiresAt.equals(previous.temporaryPermissions().get(node))) {
+                                scheduleExpiry(TemporaryPermissionExpiry.ofUser(uuid, node, expiresAt));
+                            }
+                        });
+                        indexMembership(uuid, legendUser);
+                        return null;
                     });
-                    return done;
                 })
+                .thenCompose(v -> writer.submit(() -> {
+                    ensureUserHasDefaultGroup(uuid);
+                    rebuildUser(uuid); // offline cache
+                }))
                 .exceptionally(ex -> {
                     logger.error(List.of(
                             "Failed to load user from database async: " + uuid,
                             "Error: " + ex.getClass().getSimpleName() + ": " + (ex.getMessage() == null ? "no message" : ex.getMessage())
                     ));
 
-                    // sync cache rebuild
-                    Bukkit.getScheduler().runTask(LegendPerms.getInstance(), () -> {
+                    // cache rebuild without the stored data
+                    writer.submit(() -> {
                         ensureUserHasDefaultGroup(uuid);
                         rebuildUser(uuid);
                     });
@@ -230,40 +505,52 @@ public final class LegendPermissionService implements PermissionResolver {
 
     // creates a new group with the given name
     public boolean createGroup(String name) {
-        if (name == null || name.isBlank()) return false;
-        boolean created = groups.putIfAbsent(name, new LegendGroup(name)) == null;
-        if (created && repository != null) {
-            LegendGroup legendGroup = groups.get(name);
-            repository.upsertGroup(legendGroup.getName(), legendGroup.getPriority(), legendGroup.getPrefix())
-                    .exceptionally(ex -> {
-                        logger.warning("DB createGroup failed: " + ex);
-                        return null;
-                    });
-        }
-        return created;
+        return writer.call(() -> {
+            if (name == null || name.isBlank()) return false;
+            // names are unique regardless of their case
+            if (groups.get(name) != null) return false;
+
+            LegendGroup legendGroup = groups.register(name);
+            if (repository != null) {
+                repository.upsertGroup(legendGroup.getName(), legendGroup.getPriority(), legendGroup.getPrefix())
+                        .exceptionally(ex -> {
+                            logger.warning("DB createGroup failed: " + ex);
+                            return null;
+                        });
+            }
+            return true;
+        });
     }
 
     /**
      * Updates the priority of a specific group and synchronizes the change with the repository, if available.
      * This method modifies the priority of an existing group, persists the change to the underlying database,
-     * and triggers a rebuild of all user configurations associated with the group.
+     * and triggers a rebuild of all user configurations associated with the group or a group inheriting from it.
      *
      * @param groupName the name of the group whose priority is to be updated; must not be null
      * @param priority the new priority value to assign to the group
      */
     public void setGroupPriority(String groupName, int priority) {
-        LegendGroup legendGroup = requireGroup(groupName);
-        legendGroup.setPriority(priority);
+        writer.run(() -> {
+            LegendGroup legendGroup = requireGroup(groupName);
+            legendGroup.setPriority(priority);
 
-        if (repository != null) {
-            repository.upsertGroup(legendGroup.getName(), legendGroup.getPriority(), legendGroup.getPrefix())
-                    .exceptionally(ex -> {
-                        logger.warning("DB setGroupPriority failed: " + ex);
-                        return null;
-                    });
-        }
+            if (repository != null) {
+                repository.upsertGroup(legendGroup.getName(), legendGroup.getPriority(), legendGroup.getPrefix())
+                        .exceptionally(ex -> {
+                            logger.warning("DB setGroupPriority failed: " + ex);
+                            return null;
+                        });
+            }
+
+            // the priority orders the parents of the children, so their flattened permissions change as well
+            List<Integer> reflattened = inheritance.reflatten(inheritance.children(legendGroup.getId()));
+            reflattened.forEach(groupTables::remove);
 
-        rebuildAllUsersWithGroup(groupName);
+            List<Integer> affected = new ArrayList<>(reflattened);
+            affected.add(legendGroup.getId());
+            rebuildAllUsersWithGroups(affected);
+        });
     }
 
     /**
@@ -271,6 +558,7 @@ public final class LegendPermissionService implements PermissionResolver {
      * <p>
      * This method removes the specified group from the internal group storage
      * and ensures that all users associated with the group are updated accordingly.
+     * Groups inheriting from it lose it as a parent.
      * It also handles repository updates if a repository is configured.
      * The default group cannot be deleted.
      *
@@ -278,41 +566,51 @@ public final class LegendPermissionService implements PermissionResolver {
      * @return true if the group was successfully deleted, false otherwise.
      */
     public boolean deleteGroup(String name) {
-        if (name == null || name.isBlank()) return false;
+        return writer.call(() -> {
+            if (name == null || name.isBlank()) return false;
 
-        if (DEFAULT_GROUP_NAME.equalsIgnoreCase(name)) {
-            return false;
-        }
+            if (DEFAULT_GROUP_NAME.equalsIgnoreCase(name)) {
+                return false;
+            }
 
-        LegendGroup removed = groups.remove(name);
-        if (removed == null) {
-            return false;
-        }
+            LegendGroup removed = groups.remove(name);
+            if (removed == null) {
+                return false;
+            }
+            bumpGenerations(List.of(removed.getId()));
+            groupTables.remove(removed.getId());
 
-        if (repository != null) {
-            repository.deleteGroup(removed.getName())
-                    .exceptionally(ex -> {
-                        logger.warning("DB deleteGroup failed: " + ex);
-                        return null;
-                    });
-        }
+            // the children lose the deleted parent
+            List<Integer> reflattened = inheritance.reflatten(inheritance.removeGroup(removed.getId()));
+            reflattened.forEach(groupTables::remove);
+            rebuildAllUsersWithGroups(reflattened);
 
-        for (Map.Entry<UUID, LegendUser> e : users.entrySet()) {
-            LegendUser legendUser = e.getValue();
-            boolean changed = legendUser.getGroups().removeIf(g -> g.equalsIgnoreCase(name));
+            if (repository != null) {
+                repository.deleteGroup(removed.getName())
+                        .exceptionally(ex -> {
+                            logger.warning("DB deleteGroup failed: " + ex);
+                            return null;
+                        });
+            }
 
-            boolean tempChanged = legendUser.getTemporaryGroups().keySet().removeIf(g -> g.equalsIgnoreCase(name));
-            changed = changed || tempChanged;
+            int defaultGroupId = defaultGroup().getId();
+            for (UUID uuid : memberIndex.members(removed.getId())) {
+                LegendUser legendUser = users.get(uuid);
+                if (legendUser == null) continue;
 
-            if (changed && legendUser.getGroups().isEmpty() && legendUser.getTemporaryGroups().isEmpty()) {
-                legendUser.getGroups().add(DEFAULT_GROUP_NAME);
-            }
-            if (changed) {
-                rebuildUser(e.getKey());
+                UserSnapshot before = legendUser.updateMemberships(snapshot -> snapshot
+                        .withoutGroup(removed.getId())
+                        .withGroupIfEmpty(defaultGroupId));
+                boolean changed = before.hasGroup(removed.getId()) || before.hasTemporaryGroup(removed.getId());
+
+                if (changed) {
+                    indexMembership(uuid, legendUser);
+                    markDirty(uuid);
+                }
             }
-        }
 
-        return true;
+            return true;
+        });
     }
 
     public LegendGroup getGroup(String name) {
@@ -320,202 +618,461 @@ public final class LegendPermissionService implements PermissionResolver {
     }
 
     public void setGroupPrefix(String groupName, String prefix) {
-        LegendGroup legendGroup = requireGroup(groupName);
-        legendGroup.setPrefix(prefix);
+        writer.run(() -> {
+            LegendGroup legendGroup = requireGroup(groupName);
+            legendGroup.setPrefix(prefix);
 
-        if (repository != null) {
-            repository.upsertGroup(legendGroup.getName(), legendGroup.getPriority(), legendGroup.getPrefix())
-                    .exceptionally(ex -> {
-                        logger.warning("DB setGroupPrefix failed: " + ex);
-                        return null;
-                    });
-        }
+            if (repository != null) {
+                repository.upsertGroup(legendGroup.getName(), legendGroup.getPriority(), legendGroup.getPrefix())
+                        .exceptionally(ex -> {
+                            logger.warning("DB setGroupPrefix failed: " + ex);
+                            return null;
+                        });
+            }
 
-        rebuildAllUsersWithGroup(groupName);
+            // the prefix does not influence any permission, only the memoized primary group of the members changes
+            if (bulkLoading) return;
+            for (UUID uuid : memberIndex.members(legendGroup.getId())) {
+                markDirty(uuid);
+            }
+        });
     }
 
     public void addGroupPermission(String groupName, String node, PermissionDecision decision) {
-        if (node == null || node.isBlank()) return;
-        LegendGroup legendGroup = requireGroup(groupName);
-        legendGroup.getPermissions().put(node, decision);
+        writer.run(() -> {
+            if (node == null || node.isBlank()) return;
+            LegendGroup legendGroup = requireGroup(groupName);
+            legendGroup.getPermissions().put(node, decision);
+            // setting a node permanently drops its deadline
+            boolean wasTemporary = legendGroup.getTemporaryPermissions().remove(node) != null;
 
-        if (repository != null) {
-            repository.upsertGroupPermission(legendGroup.getName(), node, decision)
-                    .exceptionally(ex -> {
-                        logger.warning("DB addGroupPermission failed: " + ex);
-                        return null;
-                    });
-        }
+            if (repository != null) {
+                repository.upsertGroupPermission(legendGroup.getName(), node, decision)
+                        .exceptionally(ex -> {
+                            logger.warning("DB addGroupPermission failed: " + ex);
+                            return null;
+                        });
+                if (wasTemporary) {
+                    repository.deleteGroupPermissionDeadline(legendGroup.getName(), node)
+                            .exceptionally(ex -> {
+                                logger.warning("DB deleteGroupPermissionDeadline failed: " + ex);
+                                return null;
+                            });
+                }
+            }
 
-        rebuildAllUsersWithGroup(groupName);
+            applyGroupPermissionDelta(legendGroup, node);
+        });
     }
 
-    public boolean removeGroupPermission(String groupName, String node) {
-        if (node == null || node.isBlank()) return false;
-
-        LegendGroup legendGroup = requireGroup(groupName);
+    /**
+     * Sets a node of a group for a limited time. The node is compiled like any other node, its deadline
+     * is only tracked by the expiry index: once it is reached the node is removed and exactly the tables
+     * holding it are patched, see {@link #expireTemporaryPermissions()}. Setting the node again replaces
+     * the deadline.
+     *
+     * @param groupName the name of the group
+     * @param node the permission node
+     * @param decision the decision, ALLOW or DENY
+     * @param duration how long the node is set, must be positive
+     * @throws IllegalArgumentException if the group does not exist, the decision is not set or the duration is not positive
+     */
+    public void addTemporaryGroupPermission(String groupName, String node, PermissionDecision decision, Duration duration) {
+        writer.run(() -> {
+            if (node == null || node.isBlank()) return;
+            LegendGroup legendGroup = requireGroup(groupName);
+            requireTemporary(decision, duration);
 
-        PermissionDecision removed = legendGroup.getPermissions().remove(node);
-        if (removed == null) {
-            return false;
-        }
+            Instant expiresAt = deadlineAfter(duration);
+            PermissionDecision previous = legendGroup.getPermissions().put(node, decision);
+            legendGroup.getTemporaryPermissions().put(node, expiresAt);
+            scheduleExpiry(TemporaryPermissionExpiry.ofGroup(legendGroup.getId(), node, expiresAt));
 
-        if (repository != null) {
-            repository.deleteGroupPermission(legendGroup.getName(), node)
-                    .exceptionally(ex -> {
-                        logger.warning("DB removeGroupPermission failed: " + ex);
-                        return null;
-                    });
-        }
+            if (repository != null) {
+                repository.upsertGroupPermission(legendGroup.getName(), node, decision)
+                        .thenCompose(v -> repository.upsertGroupPermissionDeadline(legendGroup.getName(), node, expiresAt))
+                        .exceptionally(ex -> {
+                            logger.warning("DB addTemporaryGroupPermission failed: " + ex);
+                            return null;
+                        });
+            }
 
-        rebuildAllUsersWithGroup(groupName);
-        return true;
+            // only the deadline changed, nothing to recompile
+            if (previous != decision) applyGroupPermissionDelta(legendGroup, node);
+        });
     }
 
     /**
-     * Ensures that the user associated with the given UUID has the default group assigned.
-     * If the user does not belong to any group or temporary group, the default group is added to their group list.
-     * Additionally, it updates the database repository if applicable.
-     *
-     * @param uuid the unique identifier of the user whose groups are being checked and potentially updated
+     * @param groupName the name of the group
+     * @param node the permission node
+     * @return the formatted deadline of the node, or "never" if the node is permanent or not set
      */
-    public void ensureUserHasDefaultGroup(UUID uuid) {
-        LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
-        if (legendUser.getGroups().isEmpty() && legendUser.getTemporaryGroups().isEmpty()) {
-            legendUser.getGroups().add(DEFAULT_GROUP_NAME);
-            if (!bulkLoading) rebuildUser(uuid);
+    public String getGroupPermissionExpiration(String groupName, String node) {
+        LegendGroup legendGroup = groups.get(groupName);
+        Instant expiresAt = legendGroup == null || node == null ? null : legendGroup.getTemporaryPermissions().get(node);
+        return expiresAt == null ? "never" : EXPIRATION_FORMATTER.format(expiresAt);
+    }
+
+    public boolean removeGroupPermission(String groupName, String node) {
+        return writer.call(() -> {
+            if (node == null || node.isBlank()) return false;
+
+            LegendGroup legendGroup = requireGroup(groupName);
+
+            PermissionDecision removed = legendGroup.getPermissions().remove(node);
+            if (removed == null) {
+                return false;
+            }
+            boolean wasTemporary = legendGroup.getTemporaryPermissions().remove(node) != null;
 
             if (repository != null) {
-                repository.addUserGroup(uuid, DEFAULT_GROUP_NAME)
+                repository.deleteGroupPermission(legendGroup.getName(), node)
                         .exceptionally(ex -> {
-                            logger.warning("DB ensure default legendUser group failed: " + ex);
+                            logger.warning("DB removeGroupPermission failed: " + ex);
                             return null;
                         });
+                if (wasTemporary) {
+                    repository.deleteGroupPermissionDeadline(legendGroup.getName(), node)
+                            .exceptionally(ex -> {
+                                logger.warning("DB deleteGroupPermissionDeadline failed: " + ex);
+                                return null;
+                            });
+                }
             }
-        }
+
+            applyGroupPermissionDelta(legendGroup, node);
+            return true;
+        });
     }
 
     /**
-     * Retrieves the expiration date for a temporary group associated with a user.
-     * If the user's temporary group has already expired, their temporary groups
-     * are purged and rebuilt if necessary. If no expiration exists, returns "never".
+     * Lets a group inherit the permissions of another group. Only the group and the groups inheriting
+     * from it are reflattened and recompiled.
      *
-     * @param uuid the unique identifier of the user
-     * @param groupName the name of the temporary group
-     * @return a formatted string representing the expiration date, or "never"
-     *         if no expiration date exists or the input is invalid
+     * @param groupName the name of the inheriting group
+     * @param parentName the name of the parent group
+     * @return false if the parent is the group itself, already a parent, or inherits from the group
+     * @throws IllegalArgumentException if one of the groups does not exist
      */
-    public String getTemporaryGroupExpiration(UUID uuid, String groupName) {
-        if (uuid == null || groupName == null || groupName.isBlank()) return "never";
-
-        LegendUser legendUser = users.get(uuid);
-        if (legendUser == null) return "never";
-
-        boolean purged = purgeExpiredTemporaryGroups(legendUser);
-        if (purged) rebuildUser(uuid);
+    public boolean addGroupParent(String groupName, String parentName) {
+        return writer.call(() -> {
+            LegendGroup legendGroup = requireGroup(groupName);
+            LegendGroup parent = requireGroup(parentName);
+            if (!inheritance.addParent(legendGroup.getId(), parent.getId())) return false;
 
-        Instant expiresAt = legendUser.getTemporaryGroups().get(groupName);
-        if (expiresAt == null) return "never";
+            if (repository != null) {
+                repository.addGroupParent(legendGroup.getName(), parent.getName())
+                        .exceptionally(ex -> {
+                            logger.warning("DB addGroupParent failed: " + ex);
+                            return null;
+                        });
+            }
 
-        return EXPIRATION_FORMATTER.format(expiresAt);
+            applyInheritanceChange(legendGroup);
+            return true;
+        });
     }
 
     /**
-     * Adds a user to a specified group. This method ensures the user exists
-     * and purges their expired temporary groups before adding the new group.
-     * If the group is successfully added, optional operations such as
-     * rebuilding the user and updating the repository will be triggered.
+     * Stops a group from inheriting the permissions of another group.
      *
-     * @param uuid      the unique identifier of the user
-     * @param groupName the name of the group to add the user to
-     * @return true if the group was successfully added, false if the user was
-     *         already a member of the group
+     * @param groupName the name of the inheriting group
+     * @param parentName the name of the parent group
+     * @return false if the group did not inherit from the parent
+     * @throws IllegalArgumentException if the inheriting group does not exist
      */
-    public boolean userAddGroup(UUID uuid, String groupName) {
-        requireGroup(groupName);
-        LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
-        purgeExpiredTemporaryGroups(user);
-
-        boolean changed = user.getGroups().add(groupName);
-        if (changed) {
-            if (!bulkLoading) rebuildUser(uuid);
+    public boolean removeGroupParent(String groupName, String parentName) {
+        return writer.call(() -> {
+            LegendGroup legendGroup = requireGroup(groupName);
+            LegendGroup parent = groups.get(parentName);
+            if (parent == null || !inheritance.removeParent(legendGroup.getId(), parent.getId())) return false;
 
             if (repository != null) {
-                repository.addUserGroup(uuid, groupName)
+                repository.removeGroupParent(legendGroup.getName(), parent.getName())
                         .exceptionally(ex -> {
-                            logger.warning("DB userAddGroup failed: " + ex);
+                            logger.warning("DB removeGroupParent failed: " + ex);
                             return null;
                         });
             }
-        }
-        return changed;
+
+            applyInheritanceChange(legendGroup);
+            return true;
+        });
     }
 
     /**
-     * Removes a user from a specified group. This method checks for both permanent and temporary
-     * group memberships and removes the user from the group accordingly. If the user belongs
-     * only to the default group after removal, the method ensures that the default group is maintained.
-     *
-     * @param uuid      The unique identifier of the user. Cannot be null.
-     * @param groupName The name of the group to remove the user from. Cannot be null or blank.
-     * @return true if the user was successfully removed from the specified group or temporary groups,
-     *         false otherwise.
+     * @param groupName the name of the group
+     * @return the names of the direct parents of the group, sorted case-insensitively
      */
-    public boolean userRemoveGroup(UUID uuid, String groupName) {
-        if (uuid == null || groupName == null || groupName.isBlank()) return false;
+    public List<String> getGroupParentNames(String groupName) {
+        LegendGroup legendGroup = groups.get(groupName);
+        if (legendGroup == null) return List.of();
 
-        LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
-        // check if the temp group already expired
-        purgeExpiredTemporaryGroups(user);
+        List<String> out = new ArrayList<>();
+        for (int parentId : inheritance.parents(legendGroup.getId())) {
+            LegendGroup parent = groups.get(parentId);
+            if (parent != null) out.add(parent.getName());
+        }
+        out.sort(String.CASE_INSENSITIVE_ORDER);
+        return List.copyOf(out);
+    }
 
-        boolean removedPermanent = user.getGroups().removeIf(group -> group != null && group.equalsIgnoreCase(groupName));
-        boolean removedTemporary = user.getTemporaryGroups().keySet()
-                .removeIf(group -> group != null && group.equalsIgnoreCase(groupName));
+    /**
+     * Sets a node of a group that only applies while a member is in the given world. World nodes override
+     * the global nodes of all groups of the user and are inherited like them. Only the group sets compiled
+     * for that world are recompiled.
+     *
+     * @param groupName the name of the group
+     * @param world the name of the world, case-insensitive
+     * @param node the permission node
+     * @param decision the decision, ALLOW or DENY
+     * @throws IllegalArgumentException if the group does not exist or the decision is not set
+     */
+    public void addGroupWorldPermission(String groupName, String world, String node, PermissionDecision decision) {
+        writer.run(() -> {
+            if (world == null || world.isBlank() || node == null || node.isBlank()) return;
+            LegendGroup legendGroup = requireGroup(groupName);
+            if (decision == null || decision == PermissionDecision.NOT_SET) {
+                throw new IllegalArgumentException("Decision must be ALLOW or DENY");
+            }
 
-        boolean changed = removedPermanent || removedTemporary;
+            String context = world.toLowerCase(Locale.ROOT);
+            PermissionDecision previous = legendGroup.getWorldPermissions()
+                    .computeIfAbsent(context, key -> new ConcurrentHashMap<>())
+                    .put(node, decision);
+            if (previous == decision) return;
 
-        if (changed && repository != null) {
-            if (removedPermanent) {
-                repository.removeUserGroup(uuid, groupName)
-                        .exceptionally(ex -> {
-                            logger.warning("DB userRemoveGroup failed: " + ex);
-                            return null;
-                        });
-            }
-            if (removedTemporary) {
-                repository.deleteUserTempGroup(uuid, groupName)
+            if (repository != null) {
+                repository.upsertGroupWorldPermission(legendGroup.getName(), context, node, decision)
                         .exceptionally(ex -> {
-                            logger.warning("DB userRemoveTemporaryGroup (via removeGroup) failed: " + ex);
+                            logger.warning("DB addGroupWorldPermission failed: " + ex);
                             return null;
                         });
             }
-        }
 
-        if (changed && !bulkLoading) rebuildUser(uuid);
+            applyWorldPermissionChange(legendGroup, context);
+        });
+    }
+
+    /**
+     * Removes a world-scoped node of a group.
+     *
+     * @param groupName the name of the group
+     * @param world the name of the world, case-insensitive
+     * @param node the permission node
+     * @return false if the group has no such node in that world
+     * @throws IllegalArgumentException if the group does not exist
+     */
+    public boolean removeGroupWorldPermission(String groupName, String world, String node) {
+        return writer.call(() -> {
+            if (world == null || world.isBlank() || node == null || node.isBlank()) return false;
+            LegendGroup legendGroup = requireGroup(groupName);
 
-        if (user.getGroups().isEmpty() && user.getTemporaryGroups().isEmpty()) {
-            user.getGroups().add(DEFAULT_GROUP_NAME);
-            if (!bulkLoading) rebuildUser(uuid);
+            String context = world.toLowerCase(Locale.ROOT);
+            Map<String, PermissionDecision> worldNodes = legendGroup.getWorldPermissions().get(context);
+            if (worldNodes == null || worldNodes.remove(node) == null) return false;
+            // the world no longer needs its own tables if this was its last node
+            if (worldNodes.isEmpty()) legendGroup.getWorldPermissions().remove(context, worldNodes);
 
             if (repository != null) {
-                repository.addUserGroup(uuid, DEFAULT_GROUP_NAME)
+                repository.deleteGroupWorldPermission(legendGroup.getName(), context, node)
                         .exceptionally(ex -> {
-                            logger.warning("DB keep default group failed: " + ex);
+                            logger.warning("DB removeGroupWorldPermission failed: " + ex);
                             return null;
                         });
             }
-        }
-        return changed;
+
+            applyWorldPermissionChange(legendGroup, context);
+            return true;
+        });
     }
 
-    public String getUserPrimaryGroupName(UUID uuid) {
+    /**
+     * Records the world the player is in and switches their compiled table to the one of that world.
+     * Nothing is recompiled if their groups have no nodes for the old or the new world, and a table
+     * compiled for the world is shared with every other user with the same groups there.
+     * <p>
+     * Called on join and on {@link org.bukkit.event.player.PlayerChangedWorldEvent}, must be called from
+     * the server main thread.
+     *
+     * @param uuid the unique identifier of the player
+     * @param world the name of the world, null once the player quit
+     */
+    public void setActiveWorld(UUID uuid, String world) {
+        if (uuid == null) return;
+        if (world == null) {
+            activeWorlds.remove(uuid);
+            return;
+        }
+        activeWorlds.put(uuid, world.toLowerCase(Locale.ROOT));
+
+        // not loaded yet, the first rebuild picks the world up
         LegendUser user = users.get(uuid);
-        if (user == null) return DEFAULT_GROUP_NAME;
+        if (user == null) return;
 
-        boolean purged = purgeExpiredTemporaryGroups(user);
-        if (purged) rebuildUser(uuid);
+        UserSnapshot snapshot = user.getMemberships();
+        CompiledGroupSet current = snapshot.compiled();
+        if (current == null || current.getSignature().equals(signatureOf(uuid, snapshot))) return;
+        rebuildUser(uuid);
+    }
 
-        LegendGroup primaryGroup = resolvePrimaryGroup(user);
+    /**
+     * Ensures that the user associated with the given UUID has the default group assigned.
+     * If the user does not belong to any group or temporary group, the default group is added to their group list.
+     * Additionally, it updates the database repository if applicable.
+     *
+     * @param uuid the unique identifier of the user whose groups are being checked and potentially updated
+     */
+    public void ensureUserHasDefaultGroup(UUID uuid) {
+        writer.run(() -> {
+            LegendGroup defaultGroup = defaultGroup();
+            LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
+            if (legendUser.updateMemberships(snapshot -> snapshot.withGroupIfEmpty(defaultGroup.getId())).hasNoGroups()) {
+                indexMembership(uuid, legendUser);
+                if (!bulkLoading) markDirty(uuid);
+
+                if (repository != null) {
+                    repository.addUserGroup(uuid, defaultGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB ensure default legendUser group failed: " + ex);
+                                return null;
+                            });
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves the expiration date for a temporary group associated with a user.
+     * If no expiration exists, returns "never".
+     *
+     * @param uuid the unique identifier of the user
+     * @param groupName the name of the temporary group
+     * @return a formatted string representing the expiration date, or "never"
+     *         if no expiration date exists or the input is invalid
+     */
+    public String getTemporaryGroupExpiration(UUID uuid, String groupName) {
+        if (uuid == null || groupName == null || groupName.isBlank()) return "never";
+
+        LegendUser legendUser = users.get(uuid);
+        LegendGroup legendGroup = groups.get(groupName);
+        if (legendUser == null || legendGroup == null) return "never";
+
+        Instant expiresAt = legendUser.getMemberships().temporaryGroups().get(legendGroup.getId());
+        if (expiresAt == null) return "never";
+
+        return EXPIRATION_FORMATTER.format(expiresAt);
+    }
+
+    /**
+     * Adds a user to a specified group. This method ensures the user exists
+     * before adding the new group. If the group is successfully added, optional operations such as
+     * rebuilding the user and updating the repository will be triggered.
+     *
+     * @param uuid      the unique identifier of the user
+     * @param groupName the name of the group to add the user to
+     * @return true if the group was successfully added, false if the user was
+     *         already a member of the group
+     */
+    public boolean userAddGroup(UUID uuid, String groupName) {
+        return writer.call(() -> {
+            LegendGroup legendGroup = requireGroup(groupName);
+            LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
+
+            boolean changed = !user.updateMemberships(snapshot -> snapshot.withGroup(legendGroup.getId())).hasGroup(legendGroup.getId());
+            if (changed) {
+                indexMembership(uuid, user);
+                if (!bulkLoading) markDirty(uuid);
+
+                if (repository != null) {
+                    repository.addUserGroup(uuid, legendGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB userAddGroup failed: " + ex);
+                                return null;
+                            });
+                }
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Removes a user from a specified group. This method checks for both permanent and temporary
+     * group memberships and removes the user from the group accordingly. If the user belongs
+     * only to the default group after removal, the method ensures that the default group is maintained.
+     *
+     * @param uuid      The unique identifier of the user. Cannot be null.
+     * @param groupName The name of the group to remove the user from. Cannot be null or blank.
+     * @return true if the user was successfully removed from the specified group or temporary groups,
+     *         false otherwise.
+     */
+    public boolean userRemoveGroup(UUID uuid, String groupName) {
+        return writer.call(() -> {
+            if (uuid == null || groupName == null || groupName.isBlank()) return false;
+
+            LegendGroup legendGroup = groups.get(groupName);
+            if (legendGroup == null) return false;
+            int groupId = legendGroup.getId();
+
+            LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
+
+            UserSnapshot before = user.updateMemberships(snapshot -> snapshot.withoutGroup(groupId));
+            boolean removedPermanent = before.hasGroup(groupId);
+            boolean removedTemporary = before.hasTemporaryGroup(groupId);
+
+            boolean changed = removedPermanent || removedTemporary;
+            if (changed) indexMembership(uuid, user);
+
+            if (changed && repository != null) {
+                if (removedPermanent) {
+                    repository.removeUserGroup(uuid, legendGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB userRemoveGroup failed: " + ex);
+                                return null;
+                            });
+                }
+                if (removedTemporary) {
+                    repository.deleteUserTempGroup(uuid, legendGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB userRemoveTemporaryGroup (via removeGroup) failed: " + ex);
+                                return null;
+                            });
+                }
+            }
+
+            if (changed && !bulkLoading) markDirty(uuid);
+
+            LegendGroup defaultGroup = defaultGroup();
+            if (user.updateMemberships(snapshot -> snapshot.withGroupIfEmpty(defaultGroup.getId())).hasNoGroups()) {
+                indexMembership(uuid, user);
+                if (!bulkLoading) markDirty(uuid);
+
+                if (repository != null) {
+                    repository.addUserGroup(uuid, defaultGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB keep default group failed: " + ex);
+                                return null;
+                            });
+                }
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Returns the primary group of the user, resolved once per rebuild. This is a constant time lookup.
+     *
+     * @param uuid the unique identifier of the user
+     * @return the primary group, or the default group if the user has none (yet)
+     */
+    public LegendGroup getUserPrimaryGroup(UUID uuid) {
+        LegendUser user = users.get(uuid);
+        LegendGroup primaryGroup = user == null ? null : groups.get(user.getSnapshot().primaryGroupId());
+        return primaryGroup != null ? primaryGroup : groups.get(DEFAULT_GROUP_NAME);
+    }
+
+    public String getUserPrimaryGroupName(UUID uuid) {
+        LegendGroup primaryGroup = getUserPrimaryGroup(uuid);
         return primaryGroup == null ? DEFAULT_GROUP_NAME : primaryGroup.getName();
     }
 
@@ -523,25 +1080,165 @@ public final class LegendPermissionService implements PermissionResolver {
         LegendUser user = users.get(uuid);
         if (user == null) return List.of();
 
-        boolean purged = purgeExpiredTemporaryGroups(user);
-        if (purged) rebuildUser(uuid);
-
         // Returns both permanent + active temporary groups (as "effective" groups)
-        List<String> out = new ArrayList<>(getAllActiveGroupNames(user));
+        List<String> out = new ArrayList<>();
+        for (int groupId : user.getMemberships().activeGroupIds()) {
+            LegendGroup legendGroup = groups.get(groupId);
+            if (legendGroup != null) out.add(legendGroup.getName());
+        }
         out.sort(String.CASE_INSENSITIVE_ORDER);
         return List.copyOf(out);
     }
 
     public Map<String, PermissionDecision> getEffectivePermissions(UUID uuid) {
-        Map<String, PermissionDecision> map = effective.get(uuid);
-        if (map == null) return Map.of();
-        return Map.copyOf(map);
+        CompiledPermissions permissions = permissionsOf(uuid);
+        if (permissions == null) return Map.of();
+        return Map.copyOf(permissions.toMap(nodeRegistry));
+    }
+
+    /**
+     * @param uuid the unique identifier of the user
+     * @return the personal nodes of the user, without the ones of its groups
+     */
+    public Map<String, PermissionDecision> getUserPermissions(UUID uuid) {
+        LegendUser user = users.get(uuid);
+        return user == null ? Map.of() : user.getSnapshot().permissions();
+    }
+
+    /**
+     * Sets a personal node of the user. Personal nodes override the nodes of all groups of the user.
+     * Only the user's own overlay is recompiled, the shared group set is not touched.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the permission node
+     * @param decision the decision, ALLOW or DENY
+     */
+    public void userSetPermission(UUID uuid, String node, PermissionDecision decision) {
+        writer.run(() -> {
+            if (uuid == null || node == null || node.isBlank()) return;
+            if (decision == null || decision == PermissionDecision.NOT_SET) {
+                throw new IllegalArgumentException("Decision must be ALLOW or DENY");
+            }
+
+            LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
+            UserSnapshot snapshot = user.getSnapshot();
+            boolean wasTemporary = snapshot.temporaryPermissions().containsKey(node);
+            if (decision == snapshot.permissions().get(node) && !wasTemporary) return;
+
+            Map<String, PermissionDecision> next = new HashMap<>(snapshot.permissions());
+            next.put(node, decision);
+            // setting a node permanently drops its deadline
+            Map<String, Instant> nextTemporary = new HashMap<>(snapshot.temporaryPermissions());
+            nextTemporary.remove(node);
+            applyUserPermissions(uuid, user, next, nextTemporary);
+
+            if (repository != null) {
+                repository.upsertUserPermission(uuid, node, decision)
+                        .exceptionally(ex -> {
+                            logger.warning("DB userSetPermission failed: " + ex);
+                            return null;
+                        });
+                if (wasTemporary) {
+                    repository.deleteUserPermissionDeadline(uuid, node)
+                            .exceptionally(ex -> {
+                                logger.warning("DB deleteUserPermissionDeadline failed: " + ex);
+                                return null;
+                            });
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets a personal node of the user for a limited time. Like temporary group nodes, the deadline is
+     * only tracked by the expiry index and never looked at by permission checks.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the permission node
+     * @param decision the decision, ALLOW or DENY
+     * @param duration how long the node is set, must be positive
+     * @throws IllegalArgumentException if the decision is not set or the duration is not positive
+     */
+    public void userSetTemporaryPermission(UUID uuid, String node, PermissionDecision decision, Duration duration) {
+        writer.run(() -> {
+            if (uuid == null || node == null || node.isBlank()) return;
+            requireTemporary(decision, duration);
+
+            LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
+            UserSnapshot snapshot = user.getSnapshot();
+
+            Instant expiresAt = deadlineAfter(duration);
+            Map<String, PermissionDecision> next = new HashMap<>(snapshot.permissions());
+            next.put(node, decision);
+            Map<String, Instant> nextTemporary = new HashMap<>(snapshot.temporaryPermissions());
+            nextTemporary.put(node, expiresAt);
+            applyUserPermissions(uuid, user, next, nextTemporary);
+            scheduleExpiry(TemporaryPermissionExpiry.ofUser(uuid, node, expiresAt));
+
+            if (repository != null) {
+                repository.upsertUserPermission(uuid, node, decision)
+                        .thenCompose(v -> repository.upsertUserPermissionDeadline(uuid, node, expiresAt))
+                        .exceptionally(ex -> {
+                            logger.warning("DB userSetTemporaryPermission failed: " + ex);
+                            return null;
+                        });
+            }
+        });
+    }
+
+    /**
+     * @param uuid the unique identifier of the user
+     * @param node the personal permission node
+     * @return the formatted deadline of the node, or "never" if the node is permanent or not set
+     */
+    public String getUserPermissionExpiration(UUID uuid, String node) {
+        LegendUser user = uuid == null ? null : users.get(uuid);
+        Instant expiresAt = user == null || node == null ? null : user.getSnapshot().temporaryPermissions().get(node);
+        return expiresAt == null ? "never" : EXPIRATION_FORMATTER.format(expiresAt);
+    }
+
+    /**
+     * Removes a personal node of the user.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the permission node
+     * @return false if the user had no personal node with that name
+     */
+    public boolean userRemovePermission(UUID uuid, String node) {
+        return writer.call(() -> {
+            if (uuid == null || node == null || node.isBlank()) return false;
+
+            LegendUser user = users.get(uuid);
+            if (user == null || !user.getSnapshot().permissions().containsKey(node)) return false;
+
+            UserSnapshot snapshot = user.getSnapshot();
+            boolean wasTemporary = snapshot.temporaryPermissions().containsKey(node);
+            Map<String, PermissionDecision> next = new HashMap<>(snapshot.permissions());
+            next.remove(node);
+            Map<String, Instant> nextTemporary = new HashMap<>(snapshot.temporaryPermissions());
+            nextTemporary.remove(node);
+            applyUserPermissions(uuid, user, next, nextTemporary);
+
+            if (repository != null) {
+                repository.deleteUserPermission(uuid, node)
+                        .exceptionally(ex -> {
+                            logger.warning("DB userRemovePermission failed: " + ex);
+                            return null;
+                        });
+                if (wasTemporary) {
+                    repository.deleteUserPermissionDeadline(uuid, node)
+                            .exceptionally(ex -> {
+                                logger.warning("DB deleteUserPermissionDeadline failed: " + ex);
+                                return null;
+                            });
+                }
+            }
+            return true;
+        });
     }
 
     public List<String> getAllGroupNames() {
-        List<String> out = new ArrayList<>(groups.keySet());
-        out.sort(String.CASE_INSENSITIVE_ORDER);
-        return out;
+        return groups.names();
     }
 
 
@@ -549,42 +1246,151 @@ public final class LegendPermissionService implements PermissionResolver {
         LegendUser user = users.get(uuid);
         if (user == null) return "";
 
-        boolean purged = purgeExpiredTemporaryGroups(user);
-        if (purged) rebuildUser(uuid);
+        String prefix = user.getSnapshot().primaryPrefix();
+        return prefix == null ? "" : prefix;
+    }
 
-        LegendGroup primaryGroup = resolvePrimaryGroup(user);
-        return primaryGroup == null ? "" : primaryGroup.getPrefix();
+    /**
+     * Expires every temporary group membership whose deadline has been reached, marks the affected
+     * users for a rebuild and cleans up the expired rows in the database. This is the only place where temporary
+     * group memberships expire; read methods never purge on their own.
+     * <p>
+     * Only the memberships that are due are looked at, see {@link ExpiryWheel}. Stale entries
+     * (membership removed or extended meanwhile) are skipped.
+     * <p>
+     * Must be called from the server main thread once per tick, see
+     * {@link io.nexstudios.legendperms.perms.expiry.TemporaryGroupExpiryScheduler}. The due memberships
+     * are removed on the writer without waiting for it.
+     */
+    public void expireTemporaryGroups() {
+        expireTemporaryGroups(System.currentTimeMillis());
     }
 
-    public void tickExpirations(UUID uuid) {
-        if (uuid == null) return;
+    /**
+     * Same as {@link #expireTemporaryGroups()} at the given time, package-private so tests control the clock.
+     *
+     * @param nowMillis the current time as epoch milliseconds
+     */
+    void expireTemporaryGroups(long nowMillis) {
+        List<TemporaryGroupExpiry> due = temporaryGroupExpiries.advance(nowMillis);
+        if (due.isEmpty()) return;
 
-        LegendUser user = users.get(uuid);
-        if (user == null) return;
+        writer.submit(() -> expireTemporaryGroups(due))
+                .exceptionally(ex -> {
+                    logger.warning("Expiring temporary groups failed: " + ex);
+                    return null;
+                });
+    }
 
-        if (user.getTemporaryGroups().isEmpty()) {
-            return;
-        }
+    private void expireTemporaryGroups(List<TemporaryGroupExpiry> due) {
+        Set<UUID> expired = new LinkedHashSet<>();
+        for (TemporaryGroupExpiry expiry : due) {
+            LegendUser user = users.get(expiry.uuid());
+            if (user == null) continue;
 
-        boolean purged = purgeExpiredTemporaryGroups(user);
-        if (purged) {
-            if (!bulkLoading) rebuildUser(uuid);
+            // only remove the membership if it still has exactly this deadline
+            UserSnapshot before = user.updateMemberships(snapshot -> snapshot.withoutTemporaryGroup(expiry.groupId(), expiry.expiresAt()));
+            if (!expiry.expiresAt().equals(before.temporaryGroups().get(expiry.groupId()))) continue;
+            indexMembership(expiry.uuid(), user);
+            expired.add(expiry.uuid());
 
             if (repository != null) {
-                repository.cleanupExpiredTempGroups(uuid, Instant.now())
+                repository.cleanupExpiredTempGroups(expiry.uuid(), expiry.expiresAt())
                         .exceptionally(ex -> {
                             logger.warning("DB cleanupExpiredTempGroups failed: " + ex);
                             return null;
                         });
             }
         }
+
+        if (bulkLoading) return;
+        for (UUID uuid : expired) {
+            markDirty(uuid);
+        }
+    }
+
+    /**
+     * Expires every temporary group and user node whose deadline has been reached. A lapsed group node is
+     * removed like {@link #removeGroupPermission(String, String)} does, so only the tables holding it are
+     * patched and only members whose decision changes are refreshed. A lapsed user node only recompiles
+     * the user's own overlay.
+     * <p>
+     * Permission checks never look at deadlines, the nodes are compiled like permanent ones until they
+     * are removed here. Stale entries (node removed, made permanent or extended meanwhile) are skipped.
+     * <p>
+     * Must be called from the server main thread once per tick, see
+     * {@link io.nexstudios.legendperms.perms.expiry.TemporaryGroupExpiryScheduler}. The due nodes are
+     * removed on the writer without waiting for it.
+     */
+    public void expireTemporaryPermissions() {
+        expireTemporaryPermissions(System.currentTimeMillis());
+    }
+
+    /**
+     * Same as {@link #expireTemporaryPermissions()} at the given time, package-private so tests control the clock.
+     *
+     * @param nowMillis the current time as epoch milliseconds
+     */
+    void expireTemporaryPermissions(long nowMillis) {
+        List<TemporaryPermissionExpiry> due = temporaryPermissionExpiries.advance(nowMillis);
+        if (due.isEmpty()) return;
+
+        writer.submit(() -> due.forEach(this::expireTemporaryPermission))
+                .exceptionally(ex -> {
+                    logger.warning("Expiring temporary permissions failed: " + ex);
+                    return null;
+                });
+    }
+
+    private void expireTemporaryPermission(TemporaryPermissionExpiry expiry) {
+        String node = expiry.node();
+
+        if (expiry.isGroupNode()) {
+            LegendGroup legendGroup = groups.get(expiry.groupId());
+            // only remove the node if it still has exactly this deadline
+            if (legendGroup == null || !legendGroup.getTemporaryPermissions().remove(node, expiry.expiresAt())) return;
+            legendGroup.getPermissions().remove(node);
+
+            if (repository != null) {
+                repository.deleteGroupPermission(legendGroup.getName(), node)
+                        .thenCompose(v -> repository.deleteGroupPermissionDeadline(legendGroup.getName(), node))
+                        .exceptionally(ex -> {
+                            logger.warning("DB expire group permission failed: " + ex);
+                            return null;
+                        });
+            }
+
+            applyGroupPermissionDelta(legendGroup, node);
+            return;
+        }
+
+        UUID uuid = expiry.uuid();
+        LegendUser user = users.get(uuid);
+        if (user == null) return;
+
+        UserSnapshot snapshot = user.getSnapshot();
+        if (!expiry.expiresAt().equals(snapshot.temporaryPermissions().get(node))) return;
+
+        Map<String, PermissionDecision> next = new HashMap<>(snapshot.permissions());
+        next.remove(node);
+        Map<String, Instant> nextTemporary = new HashMap<>(snapshot.temporaryPermissions());
+        nextTemporary.remove(node);
+        applyUserPermissions(uuid, user, next, nextTemporary);
+
+        if (repository != null) {
+            repository.deleteUserPermission(uuid, node)
+                    .thenCompose(v -> repository.deleteUserPermissionDeadline(uuid, node))
+                    .exceptionally(ex -> {
+                        logger.warning("DB expire user permission failed: " + ex);
+                        return null;
+                    });
+        }
     }
 
     /**
      * Assigns a user to a temporary group for a specified duration.
      * If the group assignment already exists for the user but with a different duration,
-     * it will be updated. Temporary groups for the user that have expired will also
-     * be purged before assigning the new group.
+     * it will be updated.
      *
      * @param uuid       The unique identifier of the user.
      * @param groupName  The name of the group to add the user to temporarily.
@@ -594,58 +1400,57 @@ public final class LegendPermissionService implements PermissionResolver {
      * @throws IllegalArgumentException if the specified duration is null, zero, or negative.
      */
     public void userAddTemporaryGroup(UUID uuid, String groupName, Duration duration) {
-        requireGroup(groupName);
-        if (duration == null || duration.isZero() || duration.isNegative()) {
-            throw new IllegalArgumentException("Duration must be > 0");
-        }
-
-        LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
-        purgeExpiredTemporaryGroups(user);
+        writer.run(() -> {
+            LegendGroup legendGroup = requireGroup(groupName);
+            if (duration == null || duration.isZero() || duration.isNegative()) {
+                throw new IllegalArgumentException("Duration must be > 0");
+            }
 
-        Instant expiresAt = Instant.now().plus(duration);
-        Instant previous = user.getTemporaryGroups().put(groupName, expiresAt);
+            LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
 
-        boolean changed = previous == null || !previous.equals(expiresAt);
-        if (changed) {
-            if (!bulkLoading) rebuildUser(uuid);
+            Instant expiresAt = deadlineAfter(duration);
+            Instant previous = user.updateMemberships(snapshot -> snapshot.withTemporaryGroup(legendGroup.getId(), expiresAt))
+                    .temporaryGroups().get(legendGroup.getId());
 
-            if (repository != null) {
-                repository.upsertUserTempGroup(uuid, groupName, expiresAt)
-                        .exceptionally(ex -> {
-                            logger.warning("DB userAddTemporaryGroup failed: " + ex);
-                            return null;
-                        });
+            boolean changed = previous == null || !previous.equals(expiresAt);
+            if (changed) {
+                scheduleExpiry(uuid, legendGroup.getId(), expiresAt);
+                indexMembership(uuid, user);
+                if (!bulkLoading) markDirty(uuid);
+
+                if (repository != null) {
+                    repository.upsertUserTempGroup(uuid, legendGroup.getName(), expiresAt)
+                            .exceptionally(ex -> {
+                                logger.warning("DB userAddTemporaryGroup failed: " + ex);
+                                return null;
+                            });
+                }
             }
-        }
+        });
     }
 
     public int getUserPrimaryPriority(UUID uuid) {
         LegendUser user = users.get(uuid);
         if (user == null) return 0;
 
-        boolean purged = purgeExpiredTemporaryGroups(user);
-        if (purged) rebuildUser(uuid);
-
-        LegendGroup best = resolvePrimaryGroup(user);
-        return best == null ? 0 : best.getPriority();
+        return user.getSnapshot().primaryPriority();
     }
 
     public boolean userHasPermanentGroup(UUID uuid, String groupName) {
         if (uuid == null || groupName == null || groupName.isBlank()) return false;
         LegendUser user = users.get(uuid);
-        if (user == null) return false;
-        return user.getGroups().stream().anyMatch(g -> g.equalsIgnoreCase(groupName));
+        LegendGroup legendGroup = groups.get(groupName);
+        if (user == null || legendGroup == null) return false;
+        return user.getMemberships().hasGroup(legendGroup.getId());
     }
 
     public boolean userHasTemporaryGroup(UUID uuid, String groupName) {
         if (uuid == null || groupName == null || groupName.isBlank()) return false;
         LegendUser user = users.get(uuid);
-        if (user == null) return false;
-
-        boolean purged = purgeExpiredTemporaryGroups(user);
-        if (purged) rebuildUser(uuid);
+        LegendGroup legendGroup = groups.get(groupName);
+        if (user == null || legendGroup == null) return false;
 
-        return user.getTemporaryGroups().keySet().stream().anyMatch(g -> g.equalsIgnoreCase(groupName));
+        return user.getMemberships().hasTemporaryGroup(legendGroup.getId());
     }
 
     /**
@@ -657,43 +1462,55 @@ public final class LegendPermissionService implements PermissionResolver {
      * @param groupName The name of the temporary group to be removed from the user.
      */
     public void userRemoveTemporaryGroup(UUID uuid, String groupName) {
-        LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
-        purgeExpiredTemporaryGroups(user);
-
-        Instant removed = user.getTemporaryGroups().remove(groupName);
-        boolean changed = removed != null;
+        writer.run(() -> {
+            LegendUser user = users.computeIfAbsent(uuid, LegendUser::new);
+            LegendGroup legendGroup = groups.get(groupName);
 
-        if (changed) {
-            if (!bulkLoading) rebuildUser(uuid);
+            Instant removed = legendGroup == null ? null
+                    : user.updateMemberships(snapshot -> snapshot.withoutTemporaryGroup(legendGroup.getId()))
+                    .temporaryGroups().get(legendGroup.getId());
+            boolean changed = removed != null;
 
-            if (repository != null) {
-                repository.deleteUserTempGroup(uuid, groupName)
-                        .exceptionally(ex -> {
-                            logger.warning("DB userRemoveTemporaryGroup failed: " + ex);
-                            return null;
-                        });
+            if (changed) {
+                indexMembership(uuid, user);
+                if (!bulkLoading) markDirty(uuid);
+
+                if (repository != null) {
+                    repository.deleteUserTempGroup(uuid, legendGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB userRemoveTemporaryGroup failed: " + ex);
+                                return null;
+                            });
+                }
             }
-        }
 
-        if (user.getGroups().isEmpty() && user.getTemporaryGroups().isEmpty()) {
-            user.getGroups().add(DEFAULT_GROUP_NAME);
-            if (!bulkLoading) rebuildUser(uuid);
-
-            if (repository != null) {
-                repository.addUserGroup(uuid, DEFAULT_GROUP_NAME)
-                        .exceptionally(ex -> {
-                            logger.warning("DB keep default after temp removal failed: " + ex);
-                            return null;
-                        });
+            LegendGroup defaultGroup = defaultGroup();
+            if (user.updateMemberships(snapshot -> snapshot.withGroupIfEmpty(defaultGroup.getId())).hasNoGroups()) {
+                indexMembership(uuid, user);
+                if (!bulkLoading) markDirty(uuid);
+
+                if (repository != null) {
+                    repository.addUserGroup(uuid, defaultGroup.getName())
+                            .exceptionally(ex -> {
+                                logger.warning("DB keep default after temp removal failed: " + ex);
+                                return null;
+                            });
+                }
             }
-        }
 
+        });
     }
 
     /**
      * Determines the permission decision for a specific node associated with the given user's UUID.
      * The method resolves permissions by checking exact node matches, wildcards, and global nodes,
      * in that order. If no applicable permission decision is found, it defaults to NOT_SET.
+     * <p>
+     * The lookup is a single walk over the shared node trie of the {@link PermissionNodeRegistry},
+     * testing the user's compiled allow/deny bits on the way. Personal nodes of the user are tested
+     * before the ones of its groups, users without personal nodes only test their group set. It never mutates
+     * state: expired temporary groups are removed by {@link #expireTemporaryGroups()} only, so this
+     * method is safe to call from any thread.
      *
      * @param uuid the unique identifier of the user whose permission is being checked
      * @param node the permission node to evaluate
@@ -704,81 +1521,280 @@ public final class LegendPermissionService implements PermissionResolver {
     public PermissionDecision decide(UUID uuid, String node) {
         if (uuid == null || node == null || node.isBlank()) return PermissionDecision.NOT_SET;
 
-        LegendUser user = users.get(uuid);
-        if (user != null) {
-            boolean purged = purgeExpiredTemporaryGroups(user);
-            if (purged) rebuildUser(uuid);
-        }
+        // users that are not loaded yet fall back to the default Bukkit handling
+        CompiledPermissions permissions = permissionsOf(uuid);
+        if (permissions == null) return PermissionDecision.NOT_SET;
 
-        Map<String, PermissionDecision> map = effective.get(uuid);
-        if (map == null) {
-            // Ensure a baseline state
-            ensureUserHasDefaultGroup(uuid);
-            map = effective.get(uuid);
-            if (map == null) return PermissionDecision.NOT_SET;
-        }
+        return nodeRegistry.decide(node, permissions);
+    }
 
-        PermissionDecision exact = map.get(node);
-        if (exact != null && exact != PermissionDecision.NOT_SET) return exact;
+    /**
+     * Marks the user for a rebuild on the next {@link #flushDirtyUsers()}. Marking a user several times
+     * before the flush results in a single rebuild. Safe to call from any thread.
+     *
+     * @param uuid the unique identifier of the user
+     */
+    public void markDirty(UUID uuid) {
+        if (uuid != null) dirtyUsers.add(uuid);
+    }
 
-        int index = node.length();
-        while (true) {
-            index = node.lastIndexOf('.', index - 1);
-            if (index < 0) break;
+    private void markPermissionsDirty(UUID uuid) {
+        dirtyPermissions.add(uuid);
+    }
 
-            String wc = node.substring(0, index) + ".*";
-            PermissionDecision d = map.get(wc);
-            if (d != null && d != PermissionDecision.NOT_SET) return d;
+    /**
+     * Rebuilds every user marked dirty since the last flush and refreshes the permissions of users
+     * affected by single node group edits. Called once per tick by the
+     * {@link io.nexstudios.legendperms.perms.rebuild.UserRebuildScheduler}, but can also be called
+     * explicitly when a change has to be visible immediately.
+     * <p>
+     * Must be called from the server main thread.
+     */
+    public void flushDirtyUsers() {
+        if (dirtyUsers.isEmpty() && dirtyPermissions.isEmpty()) return;
+
+        for (Iterator<UUID> it = dirtyUsers.iterator(); it.hasNext(); ) {
+            UUID uuid = it.next();
+            it.remove();
+            rebuildUser(uuid);
         }
 
-        PermissionDecision global = map.get("*");
-        if (global != null && global != PermissionDecision.NOT_SET) return global;
+        for (Iterator<UUID> it = dirtyPermissions.iterator(); it.hasNext(); ) {
+            UUID uuid = it.next();
+            it.remove();
 
-        return PermissionDecision.NOT_SET;
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) refreshPermissions(player);
+        }
+    }
+
+    /**
+     * Forgets the permissions applied to the player, so the next rebuild after a rejoin always
+     * refreshes. Called when the player quits.
+     *
+     * @param uuid the unique identifier of the player
+     */
+    public void clearAppliedPermissions(UUID uuid) {
+        if (uuid != null) appliedPermissions.remove(uuid);
     }
 
     /**
      * Rebuilds the user's permissions, group associations, and other related data structures
-     * based on the specified UUID. This method handles tasks such as purging expired temporary groups,
-     * resolving group priorities, updating effective permissions, and refreshing various
+     * based on the specified UUID. This method handles tasks such as resolving the shared compiled permissions of the user's group set, and refreshing various
      * game-related elements like commands, tablist display, and more.
+     * <p>
+     * Never blocks: the rebuild continues on the writer and the compile workers, only the refresh of the
+     * player runs on the main thread. Can be called from any thread.
      *
      * @param uuid the unique identifier of the user whose data is to be rebuilt
      */
     public void rebuildUser(UUID uuid) {
+        // a full rebuild covers every pending refresh of the user
+        dirtyUsers.remove(uuid);
+        dirtyPermissions.remove(uuid);
+
+        writer.submit(() -> rebuildOnWriter(uuid))
+                .exceptionally(ex -> {
+                    logger.warning("Rebuilding " + uuid + " failed: " + ex);
+                    return null;
+                });
+    }
+
+    private void rebuildOnWriter(UUID uuid) {
+        UserSnapshot snapshot = prepareRebuild(uuid);
+
+        // users with the same groups share one compiled table, only compile if no user holds the signature yet
+        GroupSetSignature signature = signatureOf(uuid, snapshot);
+
+        // a compilation for exactly this group set is already on its way
+        if (signature.equals(pendingSignatures.get(uuid))) return;
+
+        CompiledGroupSet shared = compiledGroupSets.acquireIfPresent(signature);
+        if (shared != null) {
+            pendingSignatures.remove(uuid);
+            publish(uuid, signature, shared);
+            return;
+        }
+
+        long generation = generationOf(signature);
+        pendingSignatures.put(uuid, signature);
+        compileAsync(signature, generation)
+                .thenCompose(compiled -> writer.submit(() -> {
+                    // the groups of the user changed again meanwhile, a newer rebuild takes over
+                    if (!pendingSignatures.remove(uuid, signature)) return;
+
+                    // a group of the set was edited while compiling, the result may miss that edit
+                    if (generation != generationOf(signature)) {
+                        rebuildOnWriter(uuid);
+                        return;
+                    }
+                    publish(uuid, signature, compiledGroupSets.acquire(signature, compiled));
+                }))
+                .exceptionally(ex -> {
+                    pendingSignatures.remove(uuid, signature);
+                    logger.warning("Compiling permissions of " + uuid + " failed: " + ex);
+                    return null;
+                });
+    }
+
+    /**
+     * Stops the compile workers and the writer. Pending compilations are dropped.
+     */
+    public void shutdown() {
+        compileExecutor.shutdownNow();
+        writer.shutdown();
+    }
+
+    /**
+     * Applies the default group fallback to the latest memberships of the user. Runs on the writer.
+     *
+     * @return the snapshot with the memberships the rebuild compiles
+     */
+    private UserSnapshot prepareRebuild(UUID uuid) {
         LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
-        purgeExpiredTemporaryGroups(legendUser);
 
-        if (legendUser.getGroups().isEmpty() && legendUser.getTemporaryGroups().isEmpty()) {
-            legendUser.getGroups().add(DEFAULT_GROUP_NAME);
+        int defaultGroupId = defaultGroup().getId();
+        if (legendUser.updateMemberships(snapshot -> snapshot.withGroupIfEmpty(defaultGroupId)).hasNoGroups()) {
+            indexMembership(uuid, legendUser);
         }
+        return legendUser.getMemberships();
+    }
 
-        Set<String> allGroups = getAllActiveGroupNames(legendUser);
+    /**
+     * Publishes the memberships, the primary group resolved from them and the acquired set with a single
+     * swap, then refreshes the player on the main thread. If the memberships or the world of the user
+     * changed since the set was requested, the set is released and the user is rebuilt again instead.
+     * Runs on the writer.
+     */
+    private void publish(UUID uuid, GroupSetSignature signature, CompiledGroupSet set) {
+        LegendUser legendUser = users.computeIfAbsent(uuid, LegendUser::new);
+        UserSnapshot memberships = legendUser.getMemberships();
+        if (!signatureOf(uuid, memberships).equals(signature)) {
+            compiledGroupSets.release(set);
+            markDirty(uuid);
+            return;
+        }
 
-        List<LegendGroup> resolved = new ArrayList<>();
-        for (String groupName : allGroups) {
-            LegendGroup legendGroup = groups.get(groupName);
-            if (legendGroup != null) resolved.add(legendGroup);
+        LegendGroup primaryGroup = resolvePrimaryGroup(memberships);
+        CompiledGroupSet previous = legendUser.publish(snapshot -> snapshot.withGroupSet(memberships,
+                primaryGroup == null ? UserSnapshot.NO_GROUP : primaryGroup.getId(),
+                primaryGroup == null ? "" : primaryGroup.getPrefix(),
+                primaryGroup == null ? 0 : primaryGroup.getPriority(),
+                set)).compiled();
+        // the set was acquired again if the user already held it
+        compiledGroupSets.release(previous);
+        runOnMainThread(() -> refreshPlayer(uuid));
+    }
+
+    /**
+     * @return the signature of the user's groups, with the user's world as context if any of the groups
+     *         or their ancestors has nodes for it
+     */
+    private GroupSetSignature signatureOf(UUID uuid, UserSnapshot snapshot) {
+        GroupSetSignature signature = GroupSetSignature.of(snapshot.activeGroupIds());
+        String world = activeWorlds.get(uuid);
+        if (world == null) return signature;
+
+        for (int groupId : signature.groupIds()) {
+            for (int lineageId : inheritance.lineage(groupId)) {
+                LegendGroup legendGroup = groups.get(lineageId);
+                if (legendGroup != null && legendGroup.getWorldPermissions().containsKey(world)) {
+                    return signature.withContext(world);
+                }
+            }
         }
+        return signature;
+    }
 
-        resolved.sort(Comparator
-                .comparingInt(LegendGroup::getPriority)
-                .thenComparing(LegendGroup::getName, String.CASE_INSENSITIVE_ORDER));
+    // the number of scheduled expiries including stale ones, package-private so tests can check what a load schedules
+    int pendingExpiries() {
+        return temporaryGroupExpiries.size() + temporaryPermissionExpiries.size();
+    }
 
-        Map<String, PermissionDecision> merged = new HashMap<>();
-        for (LegendGroup legendGroup : resolved) {
-            merged.putAll(legendGroup.getPermissions());
+    // the shared group set the user holds, package-private so tests can compare sets
+    CompiledGroupSet compiledOf(UUID uuid) {
+        LegendUser user = users.get(uuid);
+        return user == null ? null : user.getSnapshot().compiled();
+    }
+
+    private CompiledPermissions permissionsOf(UUID uuid) {
+        LegendUser user = users.get(uuid);
+        return user == null ? null : user.getSnapshot().effectivePermissions();
+    }
+
+    // compiles the personal nodes on the writer and refreshes the user's permissions
+    private void applyUserPermissions(UUID uuid, LegendUser user, Map<String, PermissionDecision> permissions,
+                                      Map<String, Instant> temporaryPermissions) {
+        EffectivePermissions own = EffectivePermissions.compile(permissions, nodeRegistry);
+        user.update(snapshot -> snapshot.withPermissions(permissions, temporaryPermissions, own));
+        if (!bulkLoading) markPermissionsDirty(uuid);
+    }
+
+    /**
+     * Compiles the signature on the worker pool. Concurrent requests for the same signature and
+     * generation share a single compilation.
+     */
+    private CompletableFuture<CompiledPermissions> compileAsync(GroupSetSignature signature, long generation) {
+        PendingCompilation pending = compilations.compute(signature, (key, existing) ->
+                existing != null && existing.generation() == generation
+                        ? existing
+                        : new PendingCompilation(generation, CompletableFuture.supplyAsync(() -> compileGroupSet(key), compileExecutor)));
+        pending.future().whenComplete((compiled, ex) -> compilations.remove(signature, pending));
+        return pending.future();
+    }
+
+    /**
+     * Recompiles a cached set on the worker pool and swaps the result in on the writer. If the set
+     * was patched or recompiled meanwhile, the result is discarded and the set is compiled again.
+     * Afterwards the users holding the set are marked dirty, the next flush refreshes them.
+     */
+    private void recompileAsync(CompiledGroupSet set) {
+        CompiledPermissions expected = set.getPermissions();
+        CompletableFuture.supplyAsync(() -> compileGroupSet(set.getSignature()), compileExecutor)
+                .thenCompose(compiled -> writer.submit(() -> {
+                    if (!compiledGroupSets.publish(set, expected, compiled)) {
+                        recompileAsync(set);
+                        return;
+                    }
+                    markHoldersDirty(set);
+                }))
+                .exceptionally(ex -> {
+                    logger.warning("Recompiling permissions of " + set.getSignature() + " failed: " + ex);
+                    return null;
+                });
+    }
+
+    private void markHoldersDirty(CompiledGroupSet set) {
+        // every holder is a member of each group of the signature, the members of one group are enough
+        int[] groupIds = set.getSignature().groupIds();
+        Collection<UUID> candidates = groupIds.length == 0 ? users.keys() : memberIndex.members(groupIds[0]);
+        for (UUID uuid : candidates) {
+            if (compiledOf(uuid) == set) markDirty(uuid);
         }
+    }
 
-        effective.put(uuid, new ConcurrentHashMap<>(merged));
+    private void runOnMainThread(Runnable task) {
+        LegendPerms plugin = LegendPerms.getInstance();
+        if (plugin == null || !plugin.isEnabled()) return;
 
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * Refreshes the Bukkit-facing state of an online player after their effective permissions or
+     * primary group changed: permissions, the command tree and the tablist entry.
+     *
+     * @param uuid the unique identifier of the player
+     */
+    private void refreshPlayer(UUID uuid) {
         Player player = Bukkit.getPlayer(uuid);
         if (player != null && player.isOnline()) {
-            
-            player.recalculatePermissions();
-            
-            // command refresh
-            player.updateCommands();
+
+            refreshPermissions(player);
 
             // tablist refresh
             try {
@@ -827,77 +1843,307 @@ public final class LegendPermissionService implements PermissionResolver {
      * If the user has multiple active groups, the group with the highest priority is selected.
      * In case of a tie, the group with the lexicographically smallest name is chosen.
      * If the user has no active groups or the input user is null, the method returns null.
+     * <p>
+     * Only called once per rebuild, the result is memoized in the user's snapshot.
      *
-     * @param user the LegendUser object for whom the primary group is to be resolved
+     * @param user the snapshot of the user for whom the primary group is to be resolved
      * @return the LegendGroup object representing the primary group of the user, or null if no eligible group exists
      */
-    private LegendGroup resolvePrimaryGroup(LegendUser user) {
+    private LegendGroup resolvePrimaryGroup(UserSnapshot user) {
         if (user == null) return null;
 
-        Set<String> all = getAllActiveGroupNames(user);
-        if (all.isEmpty()) return null;
-
         LegendGroup best = null;
-        for (String groupName : all) {
-            if (groupName == null) continue;
+        for (int groupId : user.groups()) {
+            best = higherPriority(best, groups.get(groupId));
+        }
+        for (int groupId : user.temporaryGroups().keySet()) {
+            best = higherPriority(best, groups.get(groupId));
+        }
+        return best;
+    }
 
-            LegendGroup legendGroup = groups.get(groupName);
-            if (legendGroup == null) continue;
+    private static LegendGroup higherPriority(LegendGroup best, LegendGroup candidate) {
+        if (candidate == null) return best;
+        if (best == null) return candidate;
 
-            if (best == null) {
-                best = legendGroup;
-                continue;
-            }
+        if (candidate.getPriority() > best.getPriority()) return candidate;
+        if (candidate.getPriority() == best.getPriority()
+                && candidate.getName().compareToIgnoreCase(best.getName()) < 0) {
+            return candidate;
+        }
+        return best;
+    }
+
+    /**
+     * Applies a single node change of a group. Only the node is re-resolved, once per distinct group
+     * set containing the group, and only members whose effective decision for the node actually
+     * changed get their permissions and commands refreshed. Prefix and tablist are not affected.
+     * <p>
+     * Groups inheriting the node from the group are patched the same way, as long as their effective
+     * decision changes. In layered mode only the tables of these groups are patched, every member sees
+     * the change through them.
+     * <p>
+     * A change of a negated node ({@code -node}) re-resolves the node it targets, see {@link NegatedNodes}.
+     */
+    private void applyGroupPermissionDelta(LegendGroup legendGroup, String changedNode) {
+        String node = NegatedNodes.target(changedNode);
+        // the group and every group inheriting the changed decision
+        List<Integer> changedGroups = inheritance.patch(legendGroup.getId(), node);
+        bumpGenerations(changedGroups);
+        if (bulkLoading) return;
 
-            if (legendGroup.getPriority() > best.getPriority()) {
-                best = legendGroup;
-                continue;
+        int id = nodeRegistry.intern(node);
+        if (evaluationMode == EvaluationMode.LAYERED) {
+            for (int groupId : changedGroups) {
+                LegendGroup changedGroup = groups.get(groupId);
+                if (changedGroup == null) continue;
+
+                PermissionDecision decision = NegatedNodes.lookup(inheritance.permissions(changedGroup), node);
+                // serialized with the creation of the table, so a table compiled concurrently never misses the edit
+                GroupPermissionTable table = groupTables.computeIfPresent(groupId, (key, existing) -> {
+                    existing.patch(id, decision == null ? PermissionDecision.NOT_SET : decision, nodeRegistry);
+                    return existing;
+                });
+                if (table == null) continue;
+
+                for (UUID uuid : memberIndex.members(groupId)) {
+                    markPermissionsDirty(uuid);
+                }
             }
+            return;
+        }
+
+        Set<CompiledGroupSet> changedSets = new HashSet<>();
+        for (int groupId : changedGroups) {
+            changedSets.addAll(compiledGroupSets.patchContaining(groupId, id,
+                    signature -> resolveGroupSetDecision(signature, node), nodeRegistry));
+        }
+        if (changedSets.isEmpty()) return;
 
-            if (legendGroup.getPriority() == best.getPriority()
-                    && legendGroup.getName().compareToIgnoreCase(best.getName()) < 0) {
-                best = legendGroup;
+        for (int groupId : changedGroups) {
+            for (UUID uuid : memberIndex.members(groupId)) {
+                if (!changedSets.contains(compiledOf(uuid))) continue;
+                markPermissionsDirty(uuid);
             }
         }
+    }
 
-        return best;
+    /**
+     * Reflattens the group and the groups inheriting from it after its parents changed, and recompiles
+     * the group sets containing any of them.
+     */
+    private void applyInheritanceChange(LegendGroup legendGroup) {
+        List<Integer> reflattened = inheritance.reflatten(List.of(legendGroup.getId()));
+        // layered tables hold the flattened permissions, they are compiled again on demand
+        reflattened.forEach(groupTables::remove);
+        rebuildAllUsersWithGroups(reflattened);
     }
 
-    private void rebuildAllUsersWithGroup(String groupName) {
+    /**
+     * Recompiles the group sets of the world that contain the group or a group inheriting from it, and
+     * rebuilds the members in that world, whose signature may gain or lose the world as context.
+     */
+    private void applyWorldPermissionChange(LegendGroup legendGroup, String world) {
+        // world nodes are resolved through the lineage, every descendant sees the change
+        List<Integer> affected = inheritance.descendants(legendGroup.getId());
+        bumpGenerations(affected);
         if (bulkLoading) return;
 
-        for (Map.Entry<UUID, LegendUser> entry : users.entrySet()) {
-            LegendUser legendUser = entry.getValue();
+        Set<CompiledGroupSet> sets = new LinkedHashSet<>();
+        Set<UUID> members = new HashSet<>();
+        for (int groupId : affected) {
+            for (CompiledGroupSet set : compiledGroupSets.containing(groupId)) {
+                if (world.equals(set.getSignature().context())) sets.add(set);
+            }
+            members.addAll(memberIndex.members(groupId));
+        }
+        sets.forEach(this::recompileAsync);
 
-            boolean inPermanent = legendUser.getGroups().stream().anyMatch(g ->
-                    g != null && g.equalsIgnoreCase(groupName));
-            boolean inTemp = legendUser.getTemporaryGroups().keySet().stream().anyMatch(g ->
-                    g != null && g.equalsIgnoreCase(groupName));
+        for (UUID uuid : members) {
+            if (world.equals(activeWorlds.get(uuid))) markDirty(uuid);
+        }
+    }
 
-            // check if the group is in either permanent or temporary groups
-            if (inPermanent || inTemp) {
-                rebuildUser(entry.getKey());
+    /**
+     * Applies the current effective permissions of the player on the Bukkit side. Nothing is done if
+     * they are identical to the ones applied last time, and the command tree is only resent if a node
+     * that gates a command changed.
+     * <p>
+     * Layered permissions and personal overlays change in place when a group is patched, so the tables
+     * they consist of (the layers, the personal nodes and the group set) are compared with the ones
+     * captured last time.
+     */
+    private void refreshPermissions(Player player) {
+        UUID uuid = player.getUniqueId();
+        CompiledPermissions current = permissionsOf(uuid);
+        if (current == null) current = EffectivePermissions.EMPTY;
+
+        AppliedPermissions applied = AppliedPermissions.of(current);
+        AppliedPermissions previous = appliedPermissions.put(uuid, applied);
+        if (applied.sameAs(previous)) return;
+
+        player.recalculatePermissions();
+
+        // command refresh
+        if (applied.anyChanged(previous, id -> commandGatingNodes.gates(nodeRegistry.node(id)))) {
+            player.updateCommands();
+        }
+    }
+
+    private void rebuildAllUsersWithGroups(Collection<Integer> groupIds) {
+        bumpGenerations(groupIds);
+        if (bulkLoading || groupIds.isEmpty()) return;
+
+        // recompile once per distinct group set off the main thread, holders are marked dirty once it is swapped in
+        Set<CompiledGroupSet> sets = new LinkedHashSet<>();
+        for (int groupId : groupIds) {
+            sets.addAll(compiledGroupSets.containing(groupId));
+        }
+        sets.forEach(this::recompileAsync);
+    }
+
+    /**
+     * Merges the permissions of all groups of the signature by priority (higher priority wins)
+     * and compiles them. Each group contributes its flattened permissions, including the inherited ones.
+     * In layered mode the shared tables of the groups are only ordered by priority instead.
+     * If the signature has a world as context, the world nodes of the groups are laid on top.
+     * Runs on the compile workers, only reads the concurrent group maps.
+     */
+    private CompiledPermissions compileGroupSet(GroupSetSignature signature) {
+        List<LegendGroup> byPriority = resolveGroupsByPriority(signature);
+        Map<String, PermissionDecision> worldNodes = resolveWorldPermissions(byPriority, signature.context());
+
+        if (evaluationMode == EvaluationMode.LAYERED) {
+            List<GroupPermissionTable> layers = new ArrayList<>(byPriority.size() + 1);
+            // the world nodes of the set override every group, they are only used by sets of this world
+            if (!worldNodes.isEmpty()) {
+                layers.add(new GroupPermissionTable(EffectivePermissions.compile(worldNodes, nodeRegistry)));
+            }
+            // highest priority first, the first layer that sets a node wins
+            for (int i = byPriority.size() - 1; i >= 0; i--) {
+                LegendGroup legendGroup = byPriority.get(i);
+                layers.add(groupTables.computeIfAbsent(legendGroup.getId(),
+                        key -> new GroupPermissionTable(EffectivePermissions.compile(inheritance.permissions(legendGroup), nodeRegistry))));
             }
+            return new LayeredPermissions(layers);
+        }
+
+        Map<String, PermissionDecision> merged = new HashMap<>();
+        for (LegendGroup legendGroup : byPriority) {
+            NegatedNodes.mergeInto(merged, inheritance.permissions(legendGroup));
+        }
+        merged.putAll(worldNodes);
+
+        return EffectivePermissions.compile(merged, nodeRegistry);
+    }
+
+    /**
+     * Merges the world nodes of the groups and their ancestors by priority, empty without a context.
+     */
+    private Map<String, PermissionDecision> resolveWorldPermissions(List<LegendGroup> byPriority, String world) {
+        if (world == null) return Map.of();
+
+        Map<String, PermissionDecision> merged = new HashMap<>();
+        for (LegendGroup legendGroup : byPriority) {
+            for (int lineageId : inheritance.lineage(legendGroup.getId())) {
+                LegendGroup member = groups.get(lineageId);
+                Map<String, PermissionDecision> worldNodes = member == null ? null : member.getWorldPermissions().get(world);
+                if (worldNodes != null) NegatedNodes.mergeInto(merged, worldNodes);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Resolves the decision a single node has in the merged permissions of the signature,
+     * i.e. the decision of the highest priority group that sets the node.
+     */
+    private PermissionDecision resolveGroupSetDecision(GroupSetSignature signature, String node) {
+        List<LegendGroup> byPriority = resolveGroupsByPriority(signature);
+        // world nodes override the global ones
+        PermissionDecision worldDecision = resolveWorldPermissions(byPriority, signature.context()).get(node);
+        if (worldDecision != null) return worldDecision;
+
+        PermissionDecision decision = PermissionDecision.NOT_SET;
+        for (LegendGroup legendGroup : byPriority) {
+            PermissionDecision groupDecision = NegatedNodes.lookup(inheritance.permissions(legendGroup), node);
+            if (groupDecision != null) decision = groupDecision;
+        }
+        return decision;
+    }
+
+    // ascending by priority, so later groups override earlier ones when merged
+    private List<LegendGroup> resolveGroupsByPriority(GroupSetSignature signature) {
+        List<LegendGroup> resolved = new ArrayList<>();
+        for (int groupId : signature.groupIds()) {
+            LegendGroup legendGroup = groups.get(groupId);
+            if (legendGroup != null) resolved.add(legendGroup);
+        }
+
+        resolved.sort(Comparator
+                .comparingInt(LegendGroup::getPriority)
+                .thenComparing(LegendGroup::getName, String.CASE_INSENSITIVE_ORDER));
+        return resolved;
+    }
+
+    private record PendingCompilation(long generation, CompletableFuture<CompiledPermissions> future) { }
+
+    private void bumpGenerations(Collection<Integer> groupIds) {
+        for (int groupId : groupIds) {
+            groupGenerations.merge(groupId, 1L, Long::sum);
         }
     }
 
+    /**
+     * @return a stamp that changes whenever one of the signature's groups is edited, generations only
+     *         grow, so the sum of them changes with any of them
+     */
+    private long generationOf(GroupSetSignature signature) {
+        long generation = globalGeneration.get();
+        for (int groupId : signature.groupIds()) {
+            generation += groupGenerations.getOrDefault(groupId, 0L);
+        }
+        return generation;
+    }
+
     private LegendGroup requireGroup(String groupName) {
         LegendGroup legendGroup = groups.get(groupName);
         if (legendGroup == null) throw new IllegalArgumentException("Group not found: " + groupName);
         return legendGroup;
     }
 
-    private static Set<String> getAllActiveGroupNames(LegendUser user) {
-        Set<String> out = new HashSet<>(user.getGroups());
-        out.addAll(user.getTemporaryGroups().keySet());
-        return out;
+    // the default group always exists, it cannot be deleted
+    private LegendGroup defaultGroup() {
+        return groups.register(DEFAULT_GROUP_NAME);
     }
 
-    private static boolean purgeExpiredTemporaryGroups(LegendUser user) {
-        Instant now = Instant.now();
-        return user.getTemporaryGroups().entrySet().removeIf(e -> {
-            Instant expiresAt = e.getValue();
-            return expiresAt == null || !expiresAt.isAfter(now);
-        });
+    private void indexMembership(UUID uuid, LegendUser user) {
+        memberIndex.update(uuid, user.getMemberships().activeGroupIds());
+    }
+
+    private void scheduleExpiry(UUID uuid, int groupId, Instant expiresAt) {
+        temporaryGroupExpiries.schedule(new TemporaryGroupExpiry(uuid, groupId, expiresAt), expiresAt.toEpochMilli());
+    }
+
+    private void scheduleExpiry(TemporaryPermissionExpiry expiry) {
+        temporaryPermissionExpiries.schedule(expiry, expiry.expiresAt().toEpochMilli());
+    }
+
+    // millisecond precision like the stored deadlines, so a loaded deadline equals the one it was set with
+    private static Instant deadlineAfter(Duration duration) {
+        return Instant.now().plus(duration).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static void requireTemporary(PermissionDecision decision, Duration duration) {
+        if (decision == null || decision == PermissionDecision.NOT_SET) {
+            throw new IllegalArgumentException("Decision must be ALLOW or DENY");
+        }
+        if (duration == null || duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must be > 0");
+        }
+    }
+
+    private static long toEpochMillis(Object raw) {
+        return (raw instanceof Number n) ? n.longValue() : Long.parseLong(raw.toString());
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package io.nexstudios.legendperms.perms;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Single writer thread of the {@link LegendPermissionService}.
+ * <p>
+ * Every mutation of groups and users is funnelled through this executor, so mutations coming from
+ * commands, database completion threads and the main thread are applied one after another in
+ * submission order. Reads never go through the writer, they stay lock-free on the published snapshots.
+ * <p>
+ * Synchronous calls block until the mutation has been applied, they are meant for API callers off the
+ * server main thread. The main thread only ever submits and continues once the future completes.
+ * Calls made from the writer thread itself run inline, so mutations may call each other without
+ * deadlocking. The writer must never wait for the server main thread. After {@link #shutdown()}
+ * mutations run on the calling thread.
+ */
+public final class MutationExecutor {
+
+    private volatile Thread writerThread;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "legendperms-writer");
+        thread.setDaemon(true);
+        this.writerThread = thread;
+        return thread;
+    });
+
+    /**
+     * Applies the mutation on the writer thread and waits for its result.
+     * Exceptions thrown by the mutation are rethrown unchanged.
+     *
+     * @param mutation the mutation to apply
+     * @return the result of the mutation
+     */
+    public <T> T call(Supplier<T> mutation) {
+        if (Thread.currentThread() == writerThread || executor.isShutdown()) return mutation.get();
+
+        try {
+            return executor.submit(mutation::get).get();
+        } catch (RejectedExecutionException ex) {
+            return mutation.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a mutation", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Applies the mutation on the writer thread and waits until it has been applied.
+     */
+    public void run(Runnable mutation) {
+        call(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Queues the mutation on the writer thread without waiting, e.g. from database completion threads
+     * or the server main thread.
+     *
+     * @return a future completed with the result of the mutation, or with the exception it threw
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> mutation) {
+        if (Thread.currentThread() == writerThread || executor.isShutdown()) {
+            return applyInline(mutation);
+        }
+        try {
+            return CompletableFuture.supplyAsync(mutation, executor);
+        } catch (RejectedExecutionException ex) {
+            return applyInline(mutation);
+        }
+    }
+
+    /**
+     * Queues the mutation on the writer thread without waiting.
+     *
+     * @return a future completed once the mutation has been applied
+     */
+    public CompletableFuture<Void> submit(Runnable mutation) {
+        return submit(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> applyInline(Supplier<T> mutation) {
+        try {
+            return CompletableFuture.completedFuture(mutation.get());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
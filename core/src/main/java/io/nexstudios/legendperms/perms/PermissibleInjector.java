@@ -6,9 +6,6 @@ import org.bukkit.entity.Player;
 
 import java.lang.reflect.Field;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Responsible for managing the injection and restoration of custom permissible objects
@@ -32,7 +29,7 @@ public final class PermissibleInjector {
     private volatile Field permField;
 
     // Stores original permissible
-    private final Map<UUID, Object> originalPermissible = new ConcurrentHashMap<>();
+    private final UuidMap<Object> originalPermissible = new UuidMap<>();
 
     @Getter
     private volatile boolean injectionEnabled = true;
@@ -0,0 +1,209 @@
+package io.nexstudios.legendperms.perms;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Concurrent map from player {@link UUID}s to values, used for the per-player lookups on the hot path.
+ * <p>
+ * Keys are stored as their two {@code long} halves in a flat array with open addressing (linear
+ * probing), so an entry costs no node object and a lookup neither allocates nor calls
+ * {@link UUID#hashCode()} or {@link UUID#equals(Object)}.
+ * <p>
+ * Lookups are lock-free, writes are synchronized. A slot is assigned to a key once per table: its key
+ * is written before its value is published, and removing an entry only replaces the value with a
+ * tombstone. Readers therefore never see a key with the value of another key. Tombstones are dropped
+ * when the table is rebuilt, which also happens when it gets too full. A rebuilt table is published
+ * as a whole.
+ * <p>
+ * Null values are not supported.
+ *
+ * @param <V> the type of the values
+ */
+public final class UuidMap<V> {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+
+    /**
+     * @return the value of the key, or null if there is none
+     */
+    public V get(UUID uuid) {
+        return get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * @param mostSignificantBits the most significant bits of the key
+     * @param leastSignificantBits the least significant bits of the key
+     * @return the value of the key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long mostSignificantBits, long leastSignificantBits) {
+        Table current = table;
+        long[] keys = current.keys;
+        Object[] values = current.values;
+        int mask = current.mask;
+
+        for (int slot = hash(mostSignificantBits, leastSignificantBits) & mask; ; slot = (slot + 1) & mask) {
+            // the acquire makes the key of the slot visible, it is written before the value
+            Object value = VALUES.getAcquire(values, slot);
+            if (value == null) return null;
+            if (keys[slot << 1] == mostSignificantBits && keys[(slot << 1) + 1] == leastSignificantBits) {
+                return value == TOMBSTONE ? null : (V) value;
+            }
+        }
+    }
+
+    /**
+     * @return the previous value of the key, or null if there was none
+     */
+    public synchronized V put(UUID uuid, V value) {
+        Objects.requireNonNull(value, "value");
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+
+        Table current = table;
+        int slot = find(current, most, least);
+        Object previous = current.values[slot];
+        if (previous == null) {
+            // a new slot is needed, keep at least half of the table free so every probe ends quickly
+            if ((current.used + 1) * 2 > current.values.length) {
+                current = rebuild(size + 1);
+                slot = find(current, most, least);
+            }
+            current.keys[slot << 1] = most;
+            current.keys[(slot << 1) + 1] = least;
+            current.used++;
+        }
+
+        VALUES.setRelease(current.values, slot, value);
+        if (previous == null || previous == TOMBSTONE) {
+            size++;
+            return null;
+        }
+        return unwrap(previous);
+    }
+
+    /**
+     * Returns the value of the key, computing and storing it first if there is none. The function is
+     * called at most once, while holding the write lock.
+     */
+    public V computeIfAbsent(UUID uuid, Function<UUID, ? extends V> function) {
+        V existing = get(uuid);
+        if (existing != null) return existing;
+
+        synchronized (this) {
+            existing = get(uuid);
+            if (existing != null) return existing;
+
+            V created = function.apply(uuid);
+            if (created != null) put(uuid, created);
+            return created;
+        }
+    }
+
+    /**
+     * @return the removed value, or null if there was none
+     */
+    public synchronized V remove(UUID uuid) {
+        Table current = table;
+        int slot = find(current, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        Object previous = current.values[slot];
+        if (previous == null || previous == TOMBSTONE) return null;
+
+        VALUES.setRelease(current.values, slot, TOMBSTONE);
+        size--;
+        return unwrap(previous);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a snapshot of all keys
+     */
+    public List<UUID> keys() {
+        List<UUID> out = new ArrayList<>(size);
+        forEach((uuid, value) -> out.add(uuid));
+        return out;
+    }
+
+    /**
+     * Visits every entry of the current table. Entries added or removed concurrently may or may not be visited.
+     */
+    public void forEach(BiConsumer<UUID, ? super V> action) {
+        Table current = table;
+        for (int slot = 0; slot < current.values.length; slot++) {
+            Object value = VALUES.getAcquire(current.values, slot);
+            if (value == null || value == TOMBSTONE) continue;
+            action.accept(new UUID(current.keys[slot << 1], current.keys[(slot << 1) + 1]), unwrap(value));
+        }
+    }
+
+    // the slot holding the key, or the free slot that ends its probe sequence
+    private static int find(Table table, long most, long least) {
+        int mask = table.mask;
+        for (int slot = hash(most, least) & mask; ; slot = (slot + 1) & mask) {
+            if (table.values[slot] == null) return slot;
+            if (table.keys[slot << 1] == most && table.keys[(slot << 1) + 1] == least) return slot;
+        }
+    }
+
+    // copies the live entries into a new table sized for the expected number of entries, drops tombstones
+    private Table rebuild(int expectedSize) {
+        Table current = table;
+        Table next = new Table(Math.max(MIN_CAPACITY, Integer.highestOneBit(expectedSize * 4)));
+
+        for (int slot = 0; slot < current.values.length; slot++) {
+            Object value = current.values[slot];
+            if (value == null || value == TOMBSTONE) continue;
+
+            long most = current.keys[slot << 1];
+            long least = current.keys[(slot << 1) + 1];
+            int target = find(next, most, least);
+            next.keys[target << 1] = most;
+            next.keys[(target << 1) + 1] = least;
+            next.values[target] = value;
+            next.used++;
+        }
+
+        // published as a whole, the volatile write makes all slots of the new table visible
+        this.table = next;
+        return next;
+    }
+
+    private static int hash(long most, long least) {
+        long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unwrap(Object value) {
+        return (V) value;
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        // occupied slots including tombstones, guarded by the owning map
+        private int used;
+
+        private Table(int capacity) {
+            this.keys = new long[capacity * 2];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The immutable tables compiled permissions answered checks from at one point in time, in the order
+ * they are consulted. {@link LayeredPermissions} change in place when a group table is patched, and a
+ * {@link UserOverlayPermissions} when its group set is patched or recompiled, so the tables are captured
+ * when the permissions of a player are applied, and compared on the next refresh.
+ */
+public final class AppliedPermissions {
+
+    // null if the permissions cannot be captured, they are always treated as changed
+    private final EffectivePermissions[] tables;
+
+    private AppliedPermissions(EffectivePermissions[] tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Captures the tables the permissions currently consist of.
+     */
+    public static AppliedPermissions of(CompiledPermissions permissions) {
+        return new AppliedPermissions(tables(permissions));
+    }
+
+    private static EffectivePermissions[] tables(CompiledPermissions permissions) {
+        if (permissions instanceof EffectivePermissions table) return new EffectivePermissions[]{table};
+        if (permissions instanceof LayeredPermissions layered) return layered.tables();
+        if (permissions instanceof UserOverlayPermissions overlay) {
+            EffectivePermissions[] groups = tables(overlay.groupPermissions());
+            if (groups == null) return null;
+
+            // the personal nodes are consulted before the group set
+            EffectivePermissions[] out = new EffectivePermissions[groups.length + 1];
+            out[0] = overlay.getOwn();
+            System.arraycopy(groups, 0, out, 1, groups.length);
+            return out;
+        }
+        return null;
+    }
+
+    /**
+     * @param previous the tables applied before, null if there are none
+     * @return true if every table holds the same decisions as the previous one at the same position
+     */
+    public boolean sameAs(AppliedPermissions previous) {
+        return previous != null && tables != null && previous.tables != null && Arrays.equals(tables, previous.tables);
+    }
+
+    /**
+     * Compares the tables position by position. The first table setting a node decides it, so a node whose
+     * decision is the same in every pair of tables keeps its effective decision.
+     *
+     * @param previous the tables applied before, null if there are none
+     * @param test selects the node ids of interest
+     * @return true if the decision of a node id matching the test may have changed
+     */
+    public boolean anyChanged(AppliedPermissions previous, IntPredicate test) {
+        if (previous == null || tables == null || previous.tables == null || tables.length != previous.tables.length) return true;
+
+        for (int i = 0; i < tables.length; i++) {
+            if (tables[i] != previous.tables[i] && previous.tables[i].anyChanged(tables[i], test)) return true;
+        }
+        return false;
+    }
+}
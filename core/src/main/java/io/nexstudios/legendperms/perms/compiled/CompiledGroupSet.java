@@ -0,0 +1,30 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import lombok.Getter;
+
+/**
+ * Shared, reference counted holder of the compiled permissions for one {@link GroupSetSignature}.
+ * <p>
+ * Every user with the same signature references the same instance. When a group of the signature
+ * changes, the permissions are recompiled once and swapped in place, so all members see the new
+ * table without being touched individually.
+ */
+public final class CompiledGroupSet {
+
+    @Getter
+    private final GroupSetSignature signature;
+    @Getter
+    private volatile CompiledPermissions permissions;
+
+    // guarded by the owning CompiledGroupSetCache
+    int references;
+
+    CompiledGroupSet(GroupSetSignature signature, CompiledPermissions permissions) {
+        this.signature = signature;
+        this.permissions = permissions;
+    }
+
+    void setPermissions(CompiledPermissions permissions) {
+        this.permissions = permissions;
+    }
+}
@@ -0,0 +1,130 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Deduplicates compiled permissions by {@link GroupSetSignature}.
+ * <p>
+ * Users acquire the {@link CompiledGroupSet} of their signature and release it when their groups
+ * change. A set is created when its first user acquires it and dropped when the last one releases
+ * it, so 500 users in the Default group share a single table. After a group edit only the distinct
+ * signatures containing that group are recompiled, instead of every member.
+ * <p>
+ * The cache does not compile on its own. Compilation happens outside of it (on a worker thread),
+ * the results are handed in by {@link #acquire(GroupSetSignature, CompiledPermissions)} and
+ * {@link #publish(CompiledGroupSet, CompiledPermissions, CompiledPermissions)}.
+ * <p>
+ * All methods are synchronized.
+ */
+public final class CompiledGroupSetCache {
+
+    private final Map<GroupSetSignature, CompiledGroupSet> sets = new HashMap<>();
+
+    /**
+     * Returns the shared set for the signature and increments its reference count, if it is cached.
+     *
+     * @return the cached set, or null if no user holds the signature yet
+     */
+    public synchronized CompiledGroupSet acquireIfPresent(GroupSetSignature signature) {
+        CompiledGroupSet set = sets.get(signature);
+        if (set != null) set.references++;
+        return set;
+    }
+
+    /**
+     * Returns the shared set for the signature and increments its reference count. If it is not
+     * cached yet, it is created with the given compiled permissions.
+     */
+    public synchronized CompiledGroupSet acquire(GroupSetSignature signature, CompiledPermissions compiled) {
+        CompiledGroupSet set = sets.get(signature);
+        if (set == null) {
+            set = new CompiledGroupSet(signature, compiled);
+            sets.put(signature, set);
+        }
+        set.references++;
+        return set;
+    }
+
+    /**
+     * Decrements the reference count of the set and drops it once it is no longer referenced.
+     */
+    public synchronized void release(CompiledGroupSet set) {
+        if (set == null) return;
+        if (--set.references > 0) return;
+        sets.remove(set.getSignature(), set);
+    }
+
+    /**
+     * @param groupId the id of a group
+     * @return a snapshot of the cached sets whose signature contains the group
+     */
+    public synchronized List<CompiledGroupSet> containing(int groupId) {
+        List<CompiledGroupSet> out = new ArrayList<>();
+        for (CompiledGroupSet set : sets.values()) {
+            if (set.getSignature().contains(groupId)) out.add(set);
+        }
+        return out;
+    }
+
+    /**
+     * @return a snapshot of all cached sets
+     */
+    public synchronized List<CompiledGroupSet> all() {
+        return new ArrayList<>(sets.values());
+    }
+
+    /**
+     * Swaps in recompiled permissions, but only if the set still holds the permissions the compilation
+     * started from. Otherwise the set was patched or recompiled meanwhile and the result is outdated.
+     *
+     * @param set the set to update
+     * @param expected the permissions the set held when the compilation started
+     * @param compiled the recompiled permissions
+     * @return true if the permissions were swapped
+     */
+    public synchronized boolean publish(CompiledGroupSet set, CompiledPermissions expected, CompiledPermissions compiled) {
+        if (set.getPermissions() != expected) return false;
+        set.setPermissions(compiled);
+        return true;
+    }
+
+    /**
+     * Patches a single node id in every cached set whose signature contains the given group. The
+     * resolver returns the decision the node has in the merged permissions of a signature; sets whose
+     * current decision already matches are left untouched. Layered sets are skipped, they reference
+     * the group's own table and are patched through it.
+     *
+     * @param groupId the id of the changed group
+     * @param id the id of the changed node
+     * @param resolver resolves the new decision of the node for a signature
+     * @param registry the registry the node id was interned in
+     * @return the sets whose decision for the node actually changed
+     */
+    public synchronized List<CompiledGroupSet> patchContaining(int groupId, int id,
+                                                            Function<GroupSetSignature, PermissionDecision> resolver,
+                                                            PermissionNodeRegistry registry) {
+        List<CompiledGroupSet> changed = new ArrayList<>();
+        for (CompiledGroupSet set : sets.values()) {
+            if (!set.getSignature().contains(groupId)) continue;
+
+            if (!(set.getPermissions() instanceof EffectivePermissions current)) continue;
+            PermissionDecision decision = resolver.apply(set.getSignature());
+            if (decision == null) decision = PermissionDecision.NOT_SET;
+            if (current.decision(id) == decision) continue;
+
+            set.setPermissions(current.with(id, decision, registry));
+            changed.add(set);
+        }
+        return changed;
+    }
+
+    public synchronized int size() {
+        return sets.size();
+    }
+}
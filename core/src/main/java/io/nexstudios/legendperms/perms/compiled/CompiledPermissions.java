@@ -0,0 +1,48 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+import java.util.Map;
+
+/**
+ * Compiled permissions of a group set, resolved by node id.
+ * <p>
+ * Implemented by {@link EffectivePermissions} (one merged table per group set) and
+ * {@link LayeredPermissions} (the shared tables of the groups, consulted by priority).
+ * See {@link EvaluationMode}. {@link UserOverlayPermissions} lays the personal nodes of a user over either.
+ */
+public interface CompiledPermissions {
+
+    /**
+     * @param id a node id, negative ids are treated as unknown
+     * @return the decision stored for the id, {@link PermissionDecision#NOT_SET} if there is none
+     */
+    PermissionDecision decision(int id);
+
+    /**
+     * Negative fast path for permission checks. False positives are possible, false negatives are not.
+     * Only the first segment of the node is filtered, see {@link ParsedNode#rootHash(String)}.
+     *
+     * @param rootHash the hash of the first segment of the checked node
+     * @return false if no node or wildcard of these permissions can match a node with that first segment
+     */
+    boolean mightMatchRoot(int rootHash);
+
+    /**
+     * @param node the checked permission node
+     * @return false if no node or wildcard of these permissions can match the node
+     * @see #mightMatchRoot(int)
+     */
+    default boolean mightMatch(ParsedNode node) {
+        return mightMatchRoot(node.rootHash);
+    }
+
+    /**
+     * Reconstructs the node to decision map of these permissions.
+     * Only meant for inspection (e.g. commands), never for permission checks.
+     *
+     * @param registry the registry the permissions were compiled with
+     * @return a new mutable map with all compiled nodes
+     */
+    Map<String, PermissionDecision> toMap(PermissionNodeRegistry registry);
+}
@@ -0,0 +1,386 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable effective permissions of a user, stored by the node ids of a {@link PermissionNodeRegistry}.
+ * <p>
+ * Holders with many nodes use a pair of allow/deny bitsets sized by the highest id they hold, so a
+ * lookup of an id is a single array access. Holders whose few nodes are spread over a large id range
+ * (e.g. a personal overlay with a single node) store their ids sorted in one {@code int[]} instead,
+ * one word per node, and are looked up by binary search. See {@link #isSparse()}.
+ * <p>
+ * The permissions also carry a Bloom filter over the first segment of every node they set
+ * (e.g. {@code essentials} for {@code essentials.fly} and {@code essentials.*}). Every node and
+ * wildcard that can match a checked node shares its first segment, so a checked node whose first
+ * segment misses the filter is a definite {@link PermissionDecision#NOT_SET} without walking the trie.
+ * The filter is sized from the number of distinct first segments when the permissions are compiled,
+ * so it keeps a false positive rate of about 2% for a handful of plugins as well as for hundreds.
+ * The global wildcard and glob patterns without a literal first segment (e.g. {@code *.fly}) can match
+ * any node and disable the filter.
+ */
+public final class EffectivePermissions implements CompiledPermissions {
+
+    // about ten bits and three probes per distinct first segment
+    private static final int FILTER_BITS_PER_ROOT = 10;
+    private static final int FILTER_PROBES = 3;
+    private static final String GLOBAL_WILDCARD = "*";
+
+    private static final long[] NO_BITS = new long[0];
+
+    public static final EffectivePermissions EMPTY = new EffectivePermissions(NO_BITS, NO_BITS, null, new long[1], false);
+
+    // dense: allow/deny bits indexed by id, empty if sparse
+    private final long[] allow;
+    private final long[] deny;
+    // sparse: sorted entries of (id << 1 | 1 if denied), null if dense
+    private final int[] entries;
+    // content hash over the set ids, so equal tables compare equal regardless of their size or layout
+    private final long fingerprint;
+    // first segments of the set nodes, only ever grows until the next full compile
+    private final long[] rootFilter;
+    // a node without a literal first segment is set, every node may match
+    private final boolean global;
+
+    private EffectivePermissions(long[] allow, long[] deny, int[] entries, long[] rootFilter, boolean global) {
+        this.allow = allow;
+        this.deny = deny;
+        this.entries = entries;
+        this.fingerprint = entries != null ? fingerprint(entries) : fingerprint(allow, deny);
+        this.rootFilter = rootFilter;
+        this.global = global;
+    }
+
+    /**
+     * Compiles the given merged permission map. Every node is interned in the registry. Entries with a
+     * {@code null} or {@link PermissionDecision#NOT_SET} decision are skipped, because they never
+     * influence the outcome of a lookup. Negated nodes are resolved first, see {@link NegatedNodes}.
+     *
+     * @param permissions the merged node to decision map of a user
+     * @param registry the registry used to intern the nodes
+     * @return the compiled permissions, never null
+     */
+    public static EffectivePermissions compile(Map<String, PermissionDecision> permissions, PermissionNodeRegistry registry) {
+        if (permissions == null || permissions.isEmpty()) return EMPTY;
+        if (NegatedNodes.anyNegated(permissions)) {
+            Map<String, PermissionDecision> resolved = new HashMap<>();
+            NegatedNodes.mergeInto(resolved, permissions);
+            permissions = resolved;
+        }
+
+        int[] entries = new int[permissions.size()];
+        int count = 0;
+        int[] roots = new int[permissions.size()];
+        int rootCount = 0;
+        boolean global = false;
+
+        for (Map.Entry<String, PermissionDecision> entry : permissions.entrySet()) {
+            String node = entry.getKey();
+            PermissionDecision decision = entry.getValue();
+            if (node == null || node.isEmpty() || decision == null || decision == PermissionDecision.NOT_SET) continue;
+
+            entries[count++] = entry(registry.intern(node), decision);
+
+            if (unfiltered(node)) {
+                global = true;
+            } else {
+                roots[rootCount++] = ParsedNode.rootHash(node);
+            }
+        }
+        if (count == 0) return EMPTY;
+
+        Arrays.sort(entries, 0, count);
+        return create(entries, count, rootFilter(roots, rootCount), global);
+    }
+
+    /**
+     * @return true if the ids are stored sorted instead of as bitsets, because the bitsets would cost
+     *         more than a few words per node
+     */
+    public boolean isSparse() {
+        return entries != null;
+    }
+
+    @Override
+    public PermissionDecision decision(int id) {
+        if (id < 0) return PermissionDecision.NOT_SET;
+
+        if (entries != null) {
+            int index = Arrays.binarySearch(entries, id << 1);
+            if (index >= 0) return PermissionDecision.ALLOW;
+            index = -index - 1;
+            return index < entries.length && entries[index] == ((id << 1) | 1)
+                    ? PermissionDecision.DENY
+                    : PermissionDecision.NOT_SET;
+        }
+
+        int word = id >>> 6;
+        if (word >= allow.length) return PermissionDecision.NOT_SET;
+
+        long bit = 1L << id;
+        if ((allow[word] & bit) != 0) return PermissionDecision.ALLOW;
+        if ((deny[word] & bit) != 0) return PermissionDecision.DENY;
+        return PermissionDecision.NOT_SET;
+    }
+
+    @Override
+    public boolean mightMatchRoot(int hash) {
+        if (global) return true;
+
+        int mask = (rootFilter.length << 6) - 1;
+        int step = probeStep(hash);
+        for (int probe = 0; probe < FILTER_PROBES; probe++) {
+            int bit = (hash + probe * step) & mask;
+            if ((rootFilter[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a copy of these permissions in which only the given id is changed. Used to patch a single
+     * node after a group edit without recompiling every node of the group set.
+     *
+     * @param id a node id
+     * @param decision the new decision, {@link PermissionDecision#NOT_SET} or {@code null} clears the id
+     * @param registry the registry the id was interned in
+     * @return the patched permissions, this instance is not modified
+     */
+    public EffectivePermissions with(int id, PermissionDecision decision, PermissionNodeRegistry registry) {
+        if (id < 0) throw new IllegalArgumentException("id must be >= 0");
+        boolean set = decision == PermissionDecision.ALLOW || decision == PermissionDecision.DENY;
+
+        // cleared nodes keep their filter bits, a stale bit only costs a trie walk
+        boolean patchedGlobal = global;
+        long[] patchedFilter = rootFilter;
+        if (set) {
+            String node = registry.node(id);
+            if (unfiltered(node)) {
+                patchedGlobal = true;
+            } else {
+                // the filter keeps its size until the next full compile
+                patchedFilter = rootFilter.clone();
+                addRoot(patchedFilter, ParsedNode.rootHash(node));
+            }
+        }
+
+        if (entries != null) {
+            int[] patched = new int[entries.length + 1];
+            int count = 0;
+            boolean added = false;
+            for (int entry : entries) {
+                if (entry >>> 1 == id) continue;
+                if (set && !added && entry >>> 1 > id) {
+                    patched[count++] = entry(id, decision);
+                    added = true;
+                }
+                patched[count++] = entry;
+            }
+            if (set && !added) patched[count++] = entry(id, decision);
+            return create(patched, count, patchedFilter, patchedGlobal);
+        }
+
+        int word = id >>> 6;
+        int words = Math.max(allow.length, word + 1);
+        long[] patchedAllow = Arrays.copyOf(allow, words);
+        long[] patchedDeny = Arrays.copyOf(deny, words);
+
+        long bit = 1L << id;
+        patchedAllow[word] &= ~bit;
+        patchedDeny[word] &= ~bit;
+        if (decision == PermissionDecision.ALLOW) patchedAllow[word] |= bit;
+        if (decision == PermissionDecision.DENY) patchedDeny[word] |= bit;
+        return new EffectivePermissions(patchedAllow, patchedDeny, null, patchedFilter, patchedGlobal);
+    }
+
+    /**
+     * Returns whether any id whose decision differs between these and the other permissions matches
+     * the given test. Only differing ids are visited.
+     *
+     * @param other the permissions to compare with
+     * @param test the test applied to every differing id
+     * @return true if a differing id matches the test
+     */
+    public boolean anyChanged(EffectivePermissions other, IntPredicate test) {
+        if (entries != null || other.entries != null) {
+            int[] mine = entries();
+            int[] theirs = other.entries();
+            int i = 0;
+            int j = 0;
+            while (i < mine.length || j < theirs.length) {
+                int id = Math.min(i < mine.length ? mine[i] >>> 1 : Integer.MAX_VALUE,
+                        j < theirs.length ? theirs[j] >>> 1 : Integer.MAX_VALUE);
+                int a = i < mine.length && mine[i] >>> 1 == id ? mine[i++] : -1;
+                int b = j < theirs.length && theirs[j] >>> 1 == id ? theirs[j++] : -1;
+                if (a != b && test.test(id)) return true;
+            }
+            return false;
+        }
+
+        int words = Math.max(allow.length, other.allow.length);
+        for (int word = 0; word < words; word++) {
+            long changed = (word(allow, word) ^ word(other.allow, word)) | (word(deny, word) ^ word(other.deny, word));
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                if (test.test((word << 6) + bit)) return true;
+                changed &= changed - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Two instances are equal if they hold the same decision for every id. The comparison is rejected
+     * early by a precomputed fingerprint.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EffectivePermissions other)) return false;
+        if (fingerprint != other.fingerprint) return false;
+        if (entries != null || other.entries != null) return Arrays.equals(entries(), other.entries());
+
+        int words = Math.max(allow.length, other.allow.length);
+        for (int word = 0; word < words; word++) {
+            if (word(allow, word) != word(other.allow, word)) return false;
+            if (word(deny, word) != word(other.deny, word)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(fingerprint);
+    }
+
+    @Override
+    public Map<String, PermissionDecision> toMap(PermissionNodeRegistry registry) {
+        Map<String, PermissionDecision> out = new HashMap<>();
+        if (entries != null) {
+            for (int entry : entries) {
+                out.put(registry.node(entry >>> 1), (entry & 1) == 0 ? PermissionDecision.ALLOW : PermissionDecision.DENY);
+            }
+            return out;
+        }
+        for (int word = 0; word < allow.length; word++) {
+            collect(allow[word], word, PermissionDecision.ALLOW, registry, out);
+            collect(deny[word], word, PermissionDecision.DENY, registry, out);
+        }
+        return out;
+    }
+
+    private static boolean unfiltered(String node) {
+        return GLOBAL_WILDCARD.equals(node) || !GlobPattern.hasLiteralRoot(node);
+    }
+
+    // a power of two number of bits, at least one word
+    private static long[] rootFilter(int[] roots, int count) {
+        Arrays.sort(roots, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || roots[i] != roots[i - 1]) distinct++;
+        }
+
+        int bits = Integer.highestOneBit(Math.max(64, distinct * FILTER_BITS_PER_ROOT) - 1) << 1;
+        long[] filter = new long[bits >>> 6];
+        for (int i = 0; i < count; i++) {
+            addRoot(filter, roots[i]);
+        }
+        return filter;
+    }
+
+    private static void addRoot(long[] filter, int hash) {
+        int mask = (filter.length << 6) - 1;
+        int step = probeStep(hash);
+        for (int probe = 0; probe < FILTER_PROBES; probe++) {
+            int bit = (hash + probe * step) & mask;
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // odd, so the probes of a hash never hit the same bit
+    private static int probeStep(int hash) {
+        return Integer.rotateRight(hash, 16) | 1;
+    }
+
+    private static long word(long[] bits, int word) {
+        return word < bits.length ? bits[word] : 0L;
+    }
+
+    // builds the permissions from sorted entries, as bitsets unless they would cost more than a few words per node
+    private static EffectivePermissions create(int[] entries, int count, long[] rootFilter, boolean global) {
+        if (count == 0) return new EffectivePermissions(NO_BITS, NO_BITS, null, rootFilter, global);
+
+        // the bitsets cost two longs per 64 ids, the entries a single int per node
+        int words = ((entries[count - 1] >>> 1) >>> 6) + 1;
+        if (count < words) {
+            return new EffectivePermissions(NO_BITS, NO_BITS, Arrays.copyOf(entries, count), rootFilter, global);
+        }
+
+        long[] allow = new long[words];
+        long[] deny = new long[words];
+        for (int i = 0; i < count; i++) {
+            int id = entries[i] >>> 1;
+            long[] target = (entries[i] & 1) == 0 ? allow : deny;
+            target[id >>> 6] |= 1L << id;
+        }
+        return new EffectivePermissions(allow, deny, null, rootFilter, global);
+    }
+
+    private static int entry(int id, PermissionDecision decision) {
+        return (id << 1) | (decision == PermissionDecision.DENY ? 1 : 0);
+    }
+
+    // the sorted entries of these permissions, converted from the bitsets if they are dense
+    private int[] entries() {
+        if (entries != null) return entries;
+
+        int[] out = new int[16];
+        int count = 0;
+        for (int word = 0; word < allow.length; word++) {
+            long bits = allow[word] | deny[word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                if (count == out.length) out = Arrays.copyOf(out, count * 2);
+                out[count++] = (((word << 6) + bit) << 1) | (int) ((deny[word] >>> bit) & 1L);
+                bits &= bits - 1;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private static long fingerprint(int[] entries) {
+        long hash = 1;
+        for (int entry : entries) {
+            hash = 31 * hash + entry;
+        }
+        return hash;
+    }
+
+    // same hash as for the sorted entries, the bits are visited in ascending id order
+    private static long fingerprint(long[] allow, long[] deny) {
+        long hash = 1;
+        for (int word = 0; word < allow.length; word++) {
+            long bits = allow[word] | deny[word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                hash = 31 * hash + ((((word << 6) + bit) << 1) | (int) ((deny[word] >>> bit) & 1L));
+                bits &= bits - 1;
+            }
+        }
+        return hash;
+    }
+
+    private static void collect(long bits, int word, PermissionDecision decision,
+                                PermissionNodeRegistry registry, Map<String, PermissionDecision> out) {
+        while (bits != 0) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            out.put(registry.node((word << 6) + bit), decision);
+            bits &= bits - 1;
+        }
+    }
+}
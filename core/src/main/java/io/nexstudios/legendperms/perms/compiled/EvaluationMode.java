@@ -0,0 +1,37 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.Locale;
+
+/**
+ * How the permissions of a user's groups are combined, configured by
+ * {@code permissions.evaluation-mode} in the settings.yml.
+ */
+public enum EvaluationMode {
+
+    /**
+     * The permissions of all groups of a group set are merged into one table. Lookups test a single
+     * table, but every distinct group set holds its own copy of the nodes, and a group edit has to be
+     * patched into every set containing the group.
+     */
+    MERGED,
+
+    /**
+     * Every group has exactly one compiled table, a group set only references the tables of its groups
+     * in priority order and the first table that sets a node wins. A group edit patches one table,
+     * lookups test up to one table per group.
+     */
+    LAYERED;
+
+    /**
+     * @param value the configured value, case-insensitive
+     * @return the matching mode, {@link #MERGED} for unknown or missing values
+     */
+    public static EvaluationMode fromConfig(String value) {
+        if (value == null) return MERGED;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return MERGED;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable deterministic automaton over all {@link GlobPattern}s of a registry.
+ * <p>
+ * The patterns are combined into one nondeterministic automaton (one state per pattern position)
+ * and turned into a DFA by subset construction when a pattern is added. Characters are grouped into
+ * intervals that no pattern distinguishes, so the transition table only has one column per interval.
+ * Matching a node is a single left-to-right pass with one table lookup per character, no matter how
+ * many patterns exist. Each accepting state knows the ids of the patterns it matches.
+ * <p>
+ * Adding a pattern rebuilds the automaton and returns a new instance, published versions can be
+ * read concurrently. The subset construction can grow exponentially with patterns like
+ * {@code **a????????}, so it is capped at {@value #MAX_STATES} states: a pattern that would exceed
+ * the cap is rejected and the automaton stays as it was.
+ */
+final class GlobAutomaton {
+
+    static final GlobAutomaton EMPTY = build(List.of());
+
+    static final int MAX_STATES = 4096;
+
+    private static final int DEAD = -1;
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final List<GlobPattern> patterns;
+    // lower bound of every character interval, sorted, starting with 0
+    private final char[] bounds;
+    private final int[] asciiIntervals;
+    // state * bounds.length + interval -> next state, DEAD if no pattern can match anymore
+    private final int[] transitions;
+    private final int[][] matchedIds;
+    private final int[][] matchedSpecificities;
+
+    private GlobAutomaton(List<GlobPattern> patterns, char[] bounds, int[] transitions,
+                          int[][] matchedIds, int[][] matchedSpecificities) {
+        this.patterns = patterns;
+        this.bounds = bounds;
+        this.transitions = transitions;
+        this.matchedIds = matchedIds;
+        this.matchedSpecificities = matchedSpecificities;
+
+        this.asciiIntervals = new int[128];
+        for (char c = 0; c < 128; c++) {
+            asciiIntervals[c] = interval(bounds, c);
+        }
+    }
+
+    /**
+     * @return a new automaton that additionally matches the given pattern, or null if the automaton
+     *         would exceed {@link #MAX_STATES} states with it
+     */
+    GlobAutomaton with(GlobPattern pattern) {
+        List<GlobPattern> next = new ArrayList<>(patterns);
+        next.add(pattern);
+        return build(List.copyOf(next));
+    }
+
+    int stateCount() {
+        return matchedIds.length;
+    }
+
+    /**
+     * Adds every pattern matching the whole node to the given matches.
+     */
+    void match(String node, WildcardMatches out) {
+        int state = run(node);
+        if (state == DEAD) return;
+
+        int[] ids = matchedIds[state];
+        int[] specificities = matchedSpecificities[state];
+        for (int i = 0; i < ids.length; i++) {
+            out.add(ids[i], specificities[i]);
+        }
+    }
+
+    /**
+     * @return true if any pattern matches the whole node
+     */
+    boolean matches(String node) {
+        int state = run(node);
+        return state != DEAD && matchedIds[state].length > 0;
+    }
+
+    // the state reached after the whole node, DEAD as soon as no pattern can match anymore
+    private int run(String node) {
+        if (patterns.isEmpty()) return DEAD;
+
+        int state = 0;
+        int intervals = bounds.length;
+        for (int i = 0, length = node.length(); i < length; i++) {
+            char c = node.charAt(i);
+            int interval = c < 128 ? asciiIntervals[c] : interval(bounds, c);
+            state = transitions[state * intervals + interval];
+            if (state == DEAD) return DEAD;
+        }
+        return state;
+    }
+
+    private static int interval(char[] bounds, char c) {
+        int index = Arrays.binarySearch(bounds, c);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    // null if the automaton would exceed MAX_STATES states
+    private static GlobAutomaton build(List<GlobPattern> patterns) {
+        // one nfa state per token position of every alternative, the position after the last token accepts
+        List<GlobPattern.Token> tokens = new ArrayList<>();
+        List<GlobPattern> owners = new ArrayList<>();
+        BitSet start = new BitSet();
+        for (GlobPattern pattern : patterns) {
+            for (GlobPattern.Token[] alternative : pattern.alternatives) {
+                start.set(tokens.size());
+                for (GlobPattern.Token token : alternative) {
+                    tokens.add(token);
+                    owners.add(pattern);
+                }
+                tokens.add(null);
+                owners.add(pattern);
+            }
+        }
+
+        char[] bounds = bounds(tokens);
+        int intervals = bounds.length;
+
+        Map<BitSet, Integer> stateIds = new HashMap<>();
+        List<BitSet> states = new ArrayList<>();
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+
+        BitSet initial = closure(start, tokens);
+        stateIds.put(initial, 0);
+        states.add(initial);
+        pending.add(0);
+
+        List<int[]> rows = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            int stateId = pending.poll();
+            BitSet state = states.get(stateId);
+            int[] row = new int[intervals];
+
+            for (int interval = 0; interval < intervals; interval++) {
+                BitSet next = step(state, bounds[interval], tokens);
+                if (next.isEmpty()) {
+                    row[interval] = DEAD;
+                    continue;
+                }
+
+                Integer nextId = stateIds.get(next);
+                if (nextId == null) {
+                    if (states.size() == MAX_STATES) return null;
+                    nextId = states.size();
+                    stateIds.put(next, nextId);
+                    states.add(next);
+                    pending.add(nextId);
+                }
+                row[interval] = nextId;
+            }
+
+            while (rows.size() <= stateId) rows.add(null);
+            rows.set(stateId, row);
+        }
+
+        int[] transitions = new int[states.size() * intervals];
+        int[][] matchedIds = new int[states.size()][];
+        int[][] matchedSpecificities = new int[states.size()][];
+        for (int stateId = 0; stateId < states.size(); stateId++) {
+            System.arraycopy(rows.get(stateId), 0, transitions, stateId * intervals, intervals);
+
+            List<GlobPattern> matched = new ArrayList<>();
+            BitSet state = states.get(stateId);
+            for (int position = state.nextSetBit(0); position >= 0; position = state.nextSetBit(position + 1)) {
+                GlobPattern owner = owners.get(position);
+                if (tokens.get(position) == null && !matched.contains(owner)) matched.add(owner);
+            }
+
+            matchedIds[stateId] = matched.isEmpty() ? NO_MATCHES : matched.stream().mapToInt(p -> p.id).toArray();
+            matchedSpecificities[stateId] = matched.isEmpty() ? NO_MATCHES : matched.stream().mapToInt(p -> p.specificity).toArray();
+        }
+
+        return new GlobAutomaton(patterns, bounds, transitions, matchedIds, matchedSpecificities);
+    }
+
+    // repetitions may match zero times, so the position after them is active as well
+    private static BitSet closure(BitSet positions, List<GlobPattern.Token> tokens) {
+        BitSet closed = (BitSet) positions.clone();
+        for (int position = closed.nextSetBit(0); position >= 0; position = closed.nextSetBit(position + 1)) {
+            GlobPattern.Token token = tokens.get(position);
+            if (token != null && token.repeat) closed.set(position + 1);
+        }
+        return closed;
+    }
+
+    private static BitSet step(BitSet state, char c, List<GlobPattern.Token> tokens) {
+        BitSet next = new BitSet();
+        for (int position = state.nextSetBit(0); position >= 0; position = state.nextSetBit(position + 1)) {
+            GlobPattern.Token token = tokens.get(position);
+            if (token == null || !token.chars.contains(c)) continue;
+            next.set(token.repeat ? position : position + 1);
+        }
+        return closure(next, tokens);
+    }
+
+    // every character where any class starts or ends begins a new interval
+    private static char[] bounds(List<GlobPattern.Token> tokens) {
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(0);
+        for (GlobPattern.Token token : tokens) {
+            if (token == null) continue;
+            char[] ranges = token.chars.ranges;
+            for (int i = 0; i < ranges.length; i += 2) {
+                bounds.add((int) ranges[i]);
+                if (ranges[i + 1] < Character.MAX_VALUE) bounds.add(ranges[i + 1] + 1);
+            }
+        }
+
+        char[] out = new char[bounds.size()];
+        int index = 0;
+        for (int bound : bounds) {
+            out[index++] = (char) bound;
+        }
+        return out;
+    }
+}
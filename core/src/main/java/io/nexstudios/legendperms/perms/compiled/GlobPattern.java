@@ -0,0 +1,218 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A permission node with glob syntax beyond the plain {@code prefix.*} and {@code *} wildcards:
+ * <ul>
+ *     <li>{@code *} inside a node matches any characters within one segment, e.g. {@code essentials.*.others}
+ *     or {@code shop.sell.[0-9]*}. A trailing {@code .*} keeps matching everything below the prefix.</li>
+ *     <li>{@code **} matches any characters across segments.</li>
+ *     <li>{@code ?} matches a single character within one segment.</li>
+ *     <li>{@code [a-z0-9_]} matches one character of the class, {@code [!...]} or {@code [^...]} negates it.</li>
+ *     <li>{@code {brush,tool}} matches one of the alternatives, e.g. {@code worldedit.{brush,tool}.*}.</li>
+ * </ul>
+ * Patterns are never evaluated one by one. All patterns of the registry are compiled into a single
+ * {@link GlobAutomaton}, which matches a node in one pass.
+ * <p>
+ * The specificity of a pattern is the number of literal characters of its shortest alternative. Matches
+ * are tested from the most to the least specific pattern, see {@link ParsedNode}.
+ */
+public final class GlobPattern {
+
+    // upper bound for the alternatives produced by {a,b} groups
+    private static final int MAX_ALTERNATIVES = 64;
+
+    final int id;
+    final int specificity;
+    // every alternative of the pattern as a sequence of tokens
+    final List<Token[]> alternatives;
+
+    private GlobPattern(int id, int specificity, List<Token[]> alternatives) {
+        this.id = id;
+        this.specificity = specificity;
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * @param node a permission node
+     * @return true if the node uses glob syntax, plain {@code prefix.*} and {@code *} do not
+     */
+    public static boolean isGlob(String node) {
+        int length = node.length();
+        for (int i = 0; i < length; i++) {
+            char c = node.charAt(i);
+            if (c == '?' || c == '[' || c == '{') return true;
+            if (c == '*') {
+                boolean global = length == 1;
+                boolean trailing = i == length - 1 && i > 0 && node.charAt(i - 1) == '.';
+                if (!global && !trailing) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param node a permission node
+     * @return true if the first segment of the node is plain text, i.e. every node matched by it
+     *         starts with that same segment
+     */
+    public static boolean hasLiteralRoot(String node) {
+        for (int i = 0, length = node.length(); i < length; i++) {
+            char c = node.charAt(i);
+            if (c == '.') return true;
+            if (c == '*' || c == '?' || c == '[' || c == '{') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the node as a glob pattern.
+     *
+     * @param id the id of the node
+     * @param node a node for which {@link #isGlob(String)} is true
+     * @return the pattern, or null if the node is malformed (unbalanced brackets or braces, too many
+     *         alternatives), in which case it is treated as a plain node
+     */
+    static GlobPattern parse(int id, String node) {
+        List<String> expanded = new ArrayList<>();
+        if (!expand(node, expanded)) return null;
+
+        List<Token[]> alternatives = new ArrayList<>(expanded.size());
+        int specificity = Integer.MAX_VALUE;
+        for (String alternative : expanded) {
+            Token[] tokens = tokenize(alternative);
+            if (tokens == null) return null;
+
+            int literals = 0;
+            for (Token token : tokens) {
+                if (token.literal) literals++;
+            }
+            alternatives.add(tokens);
+            specificity = Math.min(specificity, literals);
+        }
+        return new GlobPattern(id, specificity, List.copyOf(alternatives));
+    }
+
+    // expands the first {a,b} group and recurses into the results
+    private static boolean expand(String node, List<String> out) {
+        int open = node.indexOf('{');
+        if (open < 0) {
+            if (node.indexOf('}') >= 0) return false;
+            if (out.size() == MAX_ALTERNATIVES) return false;
+            out.add(node);
+            return true;
+        }
+
+        int close = node.indexOf('}', open);
+        if (close < 0 || node.lastIndexOf('{', close) != open) return false;
+
+        String head = node.substring(0, open);
+        String tail = node.substring(close + 1);
+        for (String option : node.substring(open + 1, close).split(",", -1)) {
+            if (!expand(head + option + tail, out)) return false;
+        }
+        return true;
+    }
+
+    private static Token[] tokenize(String pattern) {
+        List<Token> tokens = new ArrayList<>();
+        int length = pattern.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < length && pattern.charAt(i + 1) == '*') {
+                        tokens.add(Token.star(CharClass.ANY));
+                        i++;
+                    } else if (i == length - 1 && i > 0 && pattern.charAt(i - 1) == '.') {
+                        // trailing ".*" keeps the meaning of a plain wildcard: everything below the prefix
+                        tokens.add(Token.star(CharClass.ANY));
+                    } else {
+                        tokens.add(Token.star(CharClass.SEGMENT));
+                    }
+                }
+                case '?' -> tokens.add(Token.one(CharClass.SEGMENT));
+                case '[' -> {
+                    int close = pattern.indexOf(']', i + 2);
+                    if (close < 0) return null;
+                    tokens.add(Token.one(CharClass.parse(pattern.substring(i + 1, close))));
+                    i = close;
+                }
+                default -> tokens.add(Token.literal(c));
+            }
+        }
+        return tokens.toArray(new Token[0]);
+    }
+
+    /**
+     * A single position of a pattern: one character of a class, or a repetition of it (zero or more).
+     */
+    static final class Token {
+        final CharClass chars;
+        final boolean repeat;
+        final boolean literal;
+
+        private Token(CharClass chars, boolean repeat, boolean literal) {
+            this.chars = chars;
+            this.repeat = repeat;
+            this.literal = literal;
+        }
+
+        static Token literal(char c) {
+            return new Token(new CharClass(new char[]{c, c}, false), false, true);
+        }
+
+        static Token one(CharClass chars) {
+            return new Token(chars, false, false);
+        }
+
+        static Token star(CharClass chars) {
+            return new Token(chars, true, false);
+        }
+    }
+
+    /**
+     * A set of characters, stored as inclusive ranges.
+     */
+    static final class CharClass {
+        static final CharClass ANY = new CharClass(new char[0], true);
+        // everything but the segment separator
+        static final CharClass SEGMENT = new CharClass(new char[]{'.', '.'}, true);
+
+        // pairs of inclusive bounds
+        final char[] ranges;
+        final boolean negated;
+
+        CharClass(char[] ranges, boolean negated) {
+            this.ranges = ranges;
+            this.negated = negated;
+        }
+
+        static CharClass parse(String body) {
+            boolean negated = !body.isEmpty() && (body.charAt(0) == '!' || body.charAt(0) == '^');
+            int start = negated ? 1 : 0;
+
+            StringBuilder ranges = new StringBuilder();
+            for (int i = start; i < body.length(); i++) {
+                char low = body.charAt(i);
+                char high = low;
+                if (i + 2 < body.length() && body.charAt(i + 1) == '-') {
+                    high = body.charAt(i + 2);
+                    i += 2;
+                }
+                ranges.append((char) Math.min(low, high)).append((char) Math.max(low, high));
+            }
+            return new CharClass(ranges.toString().toCharArray(), negated);
+        }
+
+        boolean contains(char c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) return !negated;
+            }
+            return negated;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import lombok.Getter;
+
+/**
+ * The compiled own permissions of a single group, used by {@link EvaluationMode#LAYERED}.
+ * <p>
+ * Every {@link LayeredPermissions} containing the group references the same instance, so patching
+ * a node here is immediately visible to all of them.
+ */
+public final class GroupPermissionTable {
+
+    @Getter
+    private volatile EffectivePermissions permissions;
+
+    public GroupPermissionTable(EffectivePermissions permissions) {
+        this.permissions = permissions;
+    }
+
+    /**
+     * Patches a single node of the group. Must only be called by the single writer of the service.
+     *
+     * @param id the id of the changed node
+     * @param decision the new decision of the node in the group, {@link PermissionDecision#NOT_SET} clears it
+     * @param registry the registry the id was interned in
+     */
+    public void patch(int id, PermissionDecision decision, PermissionNodeRegistry registry) {
+        this.permissions = permissions.with(id, decision, registry);
+    }
+}
@@ -0,0 +1,52 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Canonical signature of a set of groups: their ids, sorted and without duplicates, and the context
+ * (world) the set is compiled for. Two users with the same active groups in the same context have equal
+ * signatures and therefore share the same compiled permissions.
+ * <p>
+ * The context is only set if one of the groups has nodes scoped to it, every other world shares the
+ * context-free set.
+ *
+ * @param groupIds the sorted group ids, must not be modified
+ * @param context the lower case name of the world, null for the context-free set
+ */
+public record GroupSetSignature(int[] groupIds, String context) {
+
+    public static GroupSetSignature of(Collection<Integer> groupIds) {
+        return new GroupSetSignature(groupIds.stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray(), null);
+    }
+
+    public GroupSetSignature withContext(String context) {
+        return Objects.equals(context, this.context) ? this : new GroupSetSignature(groupIds, context);
+    }
+
+    public boolean contains(int groupId) {
+        return Arrays.binarySearch(groupIds, groupId) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof GroupSetSignature other
+                && Arrays.equals(groupIds, other.groupIds)
+                && Objects.equals(context, other.context);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(groupIds) + Objects.hashCode(context);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupSetSignature" + Arrays.toString(groupIds) + (context == null ? "" : "@" + context);
+    }
+}
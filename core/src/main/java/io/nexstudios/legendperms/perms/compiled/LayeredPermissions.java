@@ -0,0 +1,65 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled permissions of a group set in {@link EvaluationMode#LAYERED}: the tables of its groups,
+ * ordered from the highest to the lowest priority. The decision of a node is the one of the first
+ * table that sets it, which is the same decision the merged table of the group set would hold.
+ * <p>
+ * The layers are never copied, so the instance stays valid while single nodes of its groups are
+ * patched. It has to be recompiled only when the groups or their priorities change.
+ */
+public final class LayeredPermissions implements CompiledPermissions {
+
+    private final GroupPermissionTable[] layers;
+
+    /**
+     * @param layers the tables of the groups, highest priority first
+     */
+    public LayeredPermissions(List<GroupPermissionTable> layers) {
+        this.layers = layers.toArray(new GroupPermissionTable[0]);
+    }
+
+    /**
+     * @return the current tables of the layers, highest priority first
+     */
+    EffectivePermissions[] tables() {
+        EffectivePermissions[] out = new EffectivePermissions[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            out[i] = layers[i].getPermissions();
+        }
+        return out;
+    }
+
+    @Override
+    public PermissionDecision decision(int id) {
+        for (GroupPermissionTable layer : layers) {
+            PermissionDecision decision = layer.getPermissions().decision(id);
+            if (decision != PermissionDecision.NOT_SET) return decision;
+        }
+        return PermissionDecision.NOT_SET;
+    }
+
+    @Override
+    public boolean mightMatchRoot(int rootHash) {
+        for (GroupPermissionTable layer : layers) {
+            if (layer.getPermissions().mightMatchRoot(rootHash)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, PermissionDecision> toMap(PermissionNodeRegistry registry) {
+        Map<String, PermissionDecision> out = new HashMap<>();
+        // lowest priority first, so higher layers override
+        for (int i = layers.length - 1; i >= 0; i--) {
+            out.putAll(layers[i].getPermissions().toMap(registry));
+        }
+        return out;
+    }
+}
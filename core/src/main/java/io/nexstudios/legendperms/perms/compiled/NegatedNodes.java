@@ -0,0 +1,74 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+import java.util.Map;
+
+/**
+ * Negated node syntax: {@code -node} always denies {@code node}, e.g. a group granting {@code worldedit.*}
+ * can exclude a single node from the wildcard with {@code -worldedit.regen}, and {@code -prefix.*} denies
+ * a whole wildcard. The decision stored for a negated node is ignored, the commands only accept
+ * {@code deny} for it. Within the nodes of one holder (a group, a user or a world), a negated node
+ * overrides the plain node it targets.
+ * <p>
+ * Negations are resolved whenever node maps are merged or compiled, so compiled tables only contain plain
+ * nodes with their final decision and a permission check never sees a negation.
+ */
+public final class NegatedNodes {
+
+    private static final char NEGATION = '-';
+
+    private NegatedNodes() {
+    }
+
+    /**
+     * @return true if the node uses the negated syntax
+     */
+    public static boolean isNegated(String node) {
+        return node != null && node.length() > 1 && node.charAt(0) == NEGATION;
+    }
+
+    /**
+     * @return the node the given node sets a decision for, i.e. without the negation
+     */
+    public static String target(String node) {
+        return isNegated(node) ? node.substring(1) : node;
+    }
+
+    /**
+     * Puts the resolved nodes of one holder into the target map, overriding the entries it already holds
+     * (like {@link Map#putAll(Map)} does for plain nodes).
+     *
+     * @param target the merged nodes, only ever holds plain nodes
+     * @param source the nodes of a single holder, may contain negations
+     */
+    public static void mergeInto(Map<String, PermissionDecision> target, Map<String, PermissionDecision> source) {
+        for (Map.Entry<String, PermissionDecision> entry : source.entrySet()) {
+            String node = entry.getKey();
+            PermissionDecision decision = entry.getValue();
+            if (decision == null) continue;
+
+            if (isNegated(node)) {
+                target.put(node.substring(1), PermissionDecision.DENY);
+            } else if (!source.containsKey(NEGATION + node)) {
+                target.put(node, decision);
+            }
+        }
+    }
+
+    /**
+     * @param source the nodes of a single holder, may contain negations
+     * @param node a plain node
+     * @return the decision the holder sets for the node, null if it sets none
+     */
+    public static PermissionDecision lookup(Map<String, PermissionDecision> source, String node) {
+        return source.get(NEGATION + node) != null ? PermissionDecision.DENY : source.get(node);
+    }
+
+    static boolean anyNegated(Map<String, PermissionDecision> permissions) {
+        for (String node : permissions.keySet()) {
+            if (isNegated(node)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+/**
+ * A checked permission node, resolved once against the {@link PermissionTrie} and the {@link GlobAutomaton}
+ * of a registry generation.
+ * <p>
+ * Holds everything a lookup needs, so a repeated check of the same node never scans its string again:
+ * the id of the exact node, the ids of every wildcard and glob pattern that covers it (most specific
+ * first) and the hash of its first segment for {@link CompiledPermissions#mightMatch(ParsedNode)}.
+ * Ids that are not interned are {@code -1} or left out.
+ * <p>
+ * The specificity of a {@code prefix.*} wildcard is the length of its prefix including the dot, the
+ * global wildcard has none. Glob patterns use their number of literal characters, so
+ * {@code essentials.*.others} is more specific than {@code essentials.*}.
+ * <p>
+ * Instances are immutable and only valid for the registry generation they were parsed in,
+ * see {@link ParsedNodeCache}.
+ */
+public final class ParsedNode {
+
+    final String node;
+    final int generation;
+    final int exactId;
+    final int[] wildcardIds;
+    // descending, parallel to the wildcard ids
+    final int[] specificities;
+    final int rootHash;
+
+    ParsedNode(String node, int generation, int exactId, int[] wildcardIds, int[] specificities) {
+        this.node = node;
+        this.generation = generation;
+        this.exactId = exactId;
+        this.wildcardIds = wildcardIds;
+        this.specificities = specificities;
+        this.rootHash = rootHash(node);
+    }
+
+    private ParsedNode(ParsedNode parsed, int generation) {
+        this.node = parsed.node;
+        this.generation = generation;
+        this.exactId = parsed.exactId;
+        this.wildcardIds = parsed.wildcardIds;
+        this.specificities = parsed.specificities;
+        this.rootHash = parsed.rootHash;
+    }
+
+    /**
+     * @return the same node, valid for the given registry generation
+     */
+    ParsedNode withGeneration(int generation) {
+        return new ParsedNode(this, generation);
+    }
+
+    /**
+     * Resolves the decision of this node against the given compiled permissions: the exact node first,
+     * then the wildcards from the most to the least specific. If equally specific wildcards disagree,
+     * DENY wins. This method does not allocate.
+     */
+    PermissionDecision decide(CompiledPermissions permissions) {
+        PermissionDecision decision = permissions.decision(exactId);
+        if (decision != PermissionDecision.NOT_SET) return decision;
+
+        int index = 0;
+        while (index < wildcardIds.length) {
+            int specificity = specificities[index];
+            boolean allowed = false;
+            do {
+                decision = permissions.decision(wildcardIds[index++]);
+                if (decision == PermissionDecision.DENY) return decision;
+                if (decision == PermissionDecision.ALLOW) allowed = true;
+            } while (index < wildcardIds.length && specificities[index] == specificity);
+
+            if (allowed) return PermissionDecision.ALLOW;
+        }
+        return PermissionDecision.NOT_SET;
+    }
+
+    /**
+     * Hash of the node up to its first dot, mixed so the bits taken from it are independent.
+     * Shared by the Bloom filter of {@link EffectivePermissions} and the parsed nodes.
+     */
+    static int rootHash(String node) {
+        int hash = 0;
+        for (int i = 0, length = node.length(); i < length; i++) {
+            char c = node.charAt(i);
+            if (c == '.') break;
+            hash = 31 * hash + c;
+        }
+        return hash * 0x9E3779B9 ^ (hash >>> 16);
+    }
+}
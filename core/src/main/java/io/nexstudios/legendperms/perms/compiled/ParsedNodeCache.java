@@ -0,0 +1,75 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of {@link ParsedNode}s, keyed by the checked node string.
+ * <p>
+ * Plugins check the same few thousand literal nodes over and over. The cache is two-way set
+ * associative with a fixed number of slots: a node is looked up in the two slots of its set, first by
+ * identity and then by equality, so repeated checks skip all string scanning. Unknown or random
+ * node strings only ever evict other entries, the memory used by the cache is bounded.
+ * <p>
+ * Every entry remembers the registry generation it was parsed in. Interning a node advances the
+ * generation: entries the new node cannot match are carried over to it by {@link #retain}, the others
+ * stay behind and are parsed again on their next lookup.
+ * <p>
+ * Lookups and stores are lock-free. Entries are immutable, racing stores only evict each other.
+ */
+final class ParsedNodeCache {
+
+    // power of two, 8192 entries of a few hundred bytes at most
+    private static final int SLOTS = 8192;
+
+    private final ParsedNode[] slots = new ParsedNode[SLOTS];
+
+    /**
+     * @return the cached entry of the node for the given generation, or null if there is none
+     */
+    ParsedNode get(String node, int generation) {
+        int index = index(node);
+        ParsedNode first = slots[index];
+        if (matches(first, node, generation)) return first;
+        ParsedNode second = slots[index + 1];
+        return matches(second, node, generation) ? second : null;
+    }
+
+    void put(ParsedNode parsed) {
+        int index = index(parsed.node);
+        ParsedNode first = slots[index];
+        // refill a free or outdated slot first, otherwise evict one of the two by the hash
+        if (first == null || first.generation != parsed.generation || first.node.equals(parsed.node)) {
+            slots[index] = parsed;
+        } else {
+            slots[index + ((parsed.node.hashCode() >>> 16) & 1)] = parsed;
+        }
+    }
+
+    /**
+     * Carries every entry of the given generation that the new node does not affect over to the next one.
+     * Entries stored concurrently with an older generation are simply parsed again.
+     *
+     * @param generation the generation before the node was interned
+     * @param affected true for the checked nodes whose parse the new node changes
+     */
+    void retain(int generation, Predicate<String> affected) {
+        for (int i = 0; i < SLOTS; i++) {
+            ParsedNode parsed = slots[i];
+            if (parsed != null && parsed.generation == generation && !affected.test(parsed.node)) {
+                slots[i] = parsed.withGeneration(generation + 1);
+            }
+        }
+    }
+
+    private static boolean matches(ParsedNode parsed, String node, int generation) {
+        return parsed != null
+                && (parsed.node == node || parsed.node.equals(node))
+                && parsed.generation == generation;
+    }
+
+    // first slot of the set of the node
+    private static int index(String node) {
+        int hash = node.hashCode() * 0x9E3779B9;
+        return (hash >>> 19) & (SLOTS - 2);
+    }
+}
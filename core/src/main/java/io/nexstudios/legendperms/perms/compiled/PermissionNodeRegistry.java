@@ -0,0 +1,123 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Global interning registry that assigns every distinct permission node a stable int id.
+ * <p>
+ * Nodes are interned once, when a group permission is compiled into {@link EffectivePermissions}.
+ * The registry also maintains the {@link PermissionTrie} over all interned nodes, which is shared
+ * by every user; a user only contributes the allow/deny bits for the ids it has. Nodes with glob syntax
+ * ({@link GlobPattern}) are compiled into one {@link GlobAutomaton} instead, rebuilt whenever such a
+ * node is interned, so matching them stays a single pass over the checked node. Malformed patterns and
+ * patterns the automaton rejects as too complex are interned as plain nodes.
+ * <p>
+ * Ids are never reused or released. The number of ids is bounded by the distinct nodes that were
+ * ever configured on a group, not by the nodes that are checked.
+ * <p>
+ * Interning is synchronized, lookups are lock-free on the published trie.
+ */
+public final class PermissionNodeRegistry {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile String[] nodes = new String[64];
+    private volatile int size;
+    private volatile PermissionTrie trie = PermissionTrie.EMPTY;
+    private volatile GlobAutomaton globs = GlobAutomaton.EMPTY;
+    private final ParsedNodeCache parsedNodes = new ParsedNodeCache();
+
+    /**
+     * Returns the id of the given node, assigning a new one if the node was not interned yet.
+     *
+     * @param node the permission node, must not be null or empty
+     * @return the id of the node
+     */
+    public int intern(String node) {
+        Integer existing = ids.get(node);
+        if (existing != null) return existing;
+
+        synchronized (this) {
+            existing = ids.get(node);
+            if (existing != null) return existing;
+
+            int id = size;
+            String[] current = nodes;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[id] = node;
+
+            // publish the trie before the id can be handed out and compiled into a user's permissions
+            GlobPattern pattern = GlobPattern.isGlob(node) ? GlobPattern.parse(id, node) : null;
+            GlobAutomaton withPattern = pattern == null ? null : globs.with(pattern);
+            Predicate<String> affected;
+            if (withPattern != null) {
+                this.globs = withPattern;
+                GlobAutomaton single = GlobAutomaton.EMPTY.with(pattern);
+                affected = single == null ? checked -> true : single::matches;
+            } else {
+                // plain nodes, and malformed or too complex patterns, which only match themselves
+                this.trie = trie.with(node, id);
+                affected = checked -> PermissionTrie.covers(node, checked);
+            }
+            this.nodes = current;
+            this.size = id + 1;
+            ids.put(node, id);
+            parsedNodes.retain(id, affected);
+            return id;
+        }
+    }
+
+    /**
+     * @param id an id returned by {@link #intern(String)}
+     * @return the node string of the id
+     */
+    public String node(int id) {
+        return nodes[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Resolves the decision for the given node against the given compiled permissions. Nodes whose first
+     * segment is rejected by {@link CompiledPermissions#mightMatchRoot(int)} are answered before the node
+     * is parsed, without touching the trie, the glob automaton or the cache. Does not allocate for nodes
+     * that are already in the {@link ParsedNodeCache}.
+     *
+     * @param node the permission node to resolve
+     * @param permissions the compiled permissions of the user
+     * @return the resolved decision, or {@link PermissionDecision#NOT_SET} if nothing matches
+     */
+    public PermissionDecision decide(String node, CompiledPermissions permissions) {
+        if (!permissions.mightMatchRoot(ParsedNode.rootHash(node))) return PermissionDecision.NOT_SET;
+        return parse(node).decide(permissions);
+    }
+
+    /**
+     * @param node the checked permission node
+     * @return the node parsed against the current trie and glob patterns, cached until a node is interned
+     *         that matches it
+     */
+    public ParsedNode parse(String node) {
+        // every interned node changes the trie or the globs, the size is their generation; read it first.
+        // Entries the interned node cannot match are carried over to the next generation by the cache
+        int generation = size;
+        ParsedNode parsed = parsedNodes.get(node, generation);
+        if (parsed != null) return parsed;
+
+        WildcardMatches wildcards = new WildcardMatches();
+        int exactId = trie.parse(node, wildcards);
+        globs.match(node, wildcards);
+        parsed = wildcards.toParsedNode(node, generation, exactId);
+        parsedNodes.put(parsed);
+        return parsed;
+    }
+}
@@ -0,0 +1,129 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, persistent character trie over all interned permission nodes.
+ * <p>
+ * Exact nodes store their id on the trie node reached by their full path, wildcard nodes
+ * ({@code prefix.*}) on the trie node reached by {@code prefix.} and the global wildcard
+ * ({@code *}) on the root. Parsing walks the requested node once from left to right and collects
+ * the exact id and every wildcard id on the way, so exact matches, {@code prefix.*} matches and
+ * {@code *} are all resolved without building intermediate strings. Nodes with glob syntax are not
+ * stored here but in the {@link GlobAutomaton} of the registry.
+ * <p>
+ * Resolution order: exact match first, then the most specific wildcard, then the global wildcard.
+ * <p>
+ * Inserting a node copies only the path to it, so published versions can be read concurrently.
+ */
+public final class PermissionTrie {
+
+    public static final PermissionTrie EMPTY = new PermissionTrie(new Node(new char[0], new Node[0], -1, -1));
+
+    private static final String GLOBAL_WILDCARD = "*";
+    private static final String WILDCARD_SUFFIX = ".*";
+
+    private final Node root;
+
+    private PermissionTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a new trie that additionally maps the given node to the given id.
+     *
+     * @param node the permission node, {@code prefix.*} and {@code *} are stored as wildcards
+     * @param id the id of the node
+     * @return the new trie, this instance is not modified
+     */
+    public PermissionTrie with(String node, int id) {
+        if (GLOBAL_WILDCARD.equals(node)) {
+            return new PermissionTrie(root.withIds(root.exactId, id));
+        }
+        if (node.endsWith(WILDCARD_SUFFIX)) {
+            // keep the trailing dot, the wildcard lives on the node reached by "prefix."
+            return new PermissionTrie(insert(root, node, 0, node.length() - 1, id, true));
+        }
+        return new PermissionTrie(insert(root, node, 0, node.length(), id, false));
+    }
+
+    /**
+     * Walks the given node once from left to right and collects every wildcard covering it. The result
+     * does not depend on any user and can be reused for every lookup of the node until the trie changes.
+     *
+     * @param node the permission node to parse, must not be null
+     * @param wildcards receives the wildcard ids, with the length of their prefix as specificity
+     * @return the id of the exact node, or {@code -1} if it is not interned
+     */
+    int parse(String node, WildcardMatches wildcards) {
+        Node current = root;
+        if (root.wildcardId >= 0) wildcards.add(root.wildcardId, 0);
+
+        for (int i = 0, length = node.length(); i < length && current != null; i++) {
+            current = current.child(node.charAt(i));
+            if (current != null && current.wildcardId >= 0) wildcards.add(current.wildcardId, i + 1);
+        }
+        return current == null ? -1 : current.exactId;
+    }
+
+    /**
+     * @param stored a node as passed to {@link #with(String, int)}
+     * @param checked a checked permission node
+     * @return true if {@link #parse(String, WildcardMatches)} of the checked node collects the id of the stored node
+     */
+    static boolean covers(String stored, String checked) {
+        if (GLOBAL_WILDCARD.equals(stored)) return true;
+        if (stored.endsWith(WILDCARD_SUFFIX)) {
+            return checked.regionMatches(0, stored, 0, stored.length() - 1);
+        }
+        return stored.equals(checked);
+    }
+
+    private static Node insert(Node node, String path, int index, int end, int id, boolean wildcard) {
+        if (index == end) {
+            return wildcard ? node.withIds(node.exactId, id) : node.withIds(id, node.wildcardId);
+        }
+
+        char c = path.charAt(index);
+        int position = Arrays.binarySearch(node.keys, c);
+        if (position >= 0) {
+            Node[] children = node.children.clone();
+            children[position] = insert(children[position], path, index + 1, end, id, wildcard);
+            return new Node(node.keys, children, node.exactId, node.wildcardId);
+        }
+
+        int insertAt = -position - 1;
+        char[] keys = new char[node.keys.length + 1];
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.keys, 0, keys, 0, insertAt);
+        System.arraycopy(node.children, 0, children, 0, insertAt);
+        keys[insertAt] = c;
+        children[insertAt] = insert(EMPTY.root, path, index + 1, end, id, wildcard);
+        System.arraycopy(node.keys, insertAt, keys, insertAt + 1, node.keys.length - insertAt);
+        System.arraycopy(node.children, insertAt, children, insertAt + 1, node.children.length - insertAt);
+        return new Node(keys, children, node.exactId, node.wildcardId);
+    }
+
+    private static final class Node {
+        private final char[] keys;
+        private final Node[] children;
+        private final int exactId;
+        private final int wildcardId;
+
+        private Node(char[] keys, Node[] children, int exactId, int wildcardId) {
+            this.keys = keys;
+            this.children = children;
+            this.exactId = exactId;
+            this.wildcardId = wildcardId;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node withIds(int exactId, int wildcardId) {
+            return new Node(keys, children, exactId, wildcardId);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Compiled permissions of a user with personal nodes: the user's own table laid over the shared
+ * {@link CompiledGroupSet} of its groups. A node set on the user wins over every group, all other
+ * nodes are answered by the group set.
+ * <p>
+ * The group set is referenced, not copied, so the overlay stays valid while the set is patched or
+ * recompiled in place. Users without personal nodes have no overlay and use the group set directly.
+ */
+public final class UserOverlayPermissions implements CompiledPermissions {
+
+    @Getter
+    private final EffectivePermissions own;
+    private final CompiledGroupSet groups;
+
+    /**
+     * @param own the compiled personal nodes of the user
+     * @param groups the shared group set of the user
+     */
+    public UserOverlayPermissions(EffectivePermissions own, CompiledGroupSet groups) {
+        this.own = own;
+        this.groups = groups;
+    }
+
+    /**
+     * @return an overlay with the same personal nodes over another group set
+     */
+    public UserOverlayPermissions withGroups(CompiledGroupSet groups) {
+        return groups == this.groups ? this : new UserOverlayPermissions(own, groups);
+    }
+
+    /**
+     * @return the current permissions of the group set
+     */
+    CompiledPermissions groupPermissions() {
+        return groups.getPermissions();
+    }
+
+    @Override
+    public PermissionDecision decision(int id) {
+        PermissionDecision decision = own.decision(id);
+        if (decision != PermissionDecision.NOT_SET) return decision;
+        return groups.getPermissions().decision(id);
+    }
+
+    @Override
+    public boolean mightMatchRoot(int rootHash) {
+        return own.mightMatchRoot(rootHash) || groups.getPermissions().mightMatchRoot(rootHash);
+    }
+
+    @Override
+    public Map<String, PermissionDecision> toMap(PermissionNodeRegistry registry) {
+        Map<String, PermissionDecision> out = groups.getPermissions().toMap(registry);
+        out.putAll(own.toMap(registry));
+        return out;
+    }
+}
@@ -0,0 +1,47 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import java.util.Arrays;
+
+/**
+ * Collects the wildcards and glob patterns covering a node while it is parsed, together with their
+ * specificity, and turns them into a {@link ParsedNode}. Only used while a node is not cached yet.
+ */
+final class WildcardMatches {
+
+    private int[] ids = new int[8];
+    private int[] specificities = new int[8];
+    private int count;
+
+    void add(int id, int specificity) {
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            specificities = Arrays.copyOf(specificities, count * 2);
+        }
+        ids[count] = id;
+        specificities[count] = specificity;
+        count++;
+    }
+
+    /**
+     * @return the parsed node, its wildcards ordered from the most to the least specific
+     */
+    ParsedNode toParsedNode(String node, int generation, int exactId) {
+        int[] sortedIds = Arrays.copyOf(ids, count);
+        int[] sortedSpecificities = Arrays.copyOf(specificities, count);
+
+        // insertion sort, a node is covered by a handful of wildcards at most
+        for (int i = 1; i < count; i++) {
+            int id = sortedIds[i];
+            int specificity = sortedSpecificities[i];
+            int j = i - 1;
+            while (j >= 0 && sortedSpecificities[j] < specificity) {
+                sortedIds[j + 1] = sortedIds[j];
+                sortedSpecificities[j + 1] = sortedSpecificities[j];
+                j--;
+            }
+            sortedIds[j + 1] = id;
+            sortedSpecificities[j + 1] = specificity;
+        }
+        return new ParsedNode(node, generation, exactId, sortedIds, sortedSpecificities);
+    }
+}
@@ -0,0 +1,153 @@
+package io.nexstudios.legendperms.perms.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for deadline based expirations.
+ * <p>
+ * Deadlines are bucketed into {@value #LEVELS} wheels of {@value #SLOTS} slots each. Level 0 has a
+ * resolution of one tick, every following level covers {@value #SLOTS} times the range of the level
+ * below. Scheduling is O(1), and an entry is moved down at most once per level before it fires,
+ * so the cost per scheduled expiry is O(1) amortised. A tick without due entries only looks at a
+ * single level 0 slot.
+ * <p>
+ * The wheel does not support cancellation. Callers validate fired payloads against their current
+ * state and simply ignore stale ones (e.g. a membership that was removed or extended meanwhile).
+ * <p>
+ * All methods are synchronized, scheduling is allowed from any thread.
+ *
+ * @param <T> the payload type that is handed back once its deadline is reached
+ */
+public final class ExpiryWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    // deltas beyond this are parked in the last slot of the top level and re-cascaded later
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final Entry<T>[][] wheels;
+
+    // last tick that has been processed
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be > 0");
+        this.tickMillis = tickMillis;
+        this.wheels = (Entry<T>[][]) new Entry[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Schedules the payload to be returned by {@link #advance(long)} once the given deadline is reached.
+     * Deadlines in the past fire on the next advance.
+     *
+     * @param payload the payload, must not be null
+     * @param deadlineMillis the deadline as epoch milliseconds
+     */
+    public synchronized void schedule(T payload, long deadlineMillis) {
+        if (payload == null) throw new IllegalArgumentException("payload must not be null");
+
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        insert(new Entry<>(payload, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Advances the wheel up to the given time and returns every payload whose deadline has been reached.
+     *
+     * @param nowMillis the current time as epoch milliseconds
+     * @return the due payloads in tick order, an immutable empty list if nothing is due
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<T> due = List.of();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            int index = (int) (currentTick & SLOT_MASK);
+            Entry<T> entry = wheels[0][index];
+            if (entry == null) continue;
+
+            wheels[0][index] = null;
+            if (due.isEmpty()) due = new ArrayList<>();
+            for (; entry != null; entry = entry.next) {
+                due.add(entry.payload);
+                size--;
+            }
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Moves the entries of every higher level slot that starts at the current tick one or more levels down.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            // only cascade when all lower level bits of the current tick are zero
+            if ((currentTick & ((1L << shift) - 1)) != 0) return;
+
+            int index = (int) ((currentTick >>> shift) & SLOT_MASK);
+            Entry<T> entry = wheels[level][index];
+            wheels[level][index] = null;
+
+            while (entry != null) {
+                Entry<T> next = entry.next;
+                if (entry.deadlineTick <= currentTick) {
+                    // due right now, the level 0 slot of the current tick is drained after cascading
+                    link(0, (int) (currentTick & SLOT_MASK), entry);
+                } else {
+                    insert(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    private void insert(Entry<T> entry) {
+        long delta = entry.deadlineTick - currentTick;
+
+        if (delta <= 0) {
+            // overdue, fire on the next processed tick
+            link(0, (int) ((currentTick + 1) & SLOT_MASK), entry);
+            return;
+        }
+
+        long tick = delta > MAX_DELTA ? currentTick + MAX_DELTA : entry.deadlineTick;
+        long range = Math.min(delta, MAX_DELTA);
+
+        int level = 0;
+        while (level < LEVELS - 1 && range >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        link(level, (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK), entry);
+    }
+
+    private void link(int level, int index, Entry<T> entry) {
+        entry.next = wheels[level][index];
+        wheels[level][index] = entry;
+    }
+
+    private static final class Entry<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Entry<T> next;
+
+        private Entry(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
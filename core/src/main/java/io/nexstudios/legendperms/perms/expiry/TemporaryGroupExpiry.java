@@ -0,0 +1,11 @@
+package io.nexstudios.legendperms.perms.expiry;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A scheduled expiration of a temporary group membership. Only valid as long as the user
+ * still holds the group with exactly this deadline, otherwise it is stale and ignored.
+ */
+public record TemporaryGroupExpiry(UUID uuid, int groupId, Instant expiresAt) {
+}
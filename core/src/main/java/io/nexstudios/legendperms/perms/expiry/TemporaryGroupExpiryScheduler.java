@@ -0,0 +1,43 @@
+package io.nexstudios.legendperms.perms.expiry;
+
+import io.nexstudios.legendperms.perms.LegendPermissionService;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Dedicated main-thread scheduler that expires temporary group memberships and temporary permission nodes.
+ * <p>
+ * Permission checks, prefix and priority lookups only read the precomputed state of a user.
+ * Expiring a temporary group or node (and the rebuild or patch that follows) happens exclusively here,
+ * so the Bukkit-facing part of a rebuild never runs on an async thread like the chat thread.
+ * <p>
+ * A tick in which nothing is due costs a single slot lookup in each of the service's {@link ExpiryWheel}s.
+ */
+public final class TemporaryGroupExpiryScheduler {
+
+    // every tick, so a membership or node expires within one tick of its deadline
+    private static final long PERIOD_TICKS = 1L;
+
+    private final LegendPermissionService permissionService;
+    private BukkitTask task;
+
+    public TemporaryGroupExpiryScheduler(LegendPermissionService permissionService) {
+        this.permissionService = permissionService;
+    }
+
+    public void start(Plugin plugin) {
+        stop();
+        this.task = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            permissionService.expireTemporaryGroups();
+            permissionService.expireTemporaryPermissions();
+        }, PERIOD_TICKS, PERIOD_TICKS);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.nexstudios.legendperms.perms.expiry;
+
+import io.nexstudios.legendperms.perms.model.UserSnapshot;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A scheduled expiration of a temporary permission node, either of a group or of a single user.
+ * Only valid as long as the holder still has the node with exactly this deadline, otherwise it is
+ * stale and ignored.
+ *
+ * @param uuid the user holding the node, null for a group node
+ * @param groupId the group holding the node, only meaningful if {@code uuid} is null
+ * @param node the permission node
+ * @param expiresAt the deadline of the node
+ */
+public record TemporaryPermissionExpiry(UUID uuid, int groupId, String node, Instant expiresAt) {
+
+    public static TemporaryPermissionExpiry ofGroup(int groupId, String node, Instant expiresAt) {
+        return new TemporaryPermissionExpiry(null, groupId, node, expiresAt);
+    }
+
+    public static TemporaryPermissionExpiry ofUser(UUID uuid, String node, Instant expiresAt) {
+        return new TemporaryPermissionExpiry(uuid, UserSnapshot.NO_GROUP, node, expiresAt);
+    }
+
+    public boolean isGroupNode() {
+        return uuid == null;
+    }
+}
@@ -4,6 +4,7 @@ import io.nexstudios.legendperms.perms.LegendPermissionService;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 public record LoadPlayerDataListener(LegendPermissionService permissionService) implements Listener {
 
@@ -11,4 +12,9 @@ public record LoadPlayerDataListener(LegendPermissionService permissionService)
     public void onJoin(PlayerJoinEvent e) {
         permissionService.loadUserFromStorageAsync(e.getPlayer().getUniqueId());
     }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent e) {
+        permissionService.clearAppliedPermissions(e.getPlayer().getUniqueId());
+    }
 }
\ No newline at end of file
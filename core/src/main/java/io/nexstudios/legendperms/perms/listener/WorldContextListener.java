@@ -0,0 +1,31 @@
+package io.nexstudios.legendperms.perms.listener;
+
+import io.nexstudios.legendperms.perms.LegendPermissionService;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Keeps the world of each player up to date, so their compiled table always matches the world they are in.
+ */
+public record WorldContextListener(LegendPermissionService permissionService) implements Listener {
+
+    // before the user is loaded, so the first rebuild already compiles for the right world
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent e) {
+        permissionService.setActiveWorld(e.getPlayer().getUniqueId(), e.getPlayer().getWorld().getName());
+    }
+
+    @EventHandler
+    public void onChangedWorld(PlayerChangedWorldEvent e) {
+        permissionService.setActiveWorld(e.getPlayer().getUniqueId(), e.getPlayer().getWorld().getName());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent e) {
+        permissionService.setActiveWorld(e.getPlayer().getUniqueId(), null);
+    }
+}
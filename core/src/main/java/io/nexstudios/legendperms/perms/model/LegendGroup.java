@@ -4,20 +4,28 @@ import io.nexstudios.legendperms.perms.PermissionDecision;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @Setter
 public final class LegendGroup {
+    // stable id assigned by the GroupRegistry
+    private final int id;
     private final String name;
     @Setter
     private volatile int priority;
     private volatile String prefix;
     private final Map<String, PermissionDecision> permissions = new ConcurrentHashMap<>();
+    // deadlines of the temporary nodes in permissions, permanent nodes have none
+    private final Map<String, Instant> temporaryPermissions = new ConcurrentHashMap<>();
+    // lower case world name -> nodes that only apply in that world
+    private final Map<String, Map<String, PermissionDecision>> worldPermissions = new ConcurrentHashMap<>();
 
     // default values
-    public LegendGroup(String name) {
+    public LegendGroup(int id, String name) {
+        this.id = id;
         this.name = name;
         this.priority = 0;
         this.prefix = "";
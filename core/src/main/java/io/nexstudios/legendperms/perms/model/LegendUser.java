@@ -1,22 +1,82 @@
 package io.nexstudios.legendperms.perms.model;
 
 import lombok.Getter;
-import lombok.Setter;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
-@Getter
-@Setter
+/**
+ * A cached user. The whole state lives in an immutable {@link UserSnapshot} that is swapped with a CAS,
+ * so reading it is a single volatile load and readers never observe a half-applied change.
+ * <p>
+ * Membership changes are not published right away: they stay pending until the group set they lead to
+ * is compiled, and are then published together with the primary group and the compiled set, see
+ * {@link #publish(UnaryOperator)}. Pending memberships are only written by the writer thread.
+ */
 public final class LegendUser {
+    @Getter
     private final UUID uuid;
-    private final Set<String> groups = ConcurrentHashMap.newKeySet();
-    private final Map<String, Instant> temporaryGroups = new ConcurrentHashMap<>();
+    private final AtomicReference<UserSnapshot> snapshot = new AtomicReference<>(UserSnapshot.EMPTY);
+    // the memberships applied by the writer but not published yet, null if there are none
+    private volatile UserSnapshot pending;
 
     public LegendUser(UUID uuid) {
         this.uuid = uuid;
     }
-}
\ No newline at end of file
+
+    public UserSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * @return the published snapshot with the latest memberships, including the pending ones
+     */
+    public UserSnapshot getMemberships() {
+        UserSnapshot published = snapshot.get();
+        UserSnapshot memberships = pending;
+        return memberships == null ? published : published.withMemberships(memberships.groups(), memberships.temporaryGroups());
+    }
+
+    /**
+     * Applies a membership change without publishing it. Must only be called on the writer thread.
+     *
+     * @param update creates the new memberships from the latest ones
+     * @return the snapshot with the latest memberships the update was applied to
+     */
+    public UserSnapshot updateMemberships(UnaryOperator<UserSnapshot> update) {
+        UserSnapshot current = getMemberships();
+        UserSnapshot next = update.apply(current);
+        if (next != current) pending = next;
+        return current;
+    }
+
+    /**
+     * Publishes the pending memberships with a single swap of the snapshot and clears them. The update
+     * must carry over the memberships of {@link #getMemberships()}. Must only be called on the writer thread.
+     *
+     * @param update creates the published snapshot from the current one
+     * @return the snapshot that was replaced
+     */
+    public UserSnapshot publish(UnaryOperator<UserSnapshot> update) {
+        UserSnapshot previous = update(update);
+        pending = null;
+        return previous;
+    }
+
+    /**
+     * Atomically replaces the snapshot with the result of the update. The update may be applied more than
+     * once under contention and must therefore be free of side effects. Returning the given snapshot
+     * leaves the user unchanged.
+     *
+     * @param update creates the new snapshot from the current one
+     * @return the snapshot the successful update was applied to
+     */
+    public UserSnapshot update(UnaryOperator<UserSnapshot> update) {
+        while (true) {
+            UserSnapshot current = snapshot.get();
+            UserSnapshot next = update.apply(current);
+            if (next == current || snapshot.compareAndSet(current, next)) return current;
+        }
+    }
+}
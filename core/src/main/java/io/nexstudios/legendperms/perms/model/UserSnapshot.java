@@ -0,0 +1,171 @@
+package io.nexstudios.legendperms.perms.model;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import io.nexstudios.legendperms.perms.compiled.CompiledGroupSet;
+import io.nexstudios.legendperms.perms.compiled.CompiledPermissions;
+import io.nexstudios.legendperms.perms.compiled.EffectivePermissions;
+import io.nexstudios.legendperms.perms.compiled.UserOverlayPermissions;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable state of a {@link LegendUser}: permanent groups, temporary group deadlines, the resolved
+ * primary group with its prefix and priority, the compiled permissions of the last published
+ * group set, and the personal nodes of the user with the deadlines of the temporary ones.
+ * <p>
+ * Groups are referenced by their id in the {@link io.nexstudios.legendperms.perms.GroupRegistry},
+ * so every membership check is a single hash lookup.
+ * <p>
+ * A snapshot is never modified, every change creates a new one which replaces the previous one
+ * atomically. The groups, the primary group and the compiled set of a published snapshot are always
+ * published together, with {@link #withGroupSet}, so readers on any thread see groups and permissions
+ * that belong to each other with a single volatile load. Membership changes that are not compiled yet
+ * are kept apart, see {@link LegendUser#getMemberships()}.
+ *
+ * @param groups the ids of the permanent groups
+ * @param temporaryGroups the ids of the temporary groups with their deadline
+ * @param primaryGroupId the id of the primary group, {@link #NO_GROUP} if it was not resolved yet
+ * @param primaryPrefix the prefix of the primary group
+ * @param primaryPriority the priority of the primary group
+ * @param compiled the shared compiled permissions, null if they were not published yet
+ * @param permissions the personal nodes of the user
+ * @param temporaryPermissions the deadlines of the temporary personal nodes
+ * @param overlay the personal nodes laid over the compiled group set, null if the user has no personal nodes
+ */
+public record UserSnapshot(Set<Integer> groups,
+                           Map<Integer, Instant> temporaryGroups,
+                           int primaryGroupId,
+                           String primaryPrefix,
+                           int primaryPriority,
+                           CompiledGroupSet compiled,
+                           Map<String, PermissionDecision> permissions,
+                           Map<String, Instant> temporaryPermissions,
+                           UserOverlayPermissions overlay) {
+
+    public static final int NO_GROUP = -1;
+    public static final UserSnapshot EMPTY = new UserSnapshot(Set.of(), Map.of(), NO_GROUP, "", 0, null, Map.of(), Map.of(), null);
+
+    public UserSnapshot {
+        groups = Set.copyOf(groups);
+        temporaryGroups = Map.copyOf(temporaryGroups);
+        permissions = Map.copyOf(permissions);
+        temporaryPermissions = Map.copyOf(temporaryPermissions);
+    }
+
+    /**
+     * @return the permissions checks are answered from: the overlay if the user has personal nodes,
+     *         otherwise the shared group set. Null if the group set was not published yet.
+     */
+    public CompiledPermissions effectivePermissions() {
+        if (compiled == null) return null;
+        return overlay != null ? overlay : compiled.getPermissions();
+    }
+
+    /**
+     * @return the ids of the permanent and temporary groups
+     */
+    public Set<Integer> activeGroupIds() {
+        Set<Integer> out = new HashSet<>(groups);
+        out.addAll(temporaryGroups.keySet());
+        return out;
+    }
+
+    public boolean hasNoGroups() {
+        return groups.isEmpty() && temporaryGroups.isEmpty();
+    }
+
+    public boolean hasGroup(int groupId) {
+        return groups.contains(groupId);
+    }
+
+    public boolean hasTemporaryGroup(int groupId) {
+        return temporaryGroups.containsKey(groupId);
+    }
+
+    public UserSnapshot withMemberships(Set<Integer> groups, Map<Integer, Instant> temporaryGroups) {
+        return new UserSnapshot(groups, temporaryGroups, primaryGroupId, primaryPrefix, primaryPriority, compiled, permissions, temporaryPermissions, overlay);
+    }
+
+    public UserSnapshot withGroup(int groupId) {
+        if (groups.contains(groupId)) return this;
+
+        Set<Integer> next = new HashSet<>(groups);
+        next.add(groupId);
+        return withMemberships(next, temporaryGroups);
+    }
+
+    /**
+     * Removes the group from the permanent and the temporary groups.
+     */
+    public UserSnapshot withoutGroup(int groupId) {
+        if (!hasGroup(groupId) && !hasTemporaryGroup(groupId)) return this;
+
+        Set<Integer> nextGroups = new HashSet<>(groups);
+        nextGroups.remove(groupId);
+        Map<Integer, Instant> nextTemporary = new HashMap<>(temporaryGroups);
+        nextTemporary.remove(groupId);
+        return withMemberships(nextGroups, nextTemporary);
+    }
+
+    /**
+     * Adds the given group as the only permanent group if the user has no group at all.
+     */
+    public UserSnapshot withGroupIfEmpty(int groupId) {
+        return hasNoGroups() ? withMemberships(Set.of(groupId), temporaryGroups) : this;
+    }
+
+    public UserSnapshot withTemporaryGroup(int groupId, Instant expiresAt) {
+        if (expiresAt.equals(temporaryGroups.get(groupId))) return this;
+
+        Map<Integer, Instant> next = new HashMap<>(temporaryGroups);
+        next.put(groupId, expiresAt);
+        return withMemberships(groups, next);
+    }
+
+    public UserSnapshot withoutTemporaryGroup(int groupId) {
+        if (!temporaryGroups.containsKey(groupId)) return this;
+
+        Map<Integer, Instant> next = new HashMap<>(temporaryGroups);
+        next.remove(groupId);
+        return withMemberships(groups, next);
+    }
+
+    /**
+     * Removes the temporary group only if it still expires at exactly the given deadline.
+     */
+    public UserSnapshot withoutTemporaryGroup(int groupId, Instant expiresAt) {
+        return expiresAt.equals(temporaryGroups.get(groupId)) ? withoutTemporaryGroup(groupId) : this;
+    }
+
+    /**
+     * Publishes a group set: the memberships it was compiled from, the primary group resolved from them
+     * and the compiled permissions.
+     *
+     * @param memberships the snapshot carrying the memberships of the group set
+     */
+    public UserSnapshot withGroupSet(UserSnapshot memberships, int primaryGroupId, String primaryPrefix,
+                                     int primaryPriority, CompiledGroupSet compiled) {
+        UserOverlayPermissions nextOverlay = overlay == null || compiled == this.compiled ? overlay : overlay.withGroups(compiled);
+        return new UserSnapshot(memberships.groups, memberships.temporaryGroups, primaryGroupId, primaryPrefix, primaryPriority,
+                compiled, permissions, temporaryPermissions, nextOverlay);
+    }
+
+    /**
+     * Replaces the personal nodes of the user.
+     *
+     * @param permissions the personal nodes
+     * @param temporaryPermissions the deadlines of the temporary ones among them
+     * @param own the personal nodes compiled with the node registry of the service
+     */
+    public UserSnapshot withPermissions(Map<String, PermissionDecision> permissions,
+                                        Map<String, Instant> temporaryPermissions,
+                                        EffectivePermissions own) {
+        // users without personal nodes keep checking the group set directly
+        UserOverlayPermissions nextOverlay = own == EffectivePermissions.EMPTY ? null : new UserOverlayPermissions(own, compiled);
+        return new UserSnapshot(groups, temporaryGroups, primaryGroupId, primaryPrefix, primaryPriority, compiled, permissions, temporaryPermissions, nextOverlay);
+    }
+}
@@ -0,0 +1,38 @@
+package io.nexstudios.legendperms.perms.rebuild;
+
+import io.nexstudios.legendperms.perms.LegendPermissionService;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Main-thread scheduler that flushes the users marked dirty in the {@link LegendPermissionService}.
+ * <p>
+ * Mutations (group add/remove, temporary groups, default group fallback, group edits) only mark the
+ * affected users dirty. The flush runs once per tick, so any number of mutations of one user within a
+ * tick cost a single rebuild and a single permission, command and tablist refresh.
+ */
+public final class UserRebuildScheduler {
+
+    // every tick, so changes are visible to the player within one tick
+    private static final long PERIOD_TICKS = 1L;
+
+    private final LegendPermissionService permissionService;
+    private BukkitTask task;
+
+    public UserRebuildScheduler(LegendPermissionService permissionService) {
+        this.permissionService = permissionService;
+    }
+
+    public void start(Plugin plugin) {
+        stop();
+        this.task = Bukkit.getScheduler().runTaskTimer(plugin, permissionService::flushDirtyUsers, PERIOD_TICKS, PERIOD_TICKS);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
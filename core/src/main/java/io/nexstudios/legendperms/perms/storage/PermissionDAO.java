@@ -12,8 +12,8 @@ import java.util.concurrent.CompletableFuture;
 /**
  * A data access object (DAO) designed for operations related to permission management.
  * This class interacts with the underlying database structure to perform CRUD operations
- * on permission-related entities such as groups, group permissions, user group assignments,
- * and temporary groups.
+ * on permission-related entities such as groups, group permissions, world-scoped group permissions, group parents, user group
+ * assignments, personal user permissions, temporary groups, and the deadlines of temporary permission nodes.
  * <p>
  * This DAO is compatible with multiple database types, including SQLite and MySQL/MariaDB,
  * and handles database-type specific SQL syntax adjustments where necessary.
@@ -27,6 +27,10 @@ import java.util.concurrent.CompletableFuture;
  */
 public record PermissionDAO(AbstractDatabase db) {
 
+    // holder types of lp_temp_permissions
+    private static final String GROUP_HOLDER = "group";
+    private static final String USER_HOLDER = "user";
+
     /**
      * Migrates the database schema to ensure that all required tables for the permission system
      * exist. The method executes a series of SQL Data Definition Language (DDL) statements
@@ -52,6 +56,20 @@ public record PermissionDAO(AbstractDatabase db) {
                         "PRIMARY KEY (group_name, node)" +
                         ")",
 
+                "CREATE TABLE IF NOT EXISTS lp_group_world_permissions (" +
+                        "group_name VARCHAR(64) NOT NULL," +
+                        "world VARCHAR(64) NOT NULL," +
+                        "node VARCHAR(255) NOT NULL," +
+                        "decision INT NOT NULL," +
+                        "PRIMARY KEY (group_name, world, node)" +
+                        ")",
+
+                "CREATE TABLE IF NOT EXISTS lp_group_parents (" +
+                        "group_name VARCHAR(64) NOT NULL," +
+                        "parent_name VARCHAR(64) NOT NULL," +
+                        "PRIMARY KEY (group_name, parent_name)" +
+                        ")",
+
                 "CREATE TABLE IF NOT EXISTS lp_users (" +
                         "uuid CHAR(36) PRIMARY KEY" +
                         ")",
@@ -67,6 +85,22 @@ public record PermissionDAO(AbstractDatabase db) {
                         "group_name VARCHAR(64) NOT NULL," +
                         "expires_at BIGINT NOT NULL," +
                         "PRIMARY KEY (uuid, group_name)" +
+                        ")",
+
+                "CREATE TABLE IF NOT EXISTS lp_user_permissions (" +
+                        "uuid CHAR(36) NOT NULL," +
+                        "node VARCHAR(255) NOT NULL," +
+                        "decision INT NOT NULL," +
+                        "PRIMARY KEY (uuid, node)" +
+                        ")",
+
+                // deadlines of temporary nodes, the nodes themselves are stored with the permanent ones
+                "CREATE TABLE IF NOT EXISTS lp_temp_permissions (" +
+                        "holder_type VARCHAR(8) NOT NULL," +
+                        "holder VARCHAR(64) NOT NULL," +
+                        "node VARCHAR(255) NOT NULL," +
+                        "expires_at BIGINT NOT NULL," +
+                        "PRIMARY KEY (holder_type, holder, node)" +
                         ")"
         );
 
@@ -102,6 +136,41 @@ public record PermissionDAO(AbstractDatabase db) {
         return db.queryRowsFuture("SELECT group_name, node, decision FROM lp_group_permissions");
     }
 
+    /**
+     * Loads all world-scoped group permissions from the database. Each record includes the group name,
+     * the world the node applies in, the permission node, and its decision.
+     *
+     * @return a CompletableFuture that, when completed, contains a list of maps. Each map represents
+     *         a permission with keys "group_name", "world", "node", and "decision" mapped to their respective values.
+     */
+    public CompletableFuture<List<Map<String, Object>>> loadAllGroupWorldPermissions() {
+        return db.queryRowsFuture("SELECT group_name, world, node, decision FROM lp_group_world_permissions");
+    }
+
+    /**
+     * Loads all parent links between groups from the database. Each record names a group and one of
+     * the groups it inherits from.
+     *
+     * @return a CompletableFuture that, when completed, contains a list of maps. Each map represents
+     *         a link with keys "group_name" and "parent_name" mapped to their respective values.
+     */
+    public CompletableFuture<List<Map<String, Object>>> loadAllGroupParents() {
+        return db.queryRowsFuture("SELECT group_name, parent_name FROM lp_group_parents");
+    }
+
+    /**
+     * Loads the deadlines of all temporary group permission nodes from the database.
+     *
+     * @return a CompletableFuture that, when completed, contains a list of maps. Each map represents
+     *         a deadline with keys "group_name", "node", and "expires_at" mapped to their respective values.
+     */
+    public CompletableFuture<List<Map<String, Object>>> loadAllGroupPermissionDeadlines() {
+        return db.queryRowsFuture(
+                "SELECT holder AS group_name, node, expires_at FROM lp_temp_permissions WHERE holder_type = ?",
+                GROUP_HOLDER
+        );
+    }
+
     /**
      * Asynchronously loads the list of permanent groups associated with a specific user from the database.
      * Each group is returned as a map containing the column "group_name".
@@ -134,6 +203,34 @@ public record PermissionDAO(AbstractDatabase db) {
         );
     }
 
+    /**
+     * Asynchronously loads the personal permission nodes of a specific user from the database.
+     *
+     * @param uuid the unique identifier of the user whose permissions are to be loaded
+     * @return a CompletableFuture that, when completed, contains a list of maps.
+     * Each map represents a row with keys "node" and "decision" mapped to their respective values.
+     */
+    public CompletableFuture<List<Map<String, Object>>> loadUserPermissions(UUID uuid) {
+        return db.queryRowsFuture(
+                "SELECT node, decision FROM lp_user_permissions WHERE uuid = ?",
+                uuid.toString()
+        );
+    }
+
+    /**
+     * Asynchronously loads the deadlines of the temporary personal permission nodes of a specific user.
+     *
+     * @param uuid the unique identifier of the user whose deadlines are to be loaded
+     * @return a CompletableFuture that, when completed, contains a list of maps.
+     * Each map represents a row with keys "node" and "expires_at" mapped to their respective values.
+     */
+    public CompletableFuture<List<Map<String, Object>>> loadUserPermissionDeadlines(UUID uuid) {
+        return db.queryRowsFuture(
+                "SELECT node, expires_at FROM lp_temp_permissions WHERE holder_type = ? AND holder = ?",
+                USER_HOLDER, uuid.toString()
+        );
+    }
+
     /**
      * Ensures that a row exists in the "lp_users" table for the specified user.
      * If the row does not exist, it will be created. This operation is performed
@@ -198,8 +295,8 @@ public record PermissionDAO(AbstractDatabase db) {
 
     /**
      * Deletes a group and all associated data from the database asynchronously. This method removes
-     * the group's permissions, user group associations (both permanent and temporary),
-     * and the group record itself.
+     * the group's permissions (global and world-scoped) and their deadlines, its parent links in both directions, user group
+     * associations (both permanent and temporary), and the group record itself.
      *
      * @param name the name of the group to delete
      * @return a CompletableFuture that completes when the group and all associated data have been
@@ -210,7 +307,10 @@ public record PermissionDAO(AbstractDatabase db) {
         CompletableFuture<Void> f2 = db.executeSqlFuture("DELETE FROM lp_user_groups WHERE group_name = ?", name).thenApply(x -> null);
         CompletableFuture<Void> f3 = db.executeSqlFuture("DELETE FROM lp_user_temp_groups WHERE group_name = ?", name).thenApply(x -> null);
         CompletableFuture<Void> f4 = db.executeSqlFuture("DELETE FROM lp_groups WHERE name = ?", name).thenApply(x -> null);
-        return f1.thenCompose(v -> f2).thenCompose(v -> f3).thenCompose(v -> f4);
+        CompletableFuture<Void> f5 = db.executeSqlFuture("DELETE FROM lp_group_parents WHERE group_name = ? OR parent_name = ?", name, name).thenApply(x -> null);
+        CompletableFuture<Void> f6 = deletePermissionDeadlines(GROUP_HOLDER, name);
+        CompletableFuture<Void> f7 = db.executeSqlFuture("DELETE FROM lp_group_world_permissions WHERE group_name = ?", name).thenApply(x -> null);
+        return f1.thenCompose(v -> f2).thenCompose(v -> f3).thenCompose(v -> f4).thenCompose(v -> f5).thenCompose(v -> f6).thenCompose(v -> f7);
     }
 
     /**
@@ -252,6 +352,96 @@ public record PermissionDAO(AbstractDatabase db) {
         ).thenApply(x -> null);
     }
 
+    /**
+     * Inserts or updates a group permission that only applies in the given world.
+     *
+     * @param groupName the name of the group to which the permission belongs
+     * @param world the lower case name of the world
+     * @param node the permission node to be inserted or updated
+     * @param decision the permission decision to associate with the node
+     * @return a CompletableFuture that completes when the operation is finished successfully
+     *         or exceptionally if an error occurs
+     */
+    public CompletableFuture<Void> upsertGroupWorldPermission(String groupName, String world, String node, PermissionDecision decision) {
+        int d = encode(decision);
+        String sql = switch (db.getDatabaseType()) {
+            case SQLITE -> "INSERT INTO lp_group_world_permissions(group_name, world, node, decision) VALUES(?, ?, ?, ?) " +
+                    "ON CONFLICT(group_name, world, node) DO UPDATE SET decision=excluded.decision";
+            case MYSQL, MARIADB -> "INSERT INTO lp_group_world_permissions(group_name, world, node, decision) VALUES(?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE decision=VALUES(decision)";
+        };
+        return db.executeSqlFuture(sql, groupName, world, node, d).thenApply(x -> null);
+    }
+
+    /**
+     * Deletes a world-scoped permission node of a group.
+     *
+     * @param groupName the name of the group whose permission is to be deleted
+     * @param world the lower case name of the world
+     * @param node the permission node to be deleted
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> deleteGroupWorldPermission(String groupName, String world, String node) {
+        return db.executeSqlFuture(
+                "DELETE FROM lp_group_world_permissions WHERE group_name = ? AND world = ? AND node = ?",
+                groupName, world, node
+        ).thenApply(x -> null);
+    }
+
+    /**
+     * Inserts or updates the deadline of a temporary group permission node. The node itself is stored
+     * with {@link #upsertGroupPermission(String, String, PermissionDecision)}.
+     *
+     * @param groupName the name of the group to which the node belongs
+     * @param node the temporary permission node
+     * @param expiresAt the expiration time of the node
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> upsertGroupPermissionDeadline(String groupName, String node, Instant expiresAt) {
+        return upsertPermissionDeadline(GROUP_HOLDER, groupName, node, expiresAt);
+    }
+
+    /**
+     * Deletes the deadline of a group permission node, the node becomes permanent or has been removed.
+     *
+     * @param groupName the name of the group to which the node belongs
+     * @param node the permission node
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> deleteGroupPermissionDeadline(String groupName, String node) {
+        return deletePermissionDeadline(GROUP_HOLDER, groupName, node);
+    }
+
+    /**
+     * Stores that a group inherits from a parent group. Existing links are left untouched.
+     *
+     * @param groupName the name of the inheriting group
+     * @param parentName the name of the parent group
+     * @return a CompletableFuture that completes when the operation is finished successfully,
+     *         or completes exceptionally if an error occurs
+     */
+    public CompletableFuture<Void> addGroupParent(String groupName, String parentName) {
+        String sql = switch (db.getDatabaseType()) {
+            case SQLITE -> "INSERT OR IGNORE INTO lp_group_parents(group_name, parent_name) VALUES(?, ?)";
+            case MYSQL, MARIADB -> "INSERT IGNORE INTO lp_group_parents(group_name, parent_name) VALUES(?, ?)";
+        };
+        return db.executeSqlFuture(sql, groupName, parentName).thenApply(x -> null);
+    }
+
+    /**
+     * Removes the link between a group and one of its parent groups.
+     *
+     * @param groupName the name of the inheriting group
+     * @param parentName the name of the parent group
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> removeGroupParent(String groupName, String parentName) {
+        return db.executeSqlFuture(
+                "DELETE FROM lp_group_parents WHERE group_name = ? AND parent_name = ?",
+                groupName, parentName
+        ).thenApply(x -> null);
+    }
+
     /**
      * Adds a user to a specified permanent group in the database. This method
      * ensures that the user exists in the "lp_users" table before associating the user
@@ -319,6 +509,65 @@ public record PermissionDAO(AbstractDatabase db) {
         ).thenApply(x -> null);
     }
 
+    /**
+     * Inserts or updates a personal permission node of a user. If the node already exists for the user,
+     * its decision is updated.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the permission node to be inserted or updated
+     * @param decision the permission decision to associate with the node
+     * @return a CompletableFuture that completes when the operation is finished successfully
+     *         or exceptionally if an error occurs
+     */
+    public CompletableFuture<Void> upsertUserPermission(UUID uuid, String node, PermissionDecision decision) {
+        int d = encode(decision);
+        String sql = switch (db.getDatabaseType()) {
+            case SQLITE -> "INSERT INTO lp_user_permissions(uuid, node, decision) VALUES(?, ?, ?) " +
+                    "ON CONFLICT(uuid, node) DO UPDATE SET decision=excluded.decision";
+            case MYSQL, MARIADB -> "INSERT INTO lp_user_permissions(uuid, node, decision) VALUES(?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE decision=VALUES(decision)";
+        };
+        return ensureUserRow(uuid).thenCompose(v -> db.executeSqlFuture(sql, uuid.toString(), node, d).thenApply(x -> null));
+    }
+
+    /**
+     * Deletes a personal permission node of a user.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the permission node to be deleted
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> deleteUserPermission(UUID uuid, String node) {
+        return db.executeSqlFuture(
+                "DELETE FROM lp_user_permissions WHERE uuid = ? AND node = ?",
+                uuid.toString(), node
+        ).thenApply(x -> null);
+    }
+
+    /**
+     * Inserts or updates the deadline of a temporary personal permission node of a user. The node itself
+     * is stored with {@link #upsertUserPermission(UUID, String, PermissionDecision)}.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the temporary permission node
+     * @param expiresAt the expiration time of the node
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> upsertUserPermissionDeadline(UUID uuid, String node, Instant expiresAt) {
+        return upsertPermissionDeadline(USER_HOLDER, uuid.toString(), node, expiresAt);
+    }
+
+    /**
+     * Deletes the deadline of a personal permission node, the node becomes permanent or has been removed.
+     *
+     * @param uuid the unique identifier of the user
+     * @param node the permission node
+     * @return a CompletableFuture that completes when the operation is finished
+     */
+    public CompletableFuture<Void> deleteUserPermissionDeadline(UUID uuid, String node) {
+        return deletePermissionDeadline(USER_HOLDER, uuid.toString(), node);
+    }
+
     /**
      * Cleans up expired temporary groups for the specified user.
      * <p>
@@ -336,6 +585,31 @@ public record PermissionDAO(AbstractDatabase db) {
         ).thenApply(x -> null);
     }
 
+    private CompletableFuture<Void> upsertPermissionDeadline(String holderType, String holder, String node, Instant expiresAt) {
+        long ms = expiresAt.toEpochMilli();
+        String sql = switch (db.getDatabaseType()) {
+            case SQLITE -> "INSERT INTO lp_temp_permissions(holder_type, holder, node, expires_at) VALUES(?, ?, ?, ?) " +
+                    "ON CONFLICT(holder_type, holder, node) DO UPDATE SET expires_at=excluded.expires_at";
+            case MYSQL, MARIADB -> "INSERT INTO lp_temp_permissions(holder_type, holder, node, expires_at) VALUES(?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE expires_at=VALUES(expires_at)";
+        };
+        return db.executeSqlFuture(sql, holderType, holder, node, ms).thenApply(x -> null);
+    }
+
+    private CompletableFuture<Void> deletePermissionDeadline(String holderType, String holder, String node) {
+        return db.executeSqlFuture(
+                "DELETE FROM lp_temp_permissions WHERE holder_type = ? AND holder = ? AND node = ?",
+                holderType, holder, node
+        ).thenApply(x -> null);
+    }
+
+    private CompletableFuture<Void> deletePermissionDeadlines(String holderType, String holder) {
+        return db.executeSqlFuture(
+                "DELETE FROM lp_temp_permissions WHERE holder_type = ? AND holder = ?",
+                holderType, holder
+        ).thenApply(x -> null);
+    }
+
     /**
      * Encodes a given PermissionDecision into an integer value representation.
      *
@@ -21,6 +21,7 @@ import org.mockbukkit.mockbukkit.entity.PlayerMock;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @DisplayName("LegendPerms Commands (MockBukkit)")
 public class MockCommandTest {
@@ -51,8 +52,23 @@ public class MockCommandTest {
         grant(p, "legendperms.admin");
     }
 
-    private void assertNextMessageContains(PlayerMock p, String needle) {
+    /**
+     * Mutating commands are applied on the writer and reply on the main thread afterwards,
+     * so tick the scheduler until the reply arrives.
+     */
+    private String awaitMessage(PlayerMock p) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
         String msg = p.nextMessage();
+        while (msg == null && System.nanoTime() < deadline) {
+            server.getScheduler().performOneTick();
+            Thread.onSpinWait();
+            msg = p.nextMessage();
+        }
+        return msg;
+    }
+
+    private void assertNextMessageContains(PlayerMock p, String needle) {
+        String msg = awaitMessage(p);
         Assertions.assertNotNull(msg, "No message was sent (nextMessage() == null).");
         Assertions.assertTrue(
                 msg.contains(needle),
@@ -106,7 +122,7 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage(); // consume "created"
+            awaitMessage(player); // consume "created"
 
             player.performCommand("legendperms group info test");
             assertNextMessageContains(player, "Group Info");
@@ -118,7 +134,7 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group delete test");
             assertNextMessageContains(player, "deleted");
@@ -130,7 +146,7 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test prefix set <yellow>Test");
             assertNextMessageContains(player, "set the prefix");
@@ -142,10 +158,10 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test prefix set <yellow>Test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test prefix remove");
             assertNextMessageContains(player, "set the prefix");
@@ -157,7 +173,7 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test priority set 5");
             assertNextMessageContains(player, "5");
@@ -169,7 +185,7 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test permission set allow example.permission");
             assertNextMessageContains(player, "Successfully added permission");
@@ -181,7 +197,7 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test permission set deny example.permission");
             assertNextMessageContains(player, "Successfully added permission");
@@ -193,10 +209,10 @@ public class MockCommandTest {
             grantAdmin(player);
 
             player.performCommand("legendperms group create test");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test permission set allow example.permission");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms group edit test permission remove example.permission");
             assertNextMessageContains(player, "Successfully removed permission");
@@ -226,7 +242,7 @@ public class MockCommandTest {
             server.addPlayer("TargetPlayer");
 
             player.performCommand("legendperms group create vip");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms user group add TargetPlayer vip permanent");
             assertNextMessageContains(player, "Successfully added");
@@ -240,7 +256,7 @@ public class MockCommandTest {
             server.addPlayer("TargetPlayer");
 
             player.performCommand("legendperms group create vip");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms user group add TargetPlayer vip 5m");
             assertNextMessageContains(player, "Successfully added");
@@ -254,10 +270,10 @@ public class MockCommandTest {
             server.addPlayer("TargetPlayer");
 
             player.performCommand("legendperms group create vip");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms user group add TargetPlayer vip permanent");
-            player.nextMessage();
+            awaitMessage(player);
 
             player.performCommand("legendperms user group remove TargetPlayer vip");
             assertNextMessageContains(player, "Successfully removed");
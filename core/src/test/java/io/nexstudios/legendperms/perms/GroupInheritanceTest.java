@@ -0,0 +1,295 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.perms.model.LegendGroup;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+@DisplayName("Group inheritance")
+public class GroupInheritanceTest {
+
+    private GroupRegistry groups;
+    private GroupInheritance inheritance;
+
+    // Helper ⊂ Mod ⊂ Admin
+    private LegendGroup helper;
+    private LegendGroup mod;
+    private LegendGroup admin;
+
+    @BeforeEach
+    void setUp() {
+        groups = new GroupRegistry();
+        inheritance = new GroupInheritance(groups);
+
+        helper = group("helper", 10);
+        mod = group("mod", 20);
+        admin = group("admin", 30);
+        helper.getPermissions().put("chat.color", PermissionDecision.ALLOW);
+        helper.getPermissions().put("essentials.kick", PermissionDecision.DENY);
+        mod.getPermissions().put("essentials.kick", PermissionDecision.ALLOW);
+        admin.getPermissions().put("essentials.ban", PermissionDecision.ALLOW);
+
+        Assertions.assertTrue(inheritance.addParent(mod.getId(), helper.getId()));
+        Assertions.assertTrue(inheritance.addParent(admin.getId(), mod.getId()));
+        inheritance.reflattenAll();
+    }
+
+    private LegendGroup group(String name, int priority) {
+        LegendGroup legendGroup = groups.register(name);
+        legendGroup.setPriority(priority);
+        return legendGroup;
+    }
+
+    private PermissionDecision decision(LegendGroup legendGroup, String node) {
+        return inheritance.permissions(legendGroup).get(node);
+    }
+
+    @Nested
+    @DisplayName("resolution")
+    class ResolutionTests {
+
+        @Test
+        @DisplayName("a group sees the permissions of its whole ancestry")
+        void inheritsWholeAncestry() {
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(admin, "chat.color"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(admin, "essentials.ban"));
+            Assertions.assertNull(decision(mod, "essentials.ban"));
+            Assertions.assertEquals(List.of(helper.getId(), mod.getId(), admin.getId()), inheritance.lineage(admin.getId()));
+        }
+
+        @Test
+        @DisplayName("own nodes override inherited ones")
+        void ownNodesOverride() {
+            Assertions.assertEquals(PermissionDecision.DENY, decision(helper, "essentials.kick"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(mod, "essentials.kick"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(admin, "essentials.kick"));
+        }
+
+        @Test
+        @DisplayName("a group without parents uses its own permissions")
+        void rootUsesOwnPermissions() {
+            Assertions.assertSame(helper.getPermissions(), inheritance.permissions(helper));
+        }
+    }
+
+    @Nested
+    @DisplayName("parent order")
+    class ParentOrderTests {
+
+        private LegendGroup low;
+        private LegendGroup high;
+        private LegendGroup staff;
+
+        @BeforeEach
+        void setUpParents() {
+            low = group("low", 1);
+            high = group("high", 5);
+            staff = group("staff", 0);
+            low.getPermissions().put("fly", PermissionDecision.ALLOW);
+            high.getPermissions().put("fly", PermissionDecision.DENY);
+
+            inheritance.addParent(staff.getId(), low.getId());
+            inheritance.addParent(staff.getId(), high.getId());
+            inheritance.reflattenAll();
+        }
+
+        @Test
+        @DisplayName("the parent with the higher priority wins")
+        void higherPriorityWins() {
+            Assertions.assertEquals(PermissionDecision.DENY, decision(staff, "fly"));
+            Assertions.assertEquals(List.of(low.getId(), high.getId(), staff.getId()), inheritance.lineage(staff.getId()));
+        }
+
+        @Test
+        @DisplayName("a changed priority reorders the parents once the children are reflattened")
+        void priorityChangeReorders() {
+            low.setPriority(10);
+            List<Integer> reflattened = inheritance.reflatten(inheritance.children(low.getId()));
+
+            Assertions.assertEquals(List.of(staff.getId()), reflattened);
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(staff, "fly"));
+        }
+
+        @Test
+        @DisplayName("ties are broken by name")
+        void tiesBrokenByName() {
+            low.setPriority(5);
+            inheritance.reflatten(List.of(staff.getId()));
+
+            // "low" sorts after "high", so it is merged last and wins
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(staff, "fly"));
+        }
+    }
+
+    @Nested
+    @DisplayName("cycles")
+    class CycleTests {
+
+        @Test
+        @DisplayName("a parent inheriting from the group is rejected")
+        void cycleRejected() {
+            Assertions.assertFalse(inheritance.addParent(helper.getId(), admin.getId()));
+            Assertions.assertFalse(inheritance.addParent(helper.getId(), mod.getId()));
+            Assertions.assertTrue(inheritance.parents(helper.getId()).isEmpty());
+        }
+
+        @Test
+        @DisplayName("the group itself and an existing parent are rejected")
+        void selfAndDuplicateRejected() {
+            Assertions.assertFalse(inheritance.addParent(helper.getId(), helper.getId()));
+            Assertions.assertFalse(inheritance.addParent(mod.getId(), helper.getId()));
+            Assertions.assertEquals(Set.of(helper.getId()), inheritance.parents(mod.getId()));
+        }
+
+        @Test
+        @DisplayName("a group inheriting from an ancestor directly as well is no cycle")
+        void shortcutAllowed() {
+            Assertions.assertTrue(inheritance.addParent(admin.getId(), helper.getId()));
+            Assertions.assertTrue(inheritance.isAncestor(helper.getId(), admin.getId()));
+            Assertions.assertFalse(inheritance.isAncestor(admin.getId(), helper.getId()));
+        }
+    }
+
+    @Nested
+    @DisplayName("single node patches")
+    class PatchTests {
+
+        @Test
+        @DisplayName("a node added to a parent reaches every descendant")
+        void patchReachesDescendants() {
+            helper.getPermissions().put("home.set", PermissionDecision.ALLOW);
+            List<Integer> changed = inheritance.patch(helper.getId(), "home.set");
+
+            Assertions.assertEquals(List.of(helper.getId(), mod.getId(), admin.getId()), changed);
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(admin, "home.set"));
+        }
+
+        @Test
+        @DisplayName("descendants overriding the node are not changed")
+        void patchStopsAtOverride() {
+            helper.getPermissions().put("essentials.kick", PermissionDecision.ALLOW);
+            List<Integer> changed = inheritance.patch(helper.getId(), "essentials.kick");
+
+            Assertions.assertEquals(List.of(helper.getId()), changed);
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(admin, "essentials.kick"));
+        }
+
+        @Test
+        @DisplayName("a node removed from a parent is removed from the descendants")
+        void patchRemovesNode() {
+            helper.getPermissions().remove("chat.color");
+            List<Integer> changed = inheritance.patch(helper.getId(), "chat.color");
+
+            Assertions.assertEquals(List.of(helper.getId(), mod.getId(), admin.getId()), changed);
+            Assertions.assertNull(decision(mod, "chat.color"));
+            Assertions.assertNull(decision(admin, "chat.color"));
+        }
+    }
+
+    @Nested
+    @DisplayName("diamonds")
+    class DiamondTests {
+
+        private LegendGroup top;
+        private LegendGroup left;
+        private LegendGroup right;
+        private LegendGroup bottom;
+
+        @BeforeEach
+        void setUpDiamond() {
+            top = group("top", 0);
+            left = group("left", 1);
+            right = group("right", 2);
+            bottom = group("bottom", 0);
+            top.getPermissions().put("warp.spawn", PermissionDecision.ALLOW);
+            left.getPermissions().put("warp.arena", PermissionDecision.ALLOW);
+            right.getPermissions().put("warp.arena", PermissionDecision.DENY);
+
+            inheritance.addParent(left.getId(), top.getId());
+            inheritance.addParent(right.getId(), top.getId());
+            inheritance.addParent(bottom.getId(), left.getId());
+            inheritance.addParent(bottom.getId(), right.getId());
+            inheritance.reflattenAll();
+        }
+
+        @Test
+        @DisplayName("the lineage holds the shared ancestor once, before both parents")
+        void lineageVisitsSharedAncestorOnce() {
+            Assertions.assertEquals(List.of(top.getId(), left.getId(), right.getId(), bottom.getId()), inheritance.lineage(bottom.getId()));
+
+            List<Integer> descendants = inheritance.descendants(top.getId());
+            Assertions.assertEquals(4, descendants.size());
+            Assertions.assertEquals(top.getId(), descendants.get(0));
+            Assertions.assertEquals(bottom.getId(), descendants.get(3));
+        }
+
+        @Test
+        @DisplayName("reflattening the shared ancestor visits every group once, parents before children")
+        void reflattenVisitsEveryGroupOnce() {
+            List<Integer> reflattened = inheritance.reflatten(List.of(top.getId()));
+
+            // both parents come before the bottom, their own order follows the child sets
+            Assertions.assertEquals(4, reflattened.size());
+            Assertions.assertEquals(top.getId(), reflattened.get(0));
+            Assertions.assertEquals(bottom.getId(), reflattened.get(3));
+        }
+
+        @Test
+        @DisplayName("the parent with the higher priority wins on both paths")
+        void higherPriorityWins() {
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(bottom, "warp.spawn"));
+            Assertions.assertEquals(PermissionDecision.DENY, decision(bottom, "warp.arena"));
+        }
+
+        @Test
+        @DisplayName("a patch of the shared ancestor reaches the bottom once")
+        void patchReachesBottomOnce() {
+            top.getPermissions().put("warp.spawn", PermissionDecision.DENY);
+            List<Integer> changed = inheritance.patch(top.getId(), "warp.spawn");
+
+            Assertions.assertEquals(4, changed.size());
+            Assertions.assertEquals(bottom.getId(), changed.get(3));
+            Assertions.assertEquals(PermissionDecision.DENY, decision(bottom, "warp.spawn"));
+        }
+    }
+
+    @Nested
+    @DisplayName("removed groups")
+    class RemoveGroupTests {
+
+        @Test
+        @DisplayName("children lose a removed parent and its ancestry")
+        void childrenLoseRemovedParent() {
+            Set<Integer> formerChildren = inheritance.removeGroup(mod.getId());
+            groups.remove(mod.getName());
+            inheritance.reflatten(formerChildren);
+
+            Assertions.assertEquals(Set.of(admin.getId()), formerChildren);
+            Assertions.assertTrue(inheritance.parents(admin.getId()).isEmpty());
+            Assertions.assertTrue(inheritance.children(helper.getId()).isEmpty());
+            Assertions.assertSame(admin.getPermissions(), inheritance.permissions(admin));
+            Assertions.assertNull(decision(admin, "chat.color"));
+        }
+
+        @Test
+        @DisplayName("other parents are kept")
+        void otherParentsKept() {
+            LegendGroup vip = group("vip", 5);
+            vip.getPermissions().put("chat.color", PermissionDecision.ALLOW);
+            inheritance.addParent(admin.getId(), vip.getId());
+
+            Set<Integer> formerChildren = inheritance.removeGroup(mod.getId());
+            groups.remove(mod.getName());
+            inheritance.reflatten(formerChildren);
+
+            Assertions.assertEquals(Set.of(vip.getId()), inheritance.parents(admin.getId()));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decision(admin, "chat.color"));
+            Assertions.assertNull(decision(admin, "essentials.kick"));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.model.LegendGroup;
+import io.nexstudios.legendperms.perms.storage.PermissionDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expiry is driven with explicit timestamps instead of waiting for real deadlines: nodes are set for an
+ * hour, and the expiry index is advanced to a time before or after that hour.
+ */
+@DisplayName("Temporary permission expiry (MockBukkit)")
+public class MockExpiryTest {
+
+    private static final long HALF_HOUR = Duration.ofMinutes(30).toMillis();
+    private static final long TWO_HOURS = Duration.ofHours(2).toMillis();
+    private static final long FOUR_HOURS = Duration.ofHours(4).toMillis();
+
+    private ServerMock server;
+    private LegendPerms plugin;
+    private LegendPermissionService service;
+    // member of vip
+    private PlayerMock player;
+    private UUID uuid;
+    // taken before any deadline is set, every deadline lies at least its duration after it
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(LegendPerms.class);
+        service = plugin.getPermissionService();
+        player = server.addPlayer("TestPlayer");
+        uuid = player.getUniqueId();
+
+        service.createGroup("vip");
+        service.addGroupPermission("vip", "chat.color", PermissionDecision.ALLOW);
+        service.userAddGroup(uuid, "vip");
+        awaitDecision(uuid, "chat.color", PermissionDecision.ALLOW);
+
+        start = System.currentTimeMillis();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    private void tick() {
+        service.flushDirtyUsers();
+        server.getScheduler().performOneTick();
+        Thread.onSpinWait();
+    }
+
+    /**
+     * Changes are applied on the writer, compiled on a worker thread and published afterwards,
+     * so flush and tick the scheduler until the decision is visible.
+     */
+    private void awaitDecision(UUID uuid, String node, PermissionDecision expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.decide(uuid, node) != expected) {
+            Assertions.assertTrue(System.nanoTime() < deadline,
+                    () -> node + " was not " + expected + " in time, but " + service.decide(uuid, node));
+            tick();
+        }
+    }
+
+    /**
+     * Waits until every mutation submitted to the writer of the service so far has been applied,
+     * expired nodes are removed on the writer without waiting for it.
+     */
+    private void awaitWriter(LegendPermissionService target) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CompletableFuture<Void> done = target.submit(() -> {
+        });
+        while (!done.isDone()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "The writer did not catch up in time.");
+            tick();
+        }
+    }
+
+    private void awaitLoad(LegendPermissionService target, UUID uuid) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CompletableFuture<Void> done = target.loadUserFromStorageAsync(uuid);
+        while (!done.isDone()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "The user was not loaded in time.");
+            tick();
+        }
+    }
+
+    @Nested
+    @DisplayName("lapsing nodes")
+    class LapseTests {
+
+        @Test
+        @DisplayName("a temporary group node lapses at its deadline")
+        void groupNodeLapses() {
+            service.addTemporaryGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(1));
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.ALLOW);
+            Assertions.assertNotEquals("never", service.getGroupPermissionExpiration("vip", "essentials.fly"));
+
+            service.expireTemporaryPermissions(start + HALF_HOUR);
+            awaitWriter(service);
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.fly"));
+
+            service.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.NOT_SET);
+            Assertions.assertFalse(service.getGroup("vip").getPermissions().containsKey("essentials.fly"));
+            Assertions.assertEquals("never", service.getGroupPermissionExpiration("vip", "essentials.fly"));
+        }
+
+        @Test
+        @DisplayName("a temporary user node lapses at its deadline")
+        void userNodeLapses() {
+            service.userSetTemporaryPermission(uuid, "essentials.fly", PermissionDecision.DENY, Duration.ofHours(1));
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.DENY);
+
+            service.expireTemporaryPermissions(start + HALF_HOUR);
+            awaitWriter(service);
+            Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "essentials.fly"));
+
+            service.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.NOT_SET);
+            Assertions.assertTrue(service.getUserPermissions(uuid).isEmpty());
+        }
+
+        @Test
+        @DisplayName("a temporary group membership lapses at its deadline")
+        void temporaryGroupLapses() {
+            service.createGroup("event");
+            service.addGroupPermission("event", "warp.arena", PermissionDecision.ALLOW);
+            service.userAddTemporaryGroup(uuid, "event", Duration.ofHours(1));
+            awaitDecision(uuid, "warp.arena", PermissionDecision.ALLOW);
+
+            service.expireTemporaryGroups(start + TWO_HOURS);
+            awaitDecision(uuid, "warp.arena", PermissionDecision.NOT_SET);
+            Assertions.assertFalse(service.userHasTemporaryGroup(uuid, "event"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "chat.color"));
+        }
+
+        @Test
+        @DisplayName("a temporary node with the decision the group already had lapses as well")
+        void unchangedDecisionLapses() {
+            service.addGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.ALLOW);
+
+            // only the deadline changes, nothing is recompiled
+            service.addTemporaryGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(1));
+            Assertions.assertNotEquals("never", service.getGroupPermissionExpiration("vip", "essentials.fly"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.fly"));
+
+            service.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.NOT_SET);
+        }
+    }
+
+    @Nested
+    @DisplayName("stale entries")
+    class StaleTests {
+
+        @Test
+        @DisplayName("a node set permanently afterwards does not lapse")
+        void permanentNodeIsKept() {
+            service.addTemporaryGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(1));
+            service.addGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.ALLOW);
+
+            service.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitWriter(service);
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.fly"));
+            Assertions.assertEquals("never", service.getGroupPermissionExpiration("vip", "essentials.fly"));
+        }
+
+        @Test
+        @DisplayName("a group node removed and set again lapses at its new deadline")
+        void groupNodeSetAgain() {
+            service.addTemporaryGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(1));
+            Assertions.assertTrue(service.removeGroupPermission("vip", "essentials.fly"));
+            service.addTemporaryGroupPermission("vip", "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(3));
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.ALLOW);
+
+            service.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitWriter(service);
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.fly"));
+
+            service.expireTemporaryPermissions(start + FOUR_HOURS);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.NOT_SET);
+        }
+
+        @Test
+        @DisplayName("a user node removed and set again lapses at its new deadline")
+        void userNodeSetAgain() {
+            service.userSetTemporaryPermission(uuid, "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(1));
+            Assertions.assertTrue(service.userRemovePermission(uuid, "essentials.fly"));
+            service.userSetTemporaryPermission(uuid, "essentials.fly", PermissionDecision.ALLOW, Duration.ofHours(3));
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.ALLOW);
+
+            service.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitWriter(service);
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.fly"));
+
+            service.expireTemporaryPermissions(start + FOUR_HOURS);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.NOT_SET);
+        }
+    }
+
+    @Test
+    @DisplayName("deadlines loaded from storage are indexed, lapsed ones expire on the next advance")
+    void deadlinesLoadedFromStorage() {
+        PermissionDAO repository = plugin.getPermsRepository();
+        Instant now = Instant.ofEpochMilli(start);
+        repository.upsertGroup("timed", 0, "").join();
+        repository.upsertGroupPermission("timed", "chat.color", PermissionDecision.ALLOW).join();
+        repository.upsertGroupPermission("timed", "essentials.fly", PermissionDecision.ALLOW).join();
+        repository.upsertGroupPermissionDeadline("timed", "essentials.fly", now.plus(Duration.ofHours(1))).join();
+        // lapsed while the server was offline
+        repository.upsertGroupPermission("timed", "essentials.home", PermissionDecision.ALLOW).join();
+        repository.upsertGroupPermissionDeadline("timed", "essentials.home", now.minus(Duration.ofMinutes(1))).join();
+
+        LegendPermissionService loaded = new LegendPermissionService(plugin.getLegendLogger(), repository);
+        try {
+            loaded.loadAllFromStorage();
+            LegendGroup timed = loaded.getGroup("timed");
+            Assertions.assertNotEquals("never", loaded.getGroupPermissionExpiration("timed", "essentials.fly"));
+            Assertions.assertEquals("never", loaded.getGroupPermissionExpiration("timed", "chat.color"));
+
+            loaded.expireTemporaryPermissions(System.currentTimeMillis() + 100);
+            awaitWriter(loaded);
+            Assertions.assertFalse(timed.getPermissions().containsKey("essentials.home"));
+            Assertions.assertTrue(timed.getPermissions().containsKey("essentials.fly"));
+
+            loaded.expireTemporaryPermissions(start + TWO_HOURS);
+            awaitWriter(loaded);
+            Assertions.assertFalse(timed.getPermissions().containsKey("essentials.fly"));
+            Assertions.assertTrue(timed.getPermissions().containsKey("chat.color"));
+        } finally {
+            loaded.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("loading a user again only schedules the deadlines that are new or moved")
+    void reloadSchedulesChangedDeadlinesOnly() {
+        PermissionDAO repository = plugin.getPermsRepository();
+        UUID stored = UUID.randomUUID();
+        Instant inOneHour = Instant.ofEpochMilli(start).plus(Duration.ofHours(1));
+        repository.upsertGroup("event", 0, "").join();
+        repository.upsertUserTempGroup(stored, "event", inOneHour).join();
+        repository.upsertUserPermission(stored, "essentials.fly", PermissionDecision.ALLOW).join();
+        repository.upsertUserPermissionDeadline(stored, "essentials.fly", inOneHour).join();
+
+        LegendPermissionService loaded = new LegendPermissionService(plugin.getLegendLogger(), repository);
+        try {
+            loaded.loadAllFromStorage();
+            awaitWriter(loaded);
+            int scheduled = loaded.pendingExpiries();
+
+            awaitLoad(loaded, stored);
+            Assertions.assertEquals(scheduled + 2, loaded.pendingExpiries());
+            awaitLoad(loaded, stored);
+            Assertions.assertEquals(scheduled + 2, loaded.pendingExpiries());
+
+            repository.upsertUserPermissionDeadline(stored, "essentials.fly", inOneHour.plus(Duration.ofHours(1))).join();
+            awaitLoad(loaded, stored);
+            Assertions.assertEquals(scheduled + 3, loaded.pendingExpiries());
+
+            // the stale entry of the old deadline is skipped, the node lapses at its new one
+            loaded.expireTemporaryPermissions(start + TWO_HOURS - 1);
+            awaitWriter(loaded);
+            Assertions.assertEquals(PermissionDecision.ALLOW, loaded.getUserPermissions(stored).get("essentials.fly"));
+        } finally {
+            loaded.shutdown();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.model.LegendGroup;
+import io.nexstudios.legendperms.perms.storage.PermissionDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Group inheritance (MockBukkit)")
+public class MockGroupInheritanceTest {
+
+    private ServerMock server;
+    private LegendPerms plugin;
+    private LegendPermissionService service;
+    // member of admin, which inherits from mod, which inherits from helper
+    private PlayerMock player;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(LegendPerms.class);
+        service = plugin.getPermissionService();
+        player = server.addPlayer("TestPlayer");
+
+        service.createGroup("helper");
+        service.createGroup("mod");
+        service.createGroup("admin");
+        service.setGroupPriority("helper", 10);
+        service.setGroupPriority("mod", 20);
+        service.setGroupPriority("admin", 30);
+        service.addGroupPermission("helper", "chat.color", PermissionDecision.ALLOW);
+        service.addGroupPermission("helper", "essentials.kick", PermissionDecision.DENY);
+        service.addGroupPermission("mod", "essentials.kick", PermissionDecision.ALLOW);
+        service.addGroupPermission("admin", "essentials.ban", PermissionDecision.ALLOW);
+        Assertions.assertTrue(service.addGroupParent("mod", "helper"));
+        Assertions.assertTrue(service.addGroupParent("admin", "mod"));
+
+        service.userAddGroup(player.getUniqueId(), "admin");
+        awaitDecision(player.getUniqueId(), "essentials.ban", PermissionDecision.ALLOW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Group changes are applied on the writer, compiled on a worker thread and published afterwards,
+     * so flush and tick the scheduler until the decision is visible.
+     */
+    private void awaitDecision(UUID uuid, String node, PermissionDecision expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.decide(uuid, node) != expected) {
+            Assertions.assertTrue(System.nanoTime() < deadline,
+                    () -> node + " was not " + expected + " in time, but " + service.decide(uuid, node));
+            service.flushDirtyUsers();
+            server.getScheduler().performOneTick();
+            Thread.onSpinWait();
+        }
+    }
+
+    @Nested
+    @DisplayName("resolution")
+    class ResolutionTests {
+
+        @Test
+        @DisplayName("a member of admin gets the nodes of mod and helper")
+        void memberInheritsAncestry() {
+            UUID uuid = player.getUniqueId();
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "chat.color"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.ban"));
+            // mod overrides the node it inherits from helper
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.kick"));
+            Assertions.assertEquals(List.of("mod"), service.getGroupParentNames("admin"));
+        }
+
+        @Test
+        @DisplayName("the parent with the higher priority wins, a changed priority reorders the parents")
+        void parentsOrderedByPriority() {
+            UUID uuid = player.getUniqueId();
+            service.createGroup("builder");
+            service.setGroupPriority("builder", 5);
+            service.addGroupPermission("builder", "worldedit.wand", PermissionDecision.ALLOW);
+            service.addGroupPermission("helper", "worldedit.wand", PermissionDecision.DENY);
+            Assertions.assertTrue(service.addGroupParent("mod", "builder"));
+
+            awaitDecision(uuid, "worldedit.wand", PermissionDecision.DENY);
+
+            service.setGroupPriority("builder", 15);
+            awaitDecision(uuid, "worldedit.wand", PermissionDecision.ALLOW);
+        }
+    }
+
+    @Nested
+    @DisplayName("cycles")
+    class CycleTests {
+
+        @Test
+        @DisplayName("a parent closing a cycle is rejected")
+        void cycleRejectedOnAdd() {
+            Assertions.assertFalse(service.addGroupParent("helper", "admin"));
+            Assertions.assertFalse(service.addGroupParent("helper", "helper"));
+            Assertions.assertTrue(service.getGroupParentNames("helper").isEmpty());
+        }
+
+        @Test
+        @DisplayName("a stored cycle is broken when loading")
+        void cycleRejectedOnLoad() {
+            PermissionDAO repository = plugin.getPermsRepository();
+            repository.upsertGroup("cycle_a", 0, "").join();
+            repository.upsertGroup("cycle_b", 0, "").join();
+            repository.addGroupParent("cycle_a", "cycle_b").join();
+            repository.addGroupParent("cycle_b", "cycle_a").join();
+
+            LegendPermissionService loaded = new LegendPermissionService(plugin.getLegendLogger(), repository);
+            try {
+                loaded.loadAllFromStorage();
+
+                int edges = loaded.getGroupParentNames("cycle_a").size() + loaded.getGroupParentNames("cycle_b").size();
+                Assertions.assertEquals(1, edges);
+            } finally {
+                loaded.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("changes")
+    class ChangeTests {
+
+        @Test
+        @DisplayName("a node added to helper reaches the members of admin")
+        void patchReachesDescendants() {
+            service.addGroupPermission("helper", "home.set", PermissionDecision.ALLOW);
+
+            awaitDecision(player.getUniqueId(), "home.set", PermissionDecision.ALLOW);
+        }
+
+        @Test
+        @DisplayName("a node overridden by mod is not changed by a patch of helper")
+        void patchStopsAtOverride() {
+            UUID uuid = player.getUniqueId();
+            service.addGroupPermission("helper", "essentials.kick", PermissionDecision.ALLOW);
+            service.addGroupPermission("helper", "essentials.kick", PermissionDecision.DENY);
+            service.addGroupPermission("helper", "home.set", PermissionDecision.ALLOW);
+
+            awaitDecision(uuid, "home.set", PermissionDecision.ALLOW);
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.kick"));
+        }
+
+        @Test
+        @DisplayName("a diamond resolves the shared ancestor once")
+        void diamond() {
+            UUID uuid = player.getUniqueId();
+            service.createGroup("builder");
+            service.setGroupPriority("builder", 25);
+            service.addGroupPermission("builder", "essentials.kick", PermissionDecision.DENY);
+            // admin inherits helper through mod and through builder
+            Assertions.assertTrue(service.addGroupParent("builder", "helper"));
+            Assertions.assertTrue(service.addGroupParent("admin", "builder"));
+
+            awaitDecision(uuid, "essentials.kick", PermissionDecision.DENY);
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "chat.color"));
+
+            service.removeGroupPermission("helper", "chat.color");
+            awaitDecision(uuid, "chat.color", PermissionDecision.NOT_SET);
+        }
+
+        @Test
+        @DisplayName("deleting mod detaches admin from mod and helper")
+        void deleteGroupReparents() {
+            UUID uuid = player.getUniqueId();
+            Assertions.assertTrue(service.deleteGroup("mod"));
+
+            awaitDecision(uuid, "chat.color", PermissionDecision.NOT_SET);
+            Assertions.assertEquals(PermissionDecision.NOT_SET, service.decide(uuid, "essentials.kick"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "essentials.ban"));
+            Assertions.assertTrue(service.getGroupParentNames("admin").isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("loading")
+    class LoadTests {
+
+        @Test
+        @DisplayName("stored groups whose names only differ by case are not merged")
+        void caseCollisionNotMerged() {
+            PermissionDAO repository = plugin.getPermsRepository();
+            repository.upsertGroup("Staff", 0, "").join();
+            repository.upsertGroup("staff", 0, "").join();
+            repository.upsertGroup("helper", 0, "").join();
+            repository.upsertGroupPermission("Staff", "chat.color", PermissionDecision.ALLOW).join();
+            repository.upsertGroupPermission("staff", "essentials.ban", PermissionDecision.ALLOW).join();
+            repository.addGroupParent("staff", "helper").join();
+
+            LegendPermissionService loaded = new LegendPermissionService(plugin.getLegendLogger(), repository);
+            try {
+                loaded.loadAllFromStorage();
+
+                // "Staff" sorts first and is loaded, the rows of "staff" are skipped
+                LegendGroup staff = loaded.getGroup("STAFF");
+                Assertions.assertEquals("Staff", staff.getName());
+                Assertions.assertEquals(Map.of("chat.color", PermissionDecision.ALLOW), Map.copyOf(staff.getPermissions()));
+                Assertions.assertTrue(loaded.getGroupParentNames("Staff").isEmpty());
+            } finally {
+                loaded.shutdown();
+            }
+        }
+    }
+}
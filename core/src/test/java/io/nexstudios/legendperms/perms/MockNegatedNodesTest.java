@@ -0,0 +1,189 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.compiled.EvaluationMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Negated nodes (MockBukkit)")
+public class MockNegatedNodesTest {
+
+    private ServerMock server;
+    private LegendPermissionService service;
+    // member of builder: worldedit.* without worldedit.regen
+    private PlayerMock builder;
+    // member of architect, which inherits from builder and negates worldedit.wand
+    private PlayerMock architect;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        LegendPerms plugin = MockBukkit.load(LegendPerms.class);
+        service = plugin.getPermissionService();
+        builder = server.addPlayer("Builder");
+        architect = server.addPlayer("Architect");
+
+        service.createGroup("builder");
+        service.addGroupPermission("builder", "worldedit.*", PermissionDecision.ALLOW);
+        service.addGroupPermission("builder", "-worldedit.regen", PermissionDecision.DENY);
+
+        service.createGroup("architect");
+        service.addGroupPermission("architect", "-worldedit.wand", PermissionDecision.DENY);
+        Assertions.assertTrue(service.addGroupParent("architect", "builder"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Switches the mode before the members join, the mode is applied on the writer ahead of their rebuilds.
+     */
+    private void join(EvaluationMode mode) {
+        service.setEvaluationMode(mode);
+        service.userAddGroup(builder.getUniqueId(), "builder");
+        service.userAddGroup(architect.getUniqueId(), "architect");
+
+        awaitDecision(builder.getUniqueId(), "worldedit.wand", PermissionDecision.ALLOW);
+        awaitDecision(architect.getUniqueId(), "worldedit.wand", PermissionDecision.DENY);
+    }
+
+    /**
+     * Group changes are applied on the writer, compiled on a worker thread and published afterwards,
+     * so flush and tick the scheduler until the decision is visible.
+     */
+    private void awaitDecision(UUID uuid, String node, PermissionDecision expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.decide(uuid, node) != expected) {
+            Assertions.assertTrue(System.nanoTime() < deadline,
+                    () -> node + " was not " + expected + " in time, but " + service.decide(uuid, node));
+            service.flushDirtyUsers();
+            server.getScheduler().performOneTick();
+            Thread.onSpinWait();
+        }
+    }
+
+    // shared by both modes
+
+    private void wildcardExcludesNode() {
+        UUID uuid = builder.getUniqueId();
+
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "worldedit.wand"));
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "worldedit.brush.sphere"));
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "worldedit.regen"));
+    }
+
+    private void negationsAreInherited() {
+        UUID uuid = architect.getUniqueId();
+
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "worldedit.wand"));
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "worldedit.brush.sphere"));
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "worldedit.regen"));
+    }
+
+    private void negatedWildcardIsPatchedIn() {
+        service.addGroupPermission("builder", "-worldedit.brush.*", PermissionDecision.DENY);
+        awaitDecision(builder.getUniqueId(), "worldedit.brush.sphere", PermissionDecision.DENY);
+        awaitDecision(architect.getUniqueId(), "worldedit.brush.sphere", PermissionDecision.DENY);
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(builder.getUniqueId(), "worldedit.wand"));
+
+        Assertions.assertTrue(service.removeGroupPermission("builder", "-worldedit.brush.*"));
+        awaitDecision(builder.getUniqueId(), "worldedit.brush.sphere", PermissionDecision.ALLOW);
+        awaitDecision(architect.getUniqueId(), "worldedit.brush.sphere", PermissionDecision.ALLOW);
+    }
+
+    private void negationBeatsPlainNode() {
+        UUID uuid = builder.getUniqueId();
+        service.addGroupPermission("builder", "worldedit.regen", PermissionDecision.ALLOW);
+        // applied after the plain node, so once it is visible the plain node has been patched in as well
+        service.addGroupPermission("builder", "worldedit.navigation.jump", PermissionDecision.DENY);
+
+        awaitDecision(uuid, "worldedit.navigation.jump", PermissionDecision.DENY);
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "worldedit.regen"));
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(architect.getUniqueId(), "worldedit.regen"));
+
+        // without the negation the plain node applies
+        Assertions.assertTrue(service.removeGroupPermission("builder", "-worldedit.regen"));
+        awaitDecision(uuid, "worldedit.regen", PermissionDecision.ALLOW);
+        awaitDecision(architect.getUniqueId(), "worldedit.regen", PermissionDecision.ALLOW);
+    }
+
+    @Nested
+    @DisplayName("merged mode")
+    class MergedTests {
+
+        @BeforeEach
+        void joinMerged() {
+            join(EvaluationMode.MERGED);
+        }
+
+        @Test
+        @DisplayName("worldedit.* allows, -worldedit.regen denies")
+        void wildcardExcludes() {
+            wildcardExcludesNode();
+        }
+
+        @Test
+        @DisplayName("negations are resolved through inheritance")
+        void inherited() {
+            negationsAreInherited();
+        }
+
+        @Test
+        @DisplayName("a negated wildcard added later is patched into the members")
+        void patched() {
+            negatedWildcardIsPatchedIn();
+        }
+
+        @Test
+        @DisplayName("a negation overrides the plain node of the same group")
+        void negationWins() {
+            negationBeatsPlainNode();
+        }
+    }
+
+    @Nested
+    @DisplayName("layered mode")
+    class LayeredTests {
+
+        @BeforeEach
+        void joinLayered() {
+            join(EvaluationMode.LAYERED);
+        }
+
+        @Test
+        @DisplayName("worldedit.* allows, -worldedit.regen denies")
+        void wildcardExcludes() {
+            wildcardExcludesNode();
+        }
+
+        @Test
+        @DisplayName("negations are resolved through inheritance")
+        void inherited() {
+            negationsAreInherited();
+        }
+
+        @Test
+        @DisplayName("a negated wildcard added later is patched into the members")
+        void patched() {
+            negatedWildcardIsPatchedIn();
+        }
+
+        @Test
+        @DisplayName("a negation overrides the plain node of the same group")
+        void negationWins() {
+            negationBeatsPlainNode();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.LegendPerms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Permission check allocations (MockBukkit)")
+public class MockPermissionAllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    private static final String[] NODES = {
+            "example.exact",
+            "example.wildcard.deep.node",
+            "other.plugin.feature",
+            "denied.node",
+            "completely.unknown.node"
+    };
+
+    // first segments the scoped group has no node for, rejected by the Bloom filter
+    private static final String[] UNMATCHED_NODES = {
+            "other.plugin.feature",
+            "completely.unknown.node",
+            "worldedit.wand",
+            "essentials.fly"
+    };
+
+    private ServerMock server;
+    private LegendPermissionService service;
+    private PlayerMock player;
+    // member of a group without the global wildcard, so the Bloom filter is active
+    private PlayerMock scopedPlayer;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        LegendPerms plugin = MockBukkit.load(LegendPerms.class);
+        player = server.addPlayer("TestPlayer");
+        service = plugin.getPermissionService();
+
+        service.createGroup("alloc");
+        service.addGroupPermission("alloc", "example.exact", PermissionDecision.ALLOW);
+        service.addGroupPermission("alloc", "example.wildcard.*", PermissionDecision.ALLOW);
+        service.addGroupPermission("alloc", "denied.node", PermissionDecision.DENY);
+        service.addGroupPermission("alloc", "*", PermissionDecision.ALLOW);
+        service.userAddGroup(player.getUniqueId(), "alloc");
+
+        scopedPlayer = server.addPlayer("ScopedPlayer");
+        service.createGroup("scoped");
+        service.addGroupPermission("scoped", "example.exact", PermissionDecision.ALLOW);
+        service.addGroupPermission("scoped", "example.wildcard.*", PermissionDecision.ALLOW);
+        service.addGroupPermission("scoped", "denied.node", PermissionDecision.DENY);
+        service.userAddGroup(scopedPlayer.getUniqueId(), "scoped");
+
+        service.flushDirtyUsers();
+        awaitCompiled(player.getUniqueId());
+        awaitCompiled(scopedPlayer.getUniqueId());
+    }
+
+    /**
+     * Effective permissions are compiled on a worker thread and published on the main thread,
+     * so tick the scheduler until they are visible.
+     */
+    private void awaitCompiled(UUID uuid) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.decide(uuid, "example.exact") != PermissionDecision.ALLOW) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Effective permissions were not published in time.");
+            server.getScheduler().performOneTick();
+            Thread.onSpinWait();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean,
+                "ThreadMXBean does not support allocation measurement on this JVM.");
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(sunBean.isThreadAllocatedMemorySupported(),
+                "Thread allocation measurement is not supported on this JVM.");
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean bean) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    /**
+     * Measures the bytes allocated by the given check loop, minus the overhead of the measurement itself.
+     */
+    private static long measure(com.sun.management.ThreadMXBean bean, Runnable loop) {
+        long calibrationStart = allocatedBytes(bean);
+        long calibrationEnd = allocatedBytes(bean);
+        long overhead = calibrationEnd - calibrationStart;
+
+        long start = allocatedBytes(bean);
+        loop.run();
+        long end = allocatedBytes(bean);
+        return Math.max(0, end - start - overhead);
+    }
+
+    @Test
+    @DisplayName("decide() does not allocate for a cached user without temporary groups")
+    void decideDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean = threadBean();
+        UUID uuid = player.getUniqueId();
+
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "example.exact"));
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "example.wildcard.deep.node"));
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "denied.node"));
+
+        int[] sink = new int[1];
+        Runnable loop = () -> {
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                sink[0] += service.decide(uuid, NODES[i % NODES.length]).ordinal();
+            }
+        };
+
+        for (int i = 0; i < WARMUP_ITERATIONS / MEASURED_ITERATIONS; i++) {
+            loop.run();
+        }
+
+        long allocated = measure(bean, loop);
+        Assertions.assertEquals(0L, allocated,
+                () -> allocated + " bytes allocated by " + MEASURED_ITERATIONS + " decide() calls (sink " + sink[0] + ")");
+    }
+
+    @Test
+    @DisplayName("LegendPermissible.hasPermission() does not allocate for a cached user without temporary groups")
+    void hasPermissionDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean = threadBean();
+        LegendPermissible permissible = new LegendPermissible(player, service);
+
+        Assertions.assertTrue(permissible.hasPermission("example.exact"));
+        Assertions.assertFalse(permissible.hasPermission("denied.node"));
+
+        int[] sink = new int[1];
+        Runnable loop = () -> {
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                if (permissible.hasPermission(NODES[i % NODES.length])) sink[0]++;
+            }
+        };
+
+        for (int i = 0; i < WARMUP_ITERATIONS / MEASURED_ITERATIONS; i++) {
+            loop.run();
+        }
+
+        long allocated = measure(bean, loop);
+        Assertions.assertEquals(0L, allocated,
+                () -> allocated + " bytes allocated by " + MEASURED_ITERATIONS + " hasPermission() calls (sink " + sink[0] + ")");
+    }
+
+    @Test
+    @DisplayName("decide() answers unmatched nodes with NOT_SET without allocating")
+    void decideRejectsUnmatchedNodesWithoutAllocating() {
+        com.sun.management.ThreadMXBean bean = threadBean();
+        UUID uuid = scopedPlayer.getUniqueId();
+
+        Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "example.wildcard.deep.node"));
+        Assertions.assertEquals(PermissionDecision.DENY, service.decide(uuid, "denied.node"));
+        for (String node : UNMATCHED_NODES) {
+            Assertions.assertEquals(PermissionDecision.NOT_SET, service.decide(uuid, node), node);
+        }
+
+        int[] sink = new int[1];
+        Runnable loop = () -> {
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                sink[0] += service.decide(uuid, UNMATCHED_NODES[i % UNMATCHED_NODES.length]).ordinal();
+            }
+        };
+
+        for (int i = 0; i < WARMUP_ITERATIONS / MEASURED_ITERATIONS; i++) {
+            loop.run();
+        }
+
+        long allocated = measure(bean, loop);
+        Assertions.assertEquals(0L, allocated,
+                () -> allocated + " bytes allocated by " + MEASURED_ITERATIONS + " unmatched decide() calls (sink " + sink[0] + ")");
+    }
+
+    @Test
+    @DisplayName("LegendPermissible.hasPermission() falls back to Bukkit for unmatched nodes")
+    void hasPermissionFallsBackForUnmatchedNodes() {
+        LegendPermissible permissible = new LegendPermissible(scopedPlayer, service);
+
+        scopedPlayer.setOp(false);
+        Assertions.assertFalse(permissible.hasPermission("completely.unknown.node"));
+        Assertions.assertTrue(permissible.hasPermission("example.exact"));
+
+        // unknown nodes default to operators in Bukkit, set nodes are still answered by the group
+        scopedPlayer.setOp(true);
+        Assertions.assertTrue(permissible.hasPermission("completely.unknown.node"));
+        Assertions.assertFalse(permissible.hasPermission("denied.node"));
+    }
+}
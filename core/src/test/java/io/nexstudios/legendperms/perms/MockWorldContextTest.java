@@ -0,0 +1,213 @@
+package io.nexstudios.legendperms.perms;
+
+import io.nexstudios.legendperms.LegendPerms;
+import io.nexstudios.legendperms.perms.compiled.CompiledGroupSet;
+import io.nexstudios.legendperms.perms.compiled.CompiledPermissions;
+import org.bukkit.World;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+import org.mockbukkit.mockbukkit.world.WorldMock;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("World context (MockBukkit)")
+public class MockWorldContextTest {
+
+    private ServerMock server;
+    private LegendPermissionService service;
+
+    private WorldMock survival;
+    private WorldMock creative;
+    private WorldMock minigame;
+
+    // members of builder and vip, vip denies essentials.fly, builder allows it in creative
+    private PlayerMock alice;
+    private PlayerMock bob;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        LegendPerms plugin = MockBukkit.load(LegendPerms.class);
+        service = plugin.getPermissionService();
+
+        survival = server.addSimpleWorld("survival");
+        creative = server.addSimpleWorld("creative");
+        minigame = server.addSimpleWorld("minigame");
+
+        service.createGroup("builder");
+        service.setGroupPriority("builder", 10);
+        service.addGroupPermission("builder", "worldedit.wand", PermissionDecision.ALLOW);
+        service.addGroupWorldPermission("builder", "creative", "essentials.fly", PermissionDecision.ALLOW);
+
+        service.createGroup("vip");
+        service.setGroupPriority("vip", 50);
+        service.addGroupPermission("vip", "essentials.fly", PermissionDecision.DENY);
+
+        alice = server.addPlayer("Alice");
+        bob = server.addPlayer("Bob");
+        for (PlayerMock player : new PlayerMock[]{alice, bob}) {
+            moveTo(player, survival);
+            service.userAddGroup(player.getUniqueId(), "builder");
+            service.userAddGroup(player.getUniqueId(), "vip");
+            awaitDecision(player.getUniqueId(), "essentials.fly", PermissionDecision.DENY);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    private void moveTo(PlayerMock player, World world) {
+        World from = player.getWorld();
+        player.teleport(world.getSpawnLocation());
+        server.getPluginManager().callEvent(new PlayerChangedWorldEvent(player, from));
+    }
+
+    private void tick() {
+        service.flushDirtyUsers();
+        server.getScheduler().performOneTick();
+        Thread.onSpinWait();
+    }
+
+    /**
+     * Changes are applied on the writer, compiled on a worker thread and published afterwards,
+     * so flush and tick the scheduler until the decision is visible.
+     */
+    private void awaitDecision(UUID uuid, String node, PermissionDecision expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.decide(uuid, node) != expected) {
+            Assertions.assertTrue(System.nanoTime() < deadline,
+                    () -> node + " was not " + expected + " in time, but " + service.decide(uuid, node));
+            tick();
+        }
+    }
+
+    private void awaitContext(UUID uuid, String context) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Objects.equals(context, contextOf(uuid))) {
+            Assertions.assertTrue(System.nanoTime() < deadline,
+                    () -> "The set of the user was not compiled for " + context + " in time, but for " + contextOf(uuid));
+            tick();
+        }
+    }
+
+    /**
+     * Waits until every mutation submitted so far has been applied by the writer.
+     */
+    private void awaitWriter() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CompletableFuture<Void> done = service.submit(() -> {
+        });
+        while (!done.isDone()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "The writer did not catch up in time.");
+            tick();
+        }
+    }
+
+    private String contextOf(UUID uuid) {
+        CompiledGroupSet set = service.compiledOf(uuid);
+        return set == null ? null : set.getSignature().context();
+    }
+
+    @Nested
+    @DisplayName("switching worlds")
+    class SwitchTests {
+
+        @Test
+        @DisplayName("moving between worlds changes the decision")
+        void movingChangesDecision() {
+            UUID uuid = alice.getUniqueId();
+
+            moveTo(alice, creative);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.ALLOW);
+            Assertions.assertEquals(PermissionDecision.ALLOW, service.decide(uuid, "worldedit.wand"));
+
+            moveTo(alice, survival);
+            awaitDecision(uuid, "essentials.fly", PermissionDecision.DENY);
+        }
+
+        @Test
+        @DisplayName("the listener switches the table on PlayerChangedWorldEvent")
+        void listenerSwitchesTable() {
+            World from = alice.getWorld();
+            alice.teleport(creative.getSpawnLocation());
+            server.getPluginManager().callEvent(new PlayerChangedWorldEvent(alice, from));
+
+            awaitContext(alice.getUniqueId(), "creative");
+            awaitDecision(alice.getUniqueId(), "essentials.fly", PermissionDecision.ALLOW);
+        }
+
+        @Test
+        @DisplayName("a world node overrides a global node of a higher priority group")
+        void worldNodeOverridesGlobal() {
+            moveTo(alice, creative);
+            awaitDecision(alice.getUniqueId(), "essentials.fly", PermissionDecision.ALLOW);
+
+            // bob stays in survival, where the global node of vip applies
+            Assertions.assertEquals(PermissionDecision.DENY, service.decide(bob.getUniqueId(), "essentials.fly"));
+        }
+    }
+
+    @Nested
+    @DisplayName("signatures")
+    class SignatureTests {
+
+        @Test
+        @DisplayName("setActiveWorld only adds the world to the signature if a group has nodes for it")
+        void contextOnlyWithWorldNodes() {
+            PlayerMock charlie = server.addPlayer("Charlie");
+            UUID uuid = charlie.getUniqueId();
+            service.createGroup("member");
+            service.addGroupPermission("member", "chat.color", PermissionDecision.ALLOW);
+            service.userAddGroup(uuid, "member");
+            awaitDecision(uuid, "chat.color", PermissionDecision.ALLOW);
+            CompiledGroupSet before = service.compiledOf(uuid);
+
+            service.setActiveWorld(uuid, "creative");
+            awaitWriter();
+            awaitWriter();
+
+            Assertions.assertSame(before, service.compiledOf(uuid));
+            Assertions.assertNull(contextOf(uuid));
+
+            service.setActiveWorld(alice.getUniqueId(), "creative");
+            awaitContext(alice.getUniqueId(), "creative");
+        }
+
+        @Test
+        @DisplayName("players in worlds without nodes share the context-free set")
+        void otherWorldsShareSet() {
+            moveTo(alice, minigame);
+            awaitWriter();
+
+            Assertions.assertNull(contextOf(alice.getUniqueId()));
+            Assertions.assertSame(service.compiledOf(bob.getUniqueId()), service.compiledOf(alice.getUniqueId()));
+        }
+
+        @Test
+        @DisplayName("a world node only recompiles the sets of that world")
+        void worldChangeRecompilesOnlyItsSets() {
+            moveTo(alice, creative);
+            awaitContext(alice.getUniqueId(), "creative");
+            CompiledPermissions survivalPermissions = service.compiledOf(bob.getUniqueId()).getPermissions();
+
+            service.addGroupWorldPermission("builder", "creative", "worldedit.regen", PermissionDecision.DENY);
+            awaitDecision(alice.getUniqueId(), "worldedit.regen", PermissionDecision.DENY);
+
+            Assertions.assertSame(survivalPermissions, service.compiledOf(bob.getUniqueId()).getPermissions());
+            Assertions.assertEquals(PermissionDecision.NOT_SET, service.decide(bob.getUniqueId(), "worldedit.regen"));
+        }
+    }
+}
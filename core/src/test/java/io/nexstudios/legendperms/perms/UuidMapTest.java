@@ -0,0 +1,196 @@
+package io.nexstudios.legendperms.perms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("UuidMap")
+public class UuidMapTest {
+
+    private static List<UUID> uuids(int count, long seed) {
+        Random random = new Random(seed);
+        List<UUID> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return out;
+    }
+
+    @Test
+    @DisplayName("put, get, remove and put again of the same key")
+    void putRemovePutSameKey() {
+        UuidMap<String> map = new UuidMap<>();
+        UUID uuid = UUID.randomUUID();
+
+        Assertions.assertNull(map.put(uuid, "a"));
+        Assertions.assertEquals("a", map.get(uuid));
+        Assertions.assertEquals("a", map.put(uuid, "b"));
+        Assertions.assertEquals("b", map.get(uuid));
+        Assertions.assertEquals(1, map.size());
+
+        Assertions.assertEquals("b", map.remove(uuid));
+        Assertions.assertNull(map.get(uuid));
+        Assertions.assertNull(map.remove(uuid));
+        Assertions.assertEquals(0, map.size());
+
+        // the tombstone of the key is reused
+        Assertions.assertNull(map.put(uuid, "c"));
+        Assertions.assertEquals("c", map.get(uuid));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    @DisplayName("keys with equal halves in different positions are distinct")
+    void keysWithSwappedHalvesAreDistinct() {
+        UuidMap<String> map = new UuidMap<>();
+        UUID first = new UUID(1L, 2L);
+        UUID second = new UUID(2L, 1L);
+
+        map.put(first, "first");
+        map.put(second, "second");
+
+        Assertions.assertEquals("first", map.get(first));
+        Assertions.assertEquals("second", map.get(second));
+        Assertions.assertEquals("first", map.get(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("grows past the half-full threshold while tombstones fill the table")
+    void growsWithTombstones() {
+        UuidMap<Integer> map = new UuidMap<>();
+        Map<UUID, Integer> expected = new HashMap<>();
+        Random random = new Random(17);
+        List<UUID> keys = uuids(2_000, 1);
+
+        // churn: most entries are removed again, so the table is full of tombstones before it is rebuilt
+        for (int round = 0; round < 20_000; round++) {
+            UUID uuid = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(uuid), map.remove(uuid));
+            } else {
+                Assertions.assertEquals(expected.put(uuid, round), map.put(uuid, round));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+
+        for (UUID uuid : keys) {
+            Assertions.assertEquals(expected.get(uuid), map.get(uuid));
+        }
+    }
+
+    @Test
+    @DisplayName("keys() and forEach() skip removed entries")
+    void iterationSkipsRemovedEntries() {
+        UuidMap<Integer> map = new UuidMap<>();
+        List<UUID> keys = uuids(100, 2);
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), i);
+        }
+        for (int i = 0; i < keys.size(); i += 2) {
+            map.remove(keys.get(i));
+        }
+
+        Set<UUID> expected = new HashSet<>();
+        for (int i = 1; i < keys.size(); i += 2) {
+            expected.add(keys.get(i));
+        }
+        Assertions.assertEquals(expected, new HashSet<>(map.keys()));
+
+        Map<UUID, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        Assertions.assertEquals(expected, visited.keySet());
+        visited.forEach((uuid, value) -> Assertions.assertEquals(keys.indexOf(uuid), value));
+    }
+
+    @Test
+    @DisplayName("computeIfAbsent calls the function once per key across threads")
+    void computeIfAbsentIsCalledOnce() throws Exception {
+        UuidMap<Object> map = new UuidMap<>();
+        List<UUID> keys = uuids(500, 3);
+        AtomicInteger calls = new AtomicInteger();
+        int threads = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Object>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<Object> values = new ArrayList<>();
+                    for (UUID uuid : keys) {
+                        values.add(map.computeIfAbsent(uuid, key -> {
+                            calls.incrementAndGet();
+                            return new Object();
+                        }));
+                    }
+                    return values;
+                }));
+            }
+            start.countDown();
+
+            List<Object> first = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<List<Object>> result : results) {
+                List<Object> values = result.get(10, TimeUnit.SECONDS);
+                for (int i = 0; i < keys.size(); i++) {
+                    Assertions.assertSame(first.get(i), values.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(keys.size(), calls.get());
+        Assertions.assertEquals(keys.size(), map.size());
+    }
+
+    @Test
+    @DisplayName("concurrent readers never see the value of another key while the table is rebuilt")
+    void readersNeverSeeForeignValues() throws Exception {
+        UuidMap<UUID> map = new UuidMap<>();
+        List<UUID> keys = uuids(4_000, 4);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger foreign = new AtomicInteger();
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (UUID uuid : keys) {
+                    UUID value = map.get(uuid);
+                    if (value != null && !value.equals(uuid)) foreign.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        // every value is its own key, inserts grow the table, removals leave tombstones behind
+        Random random = new Random(5);
+        for (int round = 0; round < 50_000; round++) {
+            UUID uuid = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(4) == 0) {
+                map.remove(uuid);
+            } else {
+                map.put(uuid, uuid);
+            }
+        }
+        done.set(true);
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+
+        Assertions.assertEquals(0, foreign.get());
+    }
+}
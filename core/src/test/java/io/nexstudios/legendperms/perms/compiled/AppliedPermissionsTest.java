@@ -0,0 +1,199 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+@DisplayName("Applied permissions refresh gating")
+public class AppliedPermissionsTest {
+
+    private final PermissionNodeRegistry registry = new PermissionNodeRegistry();
+    // stands in for the nodes of registered commands
+    private final IntPredicate gatesCommand = id -> registry.node(id).startsWith("command.");
+
+    private EffectivePermissions table(Map<String, PermissionDecision> permissions) {
+        return EffectivePermissions.compile(permissions, registry);
+    }
+
+    @Nested
+    @DisplayName("merged mode")
+    class MergedTests {
+
+        @Test
+        @DisplayName("an equal table is not refreshed")
+        void equalTableIsSame() {
+            AppliedPermissions previous = AppliedPermissions.of(table(Map.of("command.fly", PermissionDecision.ALLOW)));
+            AppliedPermissions current = AppliedPermissions.of(table(Map.of("command.fly", PermissionDecision.ALLOW)));
+
+            Assertions.assertTrue(current.sameAs(previous));
+        }
+
+        @Test
+        @DisplayName("only a changed gating node resends the commands")
+        void gatingNodeResendsCommands() {
+            EffectivePermissions before = table(Map.of("command.fly", PermissionDecision.ALLOW));
+            int other = registry.intern("other.node");
+            int gating = registry.intern("command.fly");
+
+            AppliedPermissions previous = AppliedPermissions.of(before);
+            AppliedPermissions otherChanged = AppliedPermissions.of(before.with(other, PermissionDecision.ALLOW, registry));
+            AppliedPermissions gatingChanged = AppliedPermissions.of(before.with(gating, PermissionDecision.DENY, registry));
+
+            Assertions.assertFalse(otherChanged.sameAs(previous));
+            Assertions.assertFalse(otherChanged.anyChanged(previous, gatesCommand));
+            Assertions.assertTrue(gatingChanged.anyChanged(previous, gatesCommand));
+        }
+
+        @Test
+        @DisplayName("the first refresh always resends the commands")
+        void firstRefreshResendsCommands() {
+            AppliedPermissions current = AppliedPermissions.of(EffectivePermissions.EMPTY);
+
+            Assertions.assertFalse(current.sameAs(null));
+            Assertions.assertTrue(current.anyChanged(null, gatesCommand));
+        }
+    }
+
+    @Nested
+    @DisplayName("layered mode")
+    class LayeredTests {
+
+        @Test
+        @DisplayName("unpatched layers are not refreshed")
+        void unpatchedLayersAreSame() {
+            GroupPermissionTable admin = new GroupPermissionTable(table(Map.of("command.ban", PermissionDecision.ALLOW)));
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            LayeredPermissions layered = new LayeredPermissions(List.of(admin, member));
+
+            AppliedPermissions previous = AppliedPermissions.of(layered);
+
+            Assertions.assertTrue(AppliedPermissions.of(layered).sameAs(previous));
+        }
+
+        @Test
+        @DisplayName("a patched non-gating node refreshes the permissions, but not the commands")
+        void patchedNodeKeepsCommands() {
+            GroupPermissionTable admin = new GroupPermissionTable(table(Map.of("command.ban", PermissionDecision.ALLOW)));
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            LayeredPermissions layered = new LayeredPermissions(List.of(admin, member));
+
+            AppliedPermissions previous = AppliedPermissions.of(layered);
+            member.patch(registry.intern("chat.format"), PermissionDecision.ALLOW, registry);
+            AppliedPermissions current = AppliedPermissions.of(layered);
+
+            Assertions.assertFalse(current.sameAs(previous));
+            Assertions.assertFalse(current.anyChanged(previous, gatesCommand));
+        }
+
+        @Test
+        @DisplayName("a patched gating node resends the commands")
+        void patchedGatingNodeResendsCommands() {
+            GroupPermissionTable admin = new GroupPermissionTable(table(Map.of("command.ban", PermissionDecision.ALLOW)));
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            LayeredPermissions layered = new LayeredPermissions(List.of(admin, member));
+
+            AppliedPermissions previous = AppliedPermissions.of(layered);
+            member.patch(registry.intern("command.spawn"), PermissionDecision.ALLOW, registry);
+            AppliedPermissions current = AppliedPermissions.of(layered);
+
+            Assertions.assertTrue(current.anyChanged(previous, gatesCommand));
+        }
+
+        @Test
+        @DisplayName("a patch that is reverted again is not refreshed")
+        void revertedPatchIsSame() {
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            LayeredPermissions layered = new LayeredPermissions(List.of(member));
+            int id = registry.intern("command.spawn");
+
+            AppliedPermissions previous = AppliedPermissions.of(layered);
+            member.patch(id, PermissionDecision.ALLOW, registry);
+            member.patch(id, PermissionDecision.NOT_SET, registry);
+
+            Assertions.assertTrue(AppliedPermissions.of(layered).sameAs(previous));
+        }
+
+        @Test
+        @DisplayName("a different number of layers resends the commands")
+        void differentLayersResendCommands() {
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            GroupPermissionTable vip = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+
+            AppliedPermissions previous = AppliedPermissions.of(new LayeredPermissions(List.of(member)));
+            AppliedPermissions current = AppliedPermissions.of(new LayeredPermissions(List.of(vip, member)));
+
+            Assertions.assertFalse(current.sameAs(previous));
+            Assertions.assertTrue(current.anyChanged(previous, gatesCommand));
+        }
+    }
+
+    @Nested
+    @DisplayName("personal overlay")
+    class OverlayTests {
+
+        private CompiledGroupSet groupSet(CompiledPermissions permissions) {
+            return new CompiledGroupSet(GroupSetSignature.of(List.of(1)), permissions);
+        }
+
+        @Test
+        @DisplayName("an unchanged overlay is not refreshed")
+        void unchangedOverlayIsSame() {
+            CompiledGroupSet set = groupSet(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            UserOverlayPermissions overlay = new UserOverlayPermissions(table(Map.of("command.fly", PermissionDecision.ALLOW)), set);
+
+            AppliedPermissions previous = AppliedPermissions.of(overlay);
+
+            Assertions.assertTrue(AppliedPermissions.of(overlay).sameAs(previous));
+        }
+
+        @Test
+        @DisplayName("a patched non-gating node of the group set refreshes the permissions, but not the commands")
+        void patchedGroupSetKeepsCommands() {
+            EffectivePermissions groups = table(Map.of("chat.color", PermissionDecision.ALLOW));
+            CompiledGroupSet set = groupSet(groups);
+            UserOverlayPermissions overlay = new UserOverlayPermissions(table(Map.of("command.fly", PermissionDecision.ALLOW)), set);
+
+            AppliedPermissions previous = AppliedPermissions.of(overlay);
+            set.setPermissions(groups.with(registry.intern("chat.format"), PermissionDecision.ALLOW, registry));
+            AppliedPermissions current = AppliedPermissions.of(overlay);
+
+            Assertions.assertFalse(current.sameAs(previous));
+            Assertions.assertFalse(current.anyChanged(previous, gatesCommand));
+        }
+
+        @Test
+        @DisplayName("a changed gating node of the personal nodes resends the commands")
+        void changedOwnGatingNodeResendsCommands() {
+            CompiledGroupSet set = groupSet(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            EffectivePermissions own = table(Map.of("command.fly", PermissionDecision.ALLOW));
+
+            AppliedPermissions previous = AppliedPermissions.of(new UserOverlayPermissions(own, set));
+            UserOverlayPermissions changed = new UserOverlayPermissions(own.with(registry.intern("command.fly"), PermissionDecision.DENY, registry), set);
+
+            Assertions.assertTrue(AppliedPermissions.of(changed).anyChanged(previous, gatesCommand));
+        }
+
+        @Test
+        @DisplayName("the layers of a layered group set are compared as well")
+        void layeredGroupSet() {
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("chat.color", PermissionDecision.ALLOW)));
+            CompiledGroupSet set = groupSet(new LayeredPermissions(List.of(member)));
+            UserOverlayPermissions overlay = new UserOverlayPermissions(table(Map.of("chat.format", PermissionDecision.ALLOW)), set);
+
+            AppliedPermissions previous = AppliedPermissions.of(overlay);
+            Assertions.assertTrue(AppliedPermissions.of(overlay).sameAs(previous));
+
+            member.patch(registry.intern("command.spawn"), PermissionDecision.ALLOW, registry);
+            AppliedPermissions current = AppliedPermissions.of(overlay);
+
+            Assertions.assertFalse(current.sameAs(previous));
+            Assertions.assertTrue(current.anyChanged(previous, gatesCommand));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@DisplayName("EffectivePermissions Bloom filter")
+public class EffectivePermissionsTest {
+
+    private final PermissionNodeRegistry registry = new PermissionNodeRegistry();
+
+    private static Map<String, PermissionDecision> pluginRoots(int plugins) {
+        Map<String, PermissionDecision> permissions = new HashMap<>();
+        for (int i = 0; i < plugins; i++) {
+            permissions.put("plugin" + i + ".use", PermissionDecision.ALLOW);
+            permissions.put("plugin" + i + ".admin.*", PermissionDecision.DENY);
+        }
+        return permissions;
+    }
+
+    private double falsePositiveRate(EffectivePermissions permissions) {
+        int probes = 10_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (permissions.mightMatch(registry.parse("unrelated" + i + ".node"))) falsePositives++;
+        }
+        return (double) falsePositives / probes;
+    }
+
+    @Test
+    @DisplayName("every set first segment passes the filter")
+    void setRootsMightMatch() {
+        EffectivePermissions permissions = EffectivePermissions.compile(pluginRoots(100), registry);
+
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(permissions.mightMatch(registry.parse("plugin" + i + ".use")));
+            Assertions.assertTrue(permissions.mightMatch(registry.parse("plugin" + i + ".admin.reload")));
+        }
+    }
+
+    @Test
+    @DisplayName("false positive rate stays low with a hundred plugin roots")
+    void falsePositiveRateWithManyRoots() {
+        EffectivePermissions permissions = EffectivePermissions.compile(pluginRoots(100), registry);
+
+        double rate = falsePositiveRate(permissions);
+        Assertions.assertTrue(rate < 0.05, () -> "false positive rate " + rate);
+    }
+
+    @Test
+    @DisplayName("false positive rate stays low with a single plugin root")
+    void falsePositiveRateWithOneRoot() {
+        EffectivePermissions permissions = EffectivePermissions.compile(pluginRoots(1), registry);
+
+        double rate = falsePositiveRate(permissions);
+        Assertions.assertTrue(rate < 0.05, () -> "false positive rate " + rate);
+    }
+
+    @Test
+    @DisplayName("patched roots pass the filter")
+    void patchedRootsMightMatch() {
+        EffectivePermissions permissions = EffectivePermissions.compile(pluginRoots(3), registry);
+        int id = registry.intern("patched.node");
+
+        Assertions.assertTrue(permissions.with(id, PermissionDecision.ALLOW, registry)
+                .mightMatch(registry.parse("patched.node")));
+    }
+
+    @Test
+    @DisplayName("the global wildcard and globs without a literal root disable the filter")
+    void unfilteredNodesDisableFilter() {
+        Map<String, PermissionDecision> global = pluginRoots(3);
+        global.put("*", PermissionDecision.ALLOW);
+        Map<String, PermissionDecision> glob = pluginRoots(3);
+        glob.put("*.fly", PermissionDecision.ALLOW);
+
+        Assertions.assertTrue(EffectivePermissions.compile(global, registry).mightMatch(registry.parse("unrelated.node")));
+        Assertions.assertTrue(EffectivePermissions.compile(glob, registry).mightMatch(registry.parse("unrelated.fly")));
+    }
+
+    @Test
+    @DisplayName("empty permissions match nothing")
+    void emptyMatchesNothing() {
+        Assertions.assertFalse(EffectivePermissions.EMPTY.mightMatch(registry.parse("any.node")));
+    }
+}
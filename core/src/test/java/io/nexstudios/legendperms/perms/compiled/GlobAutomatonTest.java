@@ -0,0 +1,252 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@DisplayName("Glob patterns")
+public class GlobAutomatonTest {
+
+    private final PermissionNodeRegistry registry = new PermissionNodeRegistry();
+
+    private PermissionDecision decide(Map<String, PermissionDecision> permissions, String node) {
+        return registry.decide(node, EffectivePermissions.compile(permissions, registry));
+    }
+
+    private void assertMatches(String pattern, String... nodes) {
+        for (String node : nodes) {
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(Map.of(pattern, PermissionDecision.ALLOW), node),
+                    () -> pattern + " should match " + node);
+        }
+    }
+
+    private void assertNoMatch(String pattern, String... nodes) {
+        for (String node : nodes) {
+            Assertions.assertEquals(PermissionDecision.NOT_SET, decide(Map.of(pattern, PermissionDecision.ALLOW), node),
+                    () -> pattern + " should not match " + node);
+        }
+    }
+
+    @Nested
+    @DisplayName("syntax")
+    class SyntaxTests {
+
+        @Test
+        @DisplayName("a star inside a node matches within one segment")
+        void segmentStar() {
+            assertMatches("essentials.*.others", "essentials.fly.others", "essentials..others");
+            assertNoMatch("essentials.*.others", "essentials.fly", "essentials.fly.sub.others", "essentials.fly.others.more");
+        }
+
+        @Test
+        @DisplayName("braces match one of the alternatives, a trailing .* everything below")
+        void braces() {
+            assertMatches("worldedit.{brush,tool}.*", "worldedit.brush.sphere", "worldedit.tool.info.deep");
+            assertNoMatch("worldedit.{brush,tool}.*", "worldedit.wand.x", "worldedit.brush", "worldedit.brushes.x");
+        }
+
+        @Test
+        @DisplayName("character classes match one character of the class")
+        void characterClasses() {
+            assertMatches("shop.sell.[0-9]*", "shop.sell.5", "shop.sell.42", "shop.sell.7stack");
+            assertNoMatch("shop.sell.[0-9]*", "shop.sell.x", "shop.sell.", "shop.sell.4.x");
+        }
+
+        @Test
+        @DisplayName("[!...] and [^...] negate a class")
+        void negatedClasses() {
+            assertMatches("kit.[!v]*", "kit.basic", "kit.a");
+            assertNoMatch("kit.[!v]*", "kit.vip", "kit.");
+            assertMatches("kit.[^v]*", "kit.basic");
+            assertNoMatch("kit.[^v]*", "kit.vip");
+        }
+
+        @Test
+        @DisplayName("? matches a single character within one segment")
+        void questionMark() {
+            assertMatches("home.?", "home.a", "home.1");
+            assertNoMatch("home.?", "home.", "home.ab", "home..");
+        }
+
+        @Test
+        @DisplayName("** matches across segments, a single * does not")
+        void doubleStar() {
+            assertMatches("shop.**.buy", "shop.a.buy", "shop.a.b.buy");
+            assertMatches("shop.*.buy", "shop.a.buy");
+            assertNoMatch("shop.*.buy", "shop.a.b.buy");
+        }
+
+        @Test
+        @DisplayName("a trailing .* is a plain wildcard, a trailing segment star is not")
+        void trailingWildcard() {
+            assertMatches("shop.*", "shop.a", "shop.a.b");
+            assertMatches("shop.b*", "shop.b", "shop.bc");
+            assertNoMatch("shop.b*", "shop.b.c", "shop.a");
+        }
+
+        @Test
+        @DisplayName("malformed patterns are plain nodes that only match themselves")
+        void malformedPatterns() {
+            for (String pattern : new String[]{"shop.[0-9", "shop.{a,b", "shop.a}", "shop.{a,{b,c}}"}) {
+                Assertions.assertEquals(PermissionDecision.ALLOW, decide(Map.of(pattern, PermissionDecision.ALLOW), pattern), pattern);
+                assertNoMatch(pattern, "shop.5", "shop.a", "shop.b");
+            }
+        }
+
+        @Test
+        @DisplayName("a glob node is checked literally as well as a pattern")
+        void globNodeMatchesItself() {
+            Assertions.assertEquals(PermissionDecision.DENY,
+                    decide(Map.of("essentials.*.others", PermissionDecision.DENY), "essentials.*.others"));
+        }
+    }
+
+    @Nested
+    @DisplayName("specificity")
+    class SpecificityTests {
+
+        @Test
+        @DisplayName("a glob with more literal characters overrides a plain wildcard")
+        void globOverridesWildcard() {
+            Map<String, PermissionDecision> permissions = Map.of(
+                    "essentials.*", PermissionDecision.ALLOW,
+                    "essentials.*.others", PermissionDecision.DENY);
+
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "essentials.fly.others"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "essentials.fly"));
+        }
+
+        @Test
+        @DisplayName("a plain wildcard with a longer prefix overrides a glob")
+        void wildcardOverridesGlob() {
+            Map<String, PermissionDecision> permissions = Map.of(
+                    "shop.*.buy", PermissionDecision.ALLOW,
+                    "shop.vip.buy.*", PermissionDecision.DENY);
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "shop.vip.buy"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "shop.vip.buy.more"));
+        }
+
+        @Test
+        @DisplayName("the exact node overrides every pattern")
+        void exactOverridesPatterns() {
+            Map<String, PermissionDecision> permissions = Map.of(
+                    "essentials.*.others", PermissionDecision.DENY,
+                    "essentials.fly.others", PermissionDecision.ALLOW);
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "essentials.fly.others"));
+        }
+
+        @Test
+        @DisplayName("DENY wins between a glob and a wildcard of equal specificity")
+        void denyWinsAgainstEquallySpecificWildcard() {
+            // both have ten literal characters: "shop.sell."
+            Map<String, PermissionDecision> globAllows = Map.of(
+                    "shop.sell.*", PermissionDecision.DENY,
+                    "shop.sell.[0-9]*", PermissionDecision.ALLOW);
+            Map<String, PermissionDecision> wildcardAllows = Map.of(
+                    "shop.sell.*", PermissionDecision.ALLOW,
+                    "shop.sell.[0-9]*", PermissionDecision.DENY);
+
+            Assertions.assertEquals(PermissionDecision.DENY, decide(globAllows, "shop.sell.5"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(wildcardAllows, "shop.sell.5"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(wildcardAllows, "shop.sell.x"));
+        }
+
+        @Test
+        @DisplayName("DENY wins between two globs of equal specificity")
+        void denyWinsBetweenEquallySpecificGlobs() {
+            Map<String, PermissionDecision> permissions = Map.of(
+                    "kit.?b", PermissionDecision.ALLOW,
+                    "kit.b?", PermissionDecision.DENY);
+
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "kit.bb"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "kit.ab"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "kit.ba"));
+        }
+    }
+
+    @Nested
+    @DisplayName("state limit")
+    class StateLimitTests {
+
+        // the n-th character from the end is an "a": the deterministic automaton needs 2^n states
+        private static final String EXPLOSIVE = "**a" + "?".repeat(14);
+
+        @Test
+        @DisplayName("a pattern exceeding the state limit is rejected and matches only itself")
+        void explosivePatternIsRejected() {
+            registry.intern("essentials.*.others");
+            String matching = "xa" + "b".repeat(14);
+
+            Map<String, PermissionDecision> permissions = new HashMap<>();
+            permissions.put("essentials.*.others", PermissionDecision.ALLOW);
+            permissions.put(EXPLOSIVE, PermissionDecision.ALLOW);
+
+            Assertions.assertEquals(PermissionDecision.NOT_SET, decide(permissions, matching));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, EXPLOSIVE));
+            // the patterns interned before keep matching
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "essentials.fly.others"));
+        }
+
+        @Test
+        @DisplayName("the automaton never exceeds the state limit")
+        void automatonStaysWithinLimit() {
+            GlobAutomaton automaton = GlobAutomaton.EMPTY;
+            for (int n = 1; n <= 14; n++) {
+                GlobPattern pattern = GlobPattern.parse(n, "**a" + "?".repeat(n));
+                GlobAutomaton next = automaton.with(pattern);
+                if (next == null) break;
+                automaton = next;
+            }
+
+            Assertions.assertTrue(automaton.stateCount() <= GlobAutomaton.MAX_STATES);
+            Assertions.assertNull(GlobAutomaton.EMPTY.with(GlobPattern.parse(0, EXPLOSIVE)));
+        }
+    }
+
+    @Nested
+    @DisplayName("parse cache")
+    class ParseCacheTests {
+
+        @Test
+        @DisplayName("interning a node keeps the parsed nodes it cannot match")
+        void unrelatedNodeKeepsEntries() {
+            ParsedNode chat = registry.parse("chat.color");
+            ParsedNode fly = registry.parse("essentials.fly");
+
+            registry.intern("essentials.home");
+            registry.intern("kit.{vip,mvp}");
+            registry.intern("worldedit.*");
+
+            // carried over entries share the ids of the first parse, a new parse has its own
+            Assertions.assertSame(chat.wildcardIds, registry.parse("chat.color").wildcardIds);
+            Assertions.assertSame(fly.wildcardIds, registry.parse("essentials.fly").wildcardIds);
+        }
+
+        @Test
+        @DisplayName("interning a node parses the nodes it matches again")
+        void matchingNodeDropsEntries() {
+            registry.parse("essentials.fly");
+            registry.parse("kit.vip");
+            registry.parse("chat.color");
+
+            int fly = registry.intern("essentials.fly");
+            int kits = registry.intern("kit.{vip,mvp}");
+            int essentials = registry.intern("essentials.*");
+
+            Assertions.assertEquals(fly, registry.parse("essentials.fly").exactId);
+            Assertions.assertArrayEquals(new int[]{essentials}, registry.parse("essentials.fly").wildcardIds);
+            Assertions.assertArrayEquals(new int[]{kits}, registry.parse("kit.vip").wildcardIds);
+            Assertions.assertArrayEquals(new int[0], registry.parse("chat.color").wildcardIds);
+
+            int global = registry.intern("*");
+            Assertions.assertArrayEquals(new int[]{global}, registry.parse("chat.color").wildcardIds);
+        }
+    }
+}
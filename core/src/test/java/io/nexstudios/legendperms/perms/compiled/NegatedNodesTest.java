@@ -0,0 +1,123 @@
+package io.nexstudios.legendperms.perms.compiled;
+
+import io.nexstudios.legendperms.perms.PermissionDecision;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@DisplayName("Negated nodes")
+public class NegatedNodesTest {
+
+    private final PermissionNodeRegistry registry = new PermissionNodeRegistry();
+
+    private EffectivePermissions table(Map<String, PermissionDecision> permissions) {
+        return EffectivePermissions.compile(permissions, registry);
+    }
+
+    private PermissionDecision decide(CompiledPermissions permissions, String node) {
+        return registry.decide(node, permissions);
+    }
+
+    @Nested
+    @DisplayName("syntax")
+    class SyntaxTests {
+
+        @Test
+        @DisplayName("-node always denies the node, the stored decision is ignored")
+        void negationDenies() {
+            Assertions.assertEquals(PermissionDecision.DENY, decide(table(Map.of("-fly", PermissionDecision.DENY)), "fly"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(table(Map.of("-fly", PermissionDecision.ALLOW)), "fly"));
+            Assertions.assertEquals(PermissionDecision.DENY, NegatedNodes.lookup(Map.of("-fly", PermissionDecision.ALLOW), "fly"));
+            Assertions.assertEquals("fly", NegatedNodes.target("-fly"));
+            Assertions.assertFalse(NegatedNodes.isNegated("-"));
+        }
+
+        @Test
+        @DisplayName("a negation overrides the plain node within one holder")
+        void negationBeatsPlainNode() {
+            Map<String, PermissionDecision> permissions = Map.of(
+                    "fly", PermissionDecision.ALLOW,
+                    "-fly", PermissionDecision.DENY);
+
+            Assertions.assertEquals(PermissionDecision.DENY, decide(table(permissions), "fly"));
+            Assertions.assertEquals(PermissionDecision.DENY, NegatedNodes.lookup(permissions, "fly"));
+        }
+
+        @Test
+        @DisplayName("-prefix.* denies the whole wildcard, more specific nodes still override it")
+        void negatedWildcard() {
+            EffectivePermissions permissions = table(Map.of(
+                    "-essentials.*", PermissionDecision.DENY,
+                    "essentials.home", PermissionDecision.ALLOW));
+
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "essentials.fly"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "essentials.fly.others"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "essentials.home"));
+        }
+
+        @Test
+        @DisplayName("compiled tables only hold plain nodes")
+        void compiledTablesHoldPlainNodes() {
+            EffectivePermissions permissions = table(Map.of(
+                    "worldedit.*", PermissionDecision.ALLOW,
+                    "-worldedit.regen", PermissionDecision.DENY));
+
+            Assertions.assertEquals(
+                    Map.of("worldedit.*", PermissionDecision.ALLOW, "worldedit.regen", PermissionDecision.DENY),
+                    permissions.toMap(registry));
+        }
+    }
+
+    @Nested
+    @DisplayName("excluding a node from a wildcard")
+    class ExcludeTests {
+
+        private final Map<String, PermissionDecision> worldedit = Map.of(
+                "worldedit.*", PermissionDecision.ALLOW,
+                "-worldedit.regen", PermissionDecision.DENY);
+
+        @Test
+        @DisplayName("merged: the wildcard allows, the excluded node is denied")
+        void merged() {
+            EffectivePermissions permissions = table(worldedit);
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "worldedit.wand"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "worldedit.brush.sphere"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "worldedit.regen"));
+        }
+
+        @Test
+        @DisplayName("layered: each layer resolves its own negations")
+        void layered() {
+            GroupPermissionTable builder = new GroupPermissionTable(table(worldedit));
+            GroupPermissionTable member = new GroupPermissionTable(table(Map.of("worldedit.regen", PermissionDecision.ALLOW)));
+            LayeredPermissions permissions = new LayeredPermissions(List.of(builder, member));
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(permissions, "worldedit.wand"));
+            Assertions.assertEquals(PermissionDecision.DENY, decide(permissions, "worldedit.regen"));
+        }
+
+        @Test
+        @DisplayName("a later holder overrides the negation of an earlier one when merged")
+        void laterHolderOverrides() {
+            Map<String, PermissionDecision> merged = new HashMap<>();
+            NegatedNodes.mergeInto(merged, worldedit);
+            NegatedNodes.mergeInto(merged, Map.of("worldedit.regen", PermissionDecision.ALLOW));
+
+            Assertions.assertEquals(PermissionDecision.ALLOW, merged.get("worldedit.regen"));
+            Assertions.assertEquals(PermissionDecision.ALLOW, decide(table(merged), "worldedit.regen"));
+
+            // and the other way around
+            merged.clear();
+            NegatedNodes.mergeInto(merged, Map.of("worldedit.regen", PermissionDecision.ALLOW));
+            NegatedNodes.mergeInto(merged, worldedit);
+
+            Assertions.assertEquals(PermissionDecision.DENY, decide(table(merged), "worldedit.regen"));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.nexstudios.legendperms.perms.expiry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+@DisplayName("ExpiryWheel")
+public class ExpiryWheelTest {
+
+    // one millisecond per tick, so deadlines are tick numbers
+    private static final long START = 1_000_000L;
+    // ticks covered by one slot of level 1, 2 and 3
+    private static final long LEVEL_1 = 64;
+    private static final long LEVEL_2 = 64 * 64;
+    private static final long LEVEL_3 = 64 * 64 * 64;
+    // the range of all five levels
+    private static final long MAX_DELTA = (1L << 30) - 1;
+
+    private final ExpiryWheel<String> wheel = new ExpiryWheel<>(1, START);
+
+    @Test
+    @DisplayName("an entry fires once its deadline is reached, not before")
+    void firesAtDeadline() {
+        wheel.schedule("a", START + 5);
+
+        Assertions.assertEquals(List.of(), wheel.advance(START + 4));
+        Assertions.assertEquals(List.of("a"), wheel.advance(START + 5));
+        Assertions.assertEquals(List.of(), wheel.advance(START + 100));
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("a deadline in the past fires on the next advance")
+    void overdueFiresOnNextAdvance() {
+        wheel.advance(START + 10);
+        wheel.schedule("late", START);
+
+        Assertions.assertEquals(1, wheel.size());
+        Assertions.assertEquals(List.of("late"), wheel.advance(START + 11));
+    }
+
+    @Test
+    @DisplayName("entries cascade down the levels and fire exactly at their deadline")
+    void cascadesAcrossLevels() {
+        long[] deadlines = {START + LEVEL_1 + 3, START + LEVEL_2 + 5, START + LEVEL_3 + 7, START + 3 * LEVEL_3 + 11};
+        for (long deadline : deadlines) {
+            wheel.schedule("at " + deadline, deadline);
+        }
+
+        for (long deadline : deadlines) {
+            Assertions.assertEquals(List.of(), wheel.advance(deadline - 1), () -> "fired before " + deadline);
+            Assertions.assertEquals(List.of("at " + deadline), wheel.advance(deadline));
+        }
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("a single large advance returns every due entry in deadline order")
+    void largeAdvanceKeepsOrder() {
+        wheel.schedule("third", START + LEVEL_3 + 1);
+        wheel.schedule("first", START + 2);
+        wheel.schedule("second", START + LEVEL_2);
+        wheel.schedule("later", START + 2 * LEVEL_3);
+
+        Assertions.assertEquals(List.of("first", "second", "third"), wheel.advance(START + LEVEL_3 + 1));
+        Assertions.assertEquals(1, wheel.size());
+    }
+
+    @Test
+    @DisplayName("a deadline beyond the range of the wheel is parked and fires at its deadline")
+    void deadlineBeyondMaxDelta() {
+        // walks the whole range tick by tick, about a billion cheap iterations
+        long deadline = START + MAX_DELTA + 500;
+        wheel.schedule("far", deadline);
+
+        Assertions.assertEquals(List.of(), wheel.advance(START + MAX_DELTA));
+        Assertions.assertEquals(List.of(), wheel.advance(deadline - 1));
+        Assertions.assertEquals(List.of("far"), wheel.advance(deadline));
+    }
+
+    @Test
+    @DisplayName("deadlines are rounded up to the next tick")
+    void deadlinesRoundUp() {
+        ExpiryWheel<String> coarse = new ExpiryWheel<>(50, 0);
+        coarse.schedule("a", 101);
+
+        Assertions.assertEquals(List.of(), coarse.advance(149));
+        Assertions.assertEquals(List.of("a"), coarse.advance(150));
+    }
+
+    @Test
+    @DisplayName("a non-positive tick length is rejected")
+    void rejectsInvalidTick() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ExpiryWheel<String>(0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> wheel.schedule(null, START));
+    }
+}